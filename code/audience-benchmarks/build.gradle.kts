@@ -0,0 +1,84 @@
+/**
+ * Copyright 2024 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+import com.adobe.marketing.mobile.gradle.BuildConstants
+
+// JMH benchmarks for the Audience extension hot paths, run on the JVM.
+// Usage: ./gradlew -p code/audience-benchmarks -Pbenchmarks jmh
+// Results, including allocations per operation from the GC profiler, are written to
+// build/results/jmh/results.json.
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+    id("com.diffplug.spotless")
+}
+
+val mavenCoreVersion: String by project
+
+configure<com.diffplug.gradle.spotless.SpotlessExtension> {
+    java {
+        toggleOffOn("format:off", "format:on")
+        target("src/*/java/**/*.java")
+        importOrder()
+        removeUnusedImports()
+        googleJavaFormat(BuildConstants.Versions.GOOGLE_JAVA_FORMAT).aosp().reflowLongStrings()
+        endWithNewline()
+        formatAnnotations()
+        licenseHeader(BuildConstants.ADOBE_LICENSE_HEADER)
+    }
+}
+
+java {
+    sourceCompatibility = BuildConstants.Versions.JAVA_SOURCE_COMPATIBILITY
+    targetCompatibility = BuildConstants.Versions.JAVA_TARGET_COMPATIBILITY
+}
+
+// The extension sources are compiled for the JVM so the benchmarks can reach package-private code.
+sourceSets {
+    main {
+        java.srcDir("../audience/src/main/java")
+    }
+}
+
+// Mobile Core is only published as an AAR, so its classes.jar is extracted for the JVM classpath.
+val coreAar: Configuration by configurations.creating {
+    isTransitive = false
+}
+
+val extractCoreClasses by tasks.registering(Copy::class) {
+    from(provider { coreAar.map { zipTree(it) } })
+    include("classes.jar")
+    into(layout.buildDirectory.dir("core"))
+}
+
+val coreClasses = files(layout.buildDirectory.file("core/classes.jar")).builtBy(extractCoreClasses)
+
+dependencies {
+    coreAar("com.adobe.marketing.mobile:core:$mavenCoreVersion@aar")
+
+    implementation(coreClasses)
+    implementation("androidx.annotation:annotation:1.3.0")
+    // org.json is part of the Android platform, use the reference implementation on the JVM
+    implementation("org.json:json:20231013")
+    runtimeOnly("org.jetbrains.kotlin:kotlin-stdlib:1.8.22")
+    compileOnly("com.google.android:android:4.1.1.4")
+
+    jmh("org.mockito:mockito-core:4.11.0")
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,59 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.services.DataEntity;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures serializing a queued hit and reading it back when the hit is sent. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AudienceDataEntityBenchmark {
+
+    private AudienceDataEntity audienceEntity;
+    private DataEntity dataEntity;
+
+    @Setup
+    public void setup() {
+        final Event event = BenchmarkFixtures.signalEvent(20);
+        audienceEntity =
+                new AudienceDataEntity(
+                        event,
+                        "https://" + BenchmarkFixtures.SERVER + "/event?c_key=value&d_dst=1",
+                        5);
+        dataEntity = audienceEntity.toDataEntity();
+    }
+
+    @Benchmark
+    public DataEntity toDataEntity() {
+        return audienceEntity.toDataEntity();
+    }
+
+    @Benchmark
+    public String fromDataEntity() {
+        return AudienceDataEntity.fromDataEntity(dataEntity).getUrl();
+    }
+
+    @Benchmark
+    public Event fromDataEntityWithEvent() {
+        return AudienceDataEntity.fromDataEntity(dataEntity).getEvent();
+    }
+}
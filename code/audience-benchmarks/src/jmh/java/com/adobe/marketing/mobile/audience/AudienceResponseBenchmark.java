@@ -0,0 +1,92 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.Event;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures handling an Audience Manager response, from the payload to the dispatched profile, and
+ * parsing the payload alone compared with the {@link JSONObject} based parsing it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AudienceResponseBenchmark {
+
+    /** Number of segments in the "stuff" array, a typical profile has tens of segments. */
+    @Param({"10", "100", "1000"})
+    public int segmentCount;
+
+    private AudienceExtension extension;
+    private Event requestEvent;
+    private String response;
+    private byte[] responseBytes;
+
+    @Setup
+    public void setup() {
+        extension = BenchmarkFixtures.newExtension();
+        requestEvent = BenchmarkFixtures.signalEvent(5);
+        response = BenchmarkFixtures.response(segmentCount, 2);
+        responseBytes = response.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void handleResponse() {
+        extension.networkResponseHandler.complete(response, requestEvent);
+    }
+
+    @Benchmark
+    public void handleResponseStream() {
+        extension.networkResponseHandler.completeWithStream(
+                new ByteArrayInputStream(responseBytes), requestEvent, null);
+    }
+
+    @Benchmark
+    public AudienceResponseParser.Response parse() throws JSONException, IOException {
+        return AudienceResponseParser.parse(new StringReader(response));
+    }
+
+    @Benchmark
+    public void parseWithJsonObject(final Blackhole blackhole) throws JSONException {
+        final JSONObject jsonResponse = new JSONObject(response);
+        blackhole.consume(jsonResponse.optString("uuid", null));
+
+        final JSONArray dests = jsonResponse.getJSONArray("dests");
+        for (int i = 0; i < dests.length(); i++) {
+            blackhole.consume(dests.getJSONObject(i).optString("c", null));
+        }
+
+        final JSONArray stuff = jsonResponse.getJSONArray("stuff");
+        for (int i = 0; i < stuff.length(); i++) {
+            final JSONObject segment = stuff.getJSONObject(i);
+            blackhole.consume(segment.optString("cn", ""));
+            blackhole.consume(segment.optString("cv", ""));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.Event;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures building and queuing the hit for a signal, the way the event hub processes signal and
+ * Lifecycle response events: {@code readyForEvent} followed by the event handler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AudienceSignalBenchmark {
+
+    @Param({"5", "50"})
+    public int traitCount;
+
+    private AudienceExtension extension;
+    private Event signalEvent;
+    private Event lifecycleEvent;
+
+    @Setup
+    public void setup() {
+        extension = BenchmarkFixtures.newExtension();
+        signalEvent = BenchmarkFixtures.signalEvent(traitCount);
+        lifecycleEvent = BenchmarkFixtures.lifecycleEvent();
+    }
+
+    @Benchmark
+    public void submitSignal() {
+        extension.readyForEvent(signalEvent);
+        extension.handleAudienceRequestContent(signalEvent);
+    }
+
+    @Benchmark
+    public void submitLifecycleSignal() {
+        extension.readyForEvent(lifecycleEvent);
+        extension.handleLifecycleResponse(lifecycleEvent);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.MobilePrivacyStatus;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Measures building the Audience shared state from the visitor profile. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AudienceStateBenchmark {
+
+    @Param({"10", "100"})
+    public int segmentCount;
+
+    private AudienceState state;
+
+    @Setup
+    public void setup() {
+        final Map<String, String> visitorProfile = new HashMap<>();
+        for (int i = 0; i < segmentCount; i++) {
+            visitorProfile.put("aam_segment_" + i, "seg=" + (1000000 + i));
+        }
+
+        state = new AudienceState(BenchmarkFixtures.newNamedCollection());
+        state.setMobilePrivacyStatus(MobilePrivacyStatus.OPT_IN);
+        state.setUuid("62392686667799183103437398532548123456");
+        state.setVisitorProfile(visitorProfile);
+    }
+
+    @Benchmark
+    public Map<String, Object> getStateData() {
+        return state.getStateData();
+    }
+}
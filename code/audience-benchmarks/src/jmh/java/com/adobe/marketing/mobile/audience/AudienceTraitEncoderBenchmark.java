@@ -0,0 +1,66 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.util.UrlUtils;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures encoding customer traits as URL parameters, compared with the {@link UrlUtils} based
+ * encoding it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AudienceTraitEncoderBenchmark {
+
+    @Param({"5", "50"})
+    public int traitCount;
+
+    private Map<String, String> traits;
+
+    @Setup
+    public void setup() {
+        traits = BenchmarkFixtures.traits(traitCount);
+    }
+
+    @Benchmark
+    public String encode() {
+        return AudienceTraitEncoder.get().encode(traits);
+    }
+
+    @Benchmark
+    public String encodeWithUrlUtils() {
+        final StringBuilder urlVars = new StringBuilder(1024);
+        for (Map.Entry<String, String> entry : traits.entrySet()) {
+            if (urlVars.length() != 0) {
+                urlVars.append("&");
+            }
+
+            urlVars.append(AudienceConstants.AUDIENCE_MANAGER_CUSTOMER_DATA_PREFIX)
+                    .append(UrlUtils.urlEncode(entry.getKey().replace(".", "_")))
+                    .append("=")
+                    .append(UrlUtils.urlEncode(entry.getValue()));
+        }
+
+        return urlVars.toString();
+    }
+}
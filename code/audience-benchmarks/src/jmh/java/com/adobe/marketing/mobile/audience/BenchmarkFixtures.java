@@ -0,0 +1,195 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.SharedStateResult;
+import com.adobe.marketing.mobile.SharedStateStatus;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import com.adobe.marketing.mobile.services.Networking;
+import com.adobe.marketing.mobile.services.PersistentHitQueue;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stubbed services and realistic payloads shared by the Audience benchmarks.
+ *
+ * <p>Mocks are created with {@code stubOnly()} so they do not record invocations. Their own
+ * allocations are still included in the reported numbers, which are meant to be compared between
+ * runs rather than read as absolute costs.
+ */
+final class BenchmarkFixtures {
+
+    static final String SERVER = "test.demdex.net";
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Creates an {@link AudienceExtension} whose hits are discarded and whose {@link ExtensionApi}
+     * returns set Configuration and Identity shared states.
+     */
+    static AudienceExtension newExtension() {
+        ServiceProvider.getInstance().setNetworkService(newNetworking());
+
+        final ExtensionApi extensionApi = mock(ExtensionApi.class, withSettings().stubOnly());
+        final SharedStateResult configuration =
+                new SharedStateResult(SharedStateStatus.SET, configuration());
+        final SharedStateResult identity = new SharedStateResult(SharedStateStatus.SET, identity());
+        when(extensionApi.getSharedState(
+                        eq(AudienceConstants.EventDataKeys.Configuration.MODULE_NAME),
+                        any(),
+                        anyBoolean(),
+                        any()))
+                .thenReturn(configuration);
+        when(extensionApi.getSharedState(
+                        eq(AudienceConstants.EventDataKeys.Identity.MODULE_NAME),
+                        any(),
+                        anyBoolean(),
+                        any()))
+                .thenReturn(identity);
+
+        return new AudienceExtension(
+                extensionApi,
+                new AudienceState(newNamedCollection()),
+                mock(PersistentHitQueue.class, withSettings().stubOnly()));
+    }
+
+    /** Creates a {@link NamedCollection} that stores nothing. */
+    static NamedCollection newNamedCollection() {
+        return mock(NamedCollection.class, withSettings().stubOnly());
+    }
+
+    /** Creates a {@link Networking} service that completes every request without a connection. */
+    static Networking newNetworking() {
+        return (request, callback) -> {
+            if (callback != null) {
+                callback.call(null);
+            }
+        };
+    }
+
+    static Map<String, Object> configuration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put(AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_SERVER, SERVER);
+        configuration.put(AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_TIMEOUT, 5);
+        configuration.put(
+                AudienceConstants.EventDataKeys.Configuration.GLOBAL_CONFIG_PRIVACY, "optedin");
+        configuration.put(
+                AudienceConstants.EventDataKeys.Configuration.EXPERIENCE_CLOUD_ORGID,
+                "972C898555E9F7BC7F000101@AdobeOrg");
+        return configuration;
+    }
+
+    static Map<String, Object> identity() {
+        final List<Map<String, Object>> visitorIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final Map<String, Object> visitorId = new HashMap<>();
+            visitorId.put(AudienceConstants.EventDataKeys.Identity.VisitorID.ID_TYPE, "type" + i);
+            visitorId.put(AudienceConstants.EventDataKeys.Identity.VisitorID.ID, "user@id " + i);
+            visitorId.put(AudienceConstants.EventDataKeys.Identity.VisitorID.STATE, 1);
+            visitorIds.add(visitorId);
+        }
+
+        final Map<String, Object> identity = new HashMap<>();
+        identity.put(
+                AudienceConstants.EventDataKeys.Identity.VISITOR_ID_MID,
+                "51234567890123456789012345678901234567");
+        identity.put(
+                AudienceConstants.EventDataKeys.Identity.VISITOR_ID_BLOB,
+                "j8Odv6LonN4r3an7LhD3WZrU1bUpAkFkkiY1ncBR96t2PTI");
+        identity.put(AudienceConstants.EventDataKeys.Identity.VISITOR_ID_LOCATION_HINT, "9");
+        identity.put(AudienceConstants.EventDataKeys.Identity.VISITOR_IDS_LIST, visitorIds);
+        return identity;
+    }
+
+    /** Creates customer traits with keys and values that need to be URL encoded. */
+    static Map<String, String> traits(final int count) {
+        final Map<String, String> traits = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            traits.put("trait.key" + i, "value " + i + " & caf\u00e9");
+        }
+
+        return traits;
+    }
+
+    static Event signalEvent(final int traitCount) {
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put(
+                AudienceConstants.EventDataKeys.Audience.VISITOR_TRAITS, traits(traitCount));
+        return new Event.Builder(
+                        "AudienceRequestContent",
+                        EventType.AUDIENCEMANAGER,
+                        EventSource.REQUEST_CONTENT)
+                .setEventData(eventData)
+                .build();
+    }
+
+    /** Creates a Lifecycle response event with a value for every key mapped to Audience traits. */
+    static Event lifecycleEvent() {
+        final Map<String, String> contextData = new HashMap<>();
+        int i = 0;
+        for (String key : AudienceConstants.MAP_TO_CONTEXT_DATA_KEYS.keySet()) {
+            contextData.put(key, String.valueOf(i++));
+        }
+
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put(
+                AudienceConstants.EventDataKeys.Lifecycle.LIFECYCLE_CONTEXT_DATA, contextData);
+        return new Event.Builder(
+                        "LifecycleResponseContent",
+                        EventType.LIFECYCLE,
+                        EventSource.RESPONSE_CONTENT)
+                .setEventData(eventData)
+                .build();
+    }
+
+    /** Creates an Audience Manager response with the given number of segments and destinations. */
+    static String response(final int segmentCount, final int destCount) {
+        final StringBuilder response = new StringBuilder("{\"uuid\":\"");
+        response.append("62392686667799183103437398532548123456").append("\",\"dests\":[");
+        for (int i = 0; i < destCount; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+
+            response.append("{\"c\":\"https:\\/\\/dest").append(i).append(".example.com\"}");
+        }
+
+        response.append("],\"stuff\":[");
+        for (int i = 0; i < segmentCount; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+
+            response.append("{\"cn\":\"aam_segment_")
+                    .append(i)
+                    .append("\",\"cv\":\"seg=")
+                    .append(1000000 + i)
+                    .append("\",\"ttl\":30,\"dmn\":\"demdex.net\"}");
+        }
+
+        return response.append("],\"dcs_region\":9,\"tid\":\"a1b2c3d4e5f6\"}").toString();
+    }
+}
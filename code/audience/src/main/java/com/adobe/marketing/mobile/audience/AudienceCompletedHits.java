@@ -0,0 +1,143 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Remembers the queued hits which completed in a parallel lane while a hit ahead of them is
+ * retried, so they are removed without being sent again once they reach the head of the queue.
+ *
+ * <p>The hit queue only removes its head, so these hits stay queued until then. Their unique
+ * identifiers are persisted under {@link
+ * AudienceConstants#AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY} as a comma separated list, so
+ * they are not sent again when the application restarts. The persisted list is read on first use.
+ */
+class AudienceCompletedHits {
+
+    private static final char SEPARATOR = ',';
+
+    private final NamedCollection localStorage;
+    private final Set<String> hitIds = new LinkedHashSet<>();
+    private boolean loaded;
+
+    /**
+     * Constructor.
+     *
+     * @param localStorage the {@link NamedCollection} where the hits are persisted, they are only
+     *     kept in memory if null
+     */
+    AudienceCompletedHits(final NamedCollection localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    /**
+     * Records that the given hits completed, and persists them.
+     *
+     * @param completedHitIds the unique identifiers of the completed hits
+     */
+    synchronized void addAll(final Collection<String> completedHitIds) {
+        load();
+        if (hitIds.addAll(completedHitIds)) {
+            persist();
+        }
+    }
+
+    /**
+     * Returns whether the given hit completed.
+     *
+     * @param hitId the unique identifier of the hit
+     * @return true if the hit completed in a lane
+     */
+    synchronized boolean contains(final String hitId) {
+        load();
+        return hitId != null && hitIds.contains(hitId);
+    }
+
+    /**
+     * Forgets the given hit once it is removed from the head of the queue.
+     *
+     * @param hitId the unique identifier of the hit
+     * @return true if the hit completed in a lane
+     */
+    synchronized boolean remove(final String hitId) {
+        load();
+        if (hitId == null || !hitIds.remove(hitId)) {
+            return false;
+        }
+
+        persist();
+        return true;
+    }
+
+    /** Forgets all the hits, once the hit queue is cleared. */
+    synchronized void clear() {
+        loaded = true;
+        if (hitIds.isEmpty()) {
+            return;
+        }
+
+        hitIds.clear();
+        persist();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        if (localStorage == null) {
+            return;
+        }
+
+        final String persisted =
+                localStorage.getString(
+                        AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY, null);
+        if (persisted == null || persisted.isEmpty()) {
+            return;
+        }
+
+        for (final String hitId : persisted.split(String.valueOf(SEPARATOR))) {
+            if (!hitId.isEmpty()) {
+                hitIds.add(hitId);
+            }
+        }
+    }
+
+    private void persist() {
+        if (localStorage == null) {
+            return;
+        }
+
+        if (hitIds.isEmpty()) {
+            localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY);
+            return;
+        }
+
+        final StringBuilder persisted = new StringBuilder();
+        for (final String hitId : hitIds) {
+            if (persisted.length() > 0) {
+                persisted.append(SEPARATOR);
+            }
+
+            persisted.append(hitId);
+        }
+
+        localStorage.setString(
+                AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY,
+                persisted.toString());
+    }
+}
@@ -41,7 +41,11 @@ class AudienceConstants {
     // persistent storage
     static final String AUDIENCE_MANAGER_SHARED_PREFS_DATA_STORE = "AAMDataStore";
     static final String AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY = "AAMUserProfile";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY = "AAMUserProfileDelta";
     static final String AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY = "AAMUserId";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY = "AAMDestCache";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY = "AAMHitRetry";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY = "AAMCompletedHits";
 
     // json response keys
     static final String AUDIENCE_MANAGER_JSON_DESTS_KEY = "dests";
@@ -53,6 +57,56 @@ class AudienceConstants {
 
     // config defaults
     static final int DEFAULT_AAM_TIMEOUT = 2;
+    static final int DEFAULT_AAM_BATCH_LIMIT = 1;
+    static final int DEFAULT_AAM_HIT_LANES = 1;
+    static final int DEFAULT_AAM_RETRY_MAX_INTERVAL_SECONDS = 600;
+    static final int DEFAULT_AAM_HIT_MAX_AGE_SECONDS = 0;
+    static final int DEFAULT_AAM_HIT_MAX_COUNT = 0;
+    static final boolean DEFAULT_AAM_DEDUPE_QUEUED_SIGNALS = false;
+    static final long DEFAULT_AAM_COALESCING_WINDOW_MILLIS = 0;
+    static final int DEFAULT_AAM_DEST_CONCURRENCY = 4;
+    static final int DEFAULT_AAM_DEST_HOST_CONCURRENCY = 2;
+    static final long DEFAULT_AAM_DEST_DEDUPE_WINDOW_MILLIS = 0;
+    static final long DEFAULT_AAM_DEST_CACHE_TTL_MILLIS = 0;
+
+    // maximum size of an AAM response body read from the network
+    static final int MAX_AAM_RESPONSE_SIZE_BYTES = 512 * 1024;
+
+    // maximum number of dest requests waiting to be forwarded
+    static final int MAX_PENDING_DESTS = 100;
+
+    // maximum number of recently forwarded dest URLs remembered for deduplication
+    static final int MAX_RECENT_DESTS = 256;
+
+    // maximum number of successfully forwarded dest URLs remembered across launches
+    static final int MAX_DEST_CACHE_ENTRIES = 128;
+
+    // maximum number of queued signal hits indexed for deduplication
+    static final int MAX_QUEUED_SIGNAL_INDEX_ENTRIES = 256;
+
+    // name of the data queue holding the dest requests to be retried
+    static final String DEST_DATA_QUEUE_NAME = EXTENSION_NAME + ".dests";
+
+    // queued dest requests older than this are discarded without being sent
+    static final long DEST_HIT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // retry interval of the first failed dest request, doubled after each consecutive failure
+    static final int DEST_RETRY_BASE_SECONDS = 5;
+    static final int DEST_RETRY_MAX_SECONDS = 600;
+
+    // delay used to coalesce successive visitor profile writes to persistence
+    static final long VISITOR_PROFILE_WRITE_DELAY_MILLIS = 1000;
+
+    // delay used to write the dest cache once for the dests forwarded in a burst
+    static final long DEST_CACHE_WRITE_DELAY_MILLIS = 1000;
+
+    // source of the events dispatched when the visitor profile changes
+    static final String PROFILE_CHANGE_EVENT_SOURCE = "com.adobe.eventSource.notification";
+
+    // source of the internal events queuing a coalesced signal once its window closed
+    static final String COALESCING_WINDOW_EVENT_SOURCE =
+            "com.adobe.eventSource.audienceCoalescingWindow";
+
     static final MobilePrivacyStatus DEFAULT_PRIVACY_STATUS = MobilePrivacyStatus.UNKNOWN;
 
     // opt-out end-points
@@ -170,8 +224,14 @@ class AudienceConstants {
             // response keys
             static final String VISITOR_PROFILE = "aamprofile";
             static final String UUID = "uuid";
+            // profile change keys
+            static final String PROFILE_ADDED = "aamprofileadded";
+            static final String PROFILE_REMOVED = "aamprofileremoved";
+            static final String PROFILE_CHANGED = "aamprofilechanged";
             // opted out response key
             static final String OPTED_OUT_HIT_SENT = "optedouthitsent";
+            // coalescing window key
+            static final String COALESCING_WINDOW_ID = "coalescingwindowid";
 
             private Audience() {}
         }
@@ -184,6 +244,18 @@ class AudienceConstants {
             static final String GLOBAL_CONFIG_PRIVACY = "global.privacy";
             static final String AAM_CONFIG_SERVER = "audience.server";
             static final String AAM_CONFIG_TIMEOUT = "audience.timeout";
+            static final String AAM_CONFIG_BATCH_LIMIT = "audience.batchLimit";
+            static final String AAM_CONFIG_HIT_LANES = "audience.hitLanes";
+            static final String AAM_CONFIG_RETRY_MAX_INTERVAL = "audience.retryMaxInterval";
+            static final String AAM_CONFIG_HIT_MAX_AGE = "audience.hitMaxAge";
+            static final String AAM_CONFIG_HIT_MAX_COUNT = "audience.hitMaxCount";
+            static final String AAM_CONFIG_DEDUPE_QUEUED_SIGNALS = "audience.dedupeQueuedSignals";
+            static final String AAM_CONFIG_COALESCING_WINDOW = "audience.coalescingWindow";
+            static final String AAM_CONFIG_PROFILE_CHANGE_EVENTS = "audience.profileChangeEvents";
+            static final String AAM_CONFIG_DEST_CONCURRENCY = "audience.destConcurrency";
+            static final String AAM_CONFIG_DEST_HOST_CONCURRENCY = "audience.destHostConcurrency";
+            static final String AAM_CONFIG_DEST_DEDUPE_WINDOW = "audience.destDedupeWindow";
+            static final String AAM_CONFIG_DEST_CACHE_TTL = "audience.destCacheTtl";
             static final String EXPERIENCE_CLOUD_ORGID = "experienceCloud.org";
             static final String ANALYTICS_CONFIG_AAMFORWARDING = "analytics.aamForwardingEnabled";
 
@@ -230,7 +302,9 @@ class AudienceConstants {
             static final String LAUNCH_EVENT = "launchevent";
             static final String LAUNCHES = "launches";
             static final String LAUNCHES_SINCE_UPGRADE = "launchessinceupgrade";
+            static final String LIFECYCLE_ACTION = "action";
             static final String LIFECYCLE_CONTEXT_DATA = "lifecyclecontextdata";
+            static final String LIFECYCLE_PAUSE = "pause";
             static final String LOCALE = "locale";
             static final String MONTHLY_ENGAGED_EVENT = "monthlyenguserevent";
             static final String OPERATING_SYSTEM = "osversion";
@@ -27,11 +27,20 @@ class AudienceDataEntity {
 
     private static final String LOG_SOURCE = "AudienceDataEntity";
 
+    // current format, one field per line
+    private static final String FORMAT_VERSION = "AAM2";
+    private static final String FIELD_SEPARATOR = "\n";
+    private static final int FIELD_COUNT = 6;
+
+    // legacy JSON format keys
     private static final String EVENT_KEY = "event";
     private static final String URL_KEY = "url";
     private static final String TIMEOUT_KEY = "timeoutSec";
 
-    private final Event event;
+    private Event event;
+    private String encodedEvent;
+    private final String eventId;
+    private final long eventTimestamp;
     private final String url;
     private final int timeoutSec;
 
@@ -51,17 +60,72 @@ class AudienceDataEntity {
         }
 
         this.event = event;
+        this.eventId = event.getUniqueIdentifier();
+        this.eventTimestamp = event.getTimestamp();
         this.url = url;
         this.timeoutSec = timeoutSec;
     }
 
     /**
-     * @return the {@link Event} cannot be null based on constructor
+     * Creates a read-only {@link AudienceDataEntity} object for a persisted hit. The request event
+     * is only decoded when it is first requested through {@link #getEvent()}.
+     *
+     * @param eventId the unique identifier of the request event
+     * @param eventTimestamp the timestamp of the request event, in milliseconds
+     * @param encodedEvent the request event, encoded with {@link EventCoder}
+     * @param url the URL for the Audience Manager request
+     * @param timeoutSec indicates the number of seconds a network request should wait for server
+     *     response
      */
-    Event getEvent() {
+    private AudienceDataEntity(
+            @NonNull final String eventId,
+            final long eventTimestamp,
+            @NonNull final String encodedEvent,
+            final String url,
+            final int timeoutSec) {
+        this.eventId = eventId;
+        this.eventTimestamp = eventTimestamp;
+        this.encodedEvent = encodedEvent;
+        this.url = url;
+        this.timeoutSec = timeoutSec;
+    }
+
+    /**
+     * Returns the request {@link Event} for this entity, decoding it on first access for entities
+     * read from the hit queue. Entities are only decoded once the response of their hit is handled.
+     *
+     * @return the request {@code Event}, or null if the persisted event could not be decoded
+     */
+    synchronized Event getEvent() {
+        if (event == null && encodedEvent != null) {
+            event = EventCoder.decode(encodedEvent);
+            if (event == null) {
+                Log.debug(
+                        AudienceConstants.LOG_TAG,
+                        LOG_SOURCE,
+                        "Failed to decode the request event of the queued hit.");
+            }
+
+            encodedEvent = null;
+        }
+
         return event;
     }
 
+    /**
+     * @return the unique identifier of the request event, read without decoding the event
+     */
+    String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * @return the timestamp of the request event in milliseconds, read without decoding the event
+     */
+    long getEventTimestamp() {
+        return eventTimestamp;
+    }
+
     /**
      * @return the URL for the Audience Manager request
      */
@@ -79,33 +143,56 @@ class AudienceDataEntity {
     /**
      * Serializes this to a {@code DataEntity}.
      *
+     * <p>The serialized entity only contains the fields needed to send the hit and to dispatch its
+     * response, one per line after the {@link #FORMAT_VERSION} header: the request event identifier
+     * and timestamp, the timeout, the encoded request event without its event data, and the URL.
+     * The customer traits from the event data are already part of the URL. The identifier and
+     * timestamp are stored in plain text, so queued hits are checked without decoding the event.
+     *
      * @return serialized {@code AudienceDataEntity} or null if it could not be serialized.
      */
     @Nullable DataEntity toDataEntity() {
-        try {
-            JSONObject serializedEntity = new JSONObject();
-            serializedEntity.put(EVENT_KEY, new JSONObject(EventCoder.encode(this.event)));
-            serializedEntity.put(URL_KEY, this.url);
-            serializedEntity.put(TIMEOUT_KEY, this.timeoutSec);
-
-            return new DataEntity(
-                    event.getUniqueIdentifier(),
-                    new Date(event.getTimestamp()),
-                    serializedEntity.toString());
-        } catch (JSONException e) {
+        final Event requestEvent = getEvent();
+        final String serializedEvent =
+                requestEvent != null
+                        ? EventCoder.encode(requestEvent.cloneWithEventData(null))
+                        : null;
+        if (serializedEvent == null) {
             Log.debug(
                     AudienceConstants.LOG_TAG,
                     LOG_SOURCE,
-                    "Failed to serialize AudienceDataEntity to DataEntity: "
-                            + e.getLocalizedMessage());
+                    "Failed to serialize AudienceDataEntity to DataEntity: unable to encode"
+                            + " event.");
+            return null;
         }
 
-        return null;
+        final String serializedEntity =
+                FORMAT_VERSION
+                        + FIELD_SEPARATOR
+                        + requestEvent.getUniqueIdentifier()
+                        + FIELD_SEPARATOR
+                        + requestEvent.getTimestamp()
+                        + FIELD_SEPARATOR
+                        + this.timeoutSec
+                        + FIELD_SEPARATOR
+                        + serializedEvent
+                        + FIELD_SEPARATOR
+                        + (this.url != null ? this.url : "");
+
+        return new DataEntity(
+                requestEvent.getUniqueIdentifier(),
+                new Date(requestEvent.getTimestamp()),
+                serializedEntity);
     }
 
     /**
      * Deserializes a {@code DataEntity} to a {@code AudienceDataEntity}.
      *
+     * <p>Supports both the current line format and the legacy JSON format of entities queued by
+     * previous versions of the extension. The request event is decoded lazily by {@link
+     * #getEvent()}; the identifier and timestamp of the request event of a legacy entity are those
+     * of the {@code DataEntity}, which were set from the event when it was queued.
+     *
      * @param dataEntity {@code DataEntity} to be processed
      * @return a deserialized {@code AudienceDataEntity} instance or null if it could not be
      *     deserialized to an {@code AudienceDataEntity}
@@ -117,22 +204,11 @@ class AudienceDataEntity {
         }
 
         try {
-            JSONObject serializedEntity = new JSONObject(entity);
-
-            String url = null;
-            if (serializedEntity.has(URL_KEY)) {
-                url = serializedEntity.getString(URL_KEY);
+            if (entity.startsWith(FORMAT_VERSION + FIELD_SEPARATOR)) {
+                return fromSerializedFields(entity);
             }
 
-            int timeout = AudienceConstants.DEFAULT_AAM_TIMEOUT;
-            if (serializedEntity.has(TIMEOUT_KEY)) {
-                timeout = serializedEntity.getInt(TIMEOUT_KEY);
-            }
-
-            String eventString = serializedEntity.getJSONObject(EVENT_KEY).toString();
-            Event event = EventCoder.decode(eventString);
-
-            return new AudienceDataEntity(event, url, timeout);
+            return fromLegacyJson(entity, dataEntity);
         } catch (JSONException | IllegalArgumentException e) {
             Log.debug(
                     AudienceConstants.LOG_TAG,
@@ -143,4 +219,48 @@ class AudienceDataEntity {
 
         return null;
     }
+
+    private static AudienceDataEntity fromSerializedFields(final String entity) {
+        final String[] fields = entity.split(FIELD_SEPARATOR, FIELD_COUNT);
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("Unexpected number of fields " + fields.length);
+        }
+
+        final String eventId = fields[1];
+        if (eventId.isEmpty()) {
+            throw new IllegalArgumentException("Missing request event identifier");
+        }
+
+        final long eventTimestamp = Long.parseLong(fields[2]);
+        final int timeout = Integer.parseInt(fields[3]);
+        final String url = fields[5].isEmpty() ? null : fields[5];
+
+        return new AudienceDataEntity(eventId, eventTimestamp, fields[4], url, timeout);
+    }
+
+    private static AudienceDataEntity fromLegacyJson(
+            final String entity, final DataEntity dataEntity) throws JSONException {
+        final String eventId = dataEntity.getUniqueIdentifier();
+        if (eventId == null || eventId.isEmpty()) {
+            throw new IllegalArgumentException("Missing request event identifier");
+        }
+
+        JSONObject serializedEntity = new JSONObject(entity);
+
+        String url = null;
+        if (serializedEntity.has(URL_KEY)) {
+            url = serializedEntity.getString(URL_KEY);
+        }
+
+        int timeout = AudienceConstants.DEFAULT_AAM_TIMEOUT;
+        if (serializedEntity.has(TIMEOUT_KEY)) {
+            timeout = serializedEntity.getInt(TIMEOUT_KEY);
+        }
+
+        String eventString = serializedEntity.getJSONObject(EVENT_KEY).toString();
+
+        final Date timestamp = dataEntity.getTimestamp();
+        return new AudienceDataEntity(
+                eventId, timestamp != null ? timestamp.getTime() : 0, eventString, url, timeout);
+    }
 }
@@ -0,0 +1,266 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the destination URLs ({@code dests}) which were forwarded successfully, so they are not
+ * forwarded again before their time to live expires.
+ *
+ * <p>At most {@link AudienceConstants#MAX_DEST_CACHE_ENTRIES} URLs are kept, the least recently
+ * used being evicted first. Only a 64-bit hash of every URL is kept, and the cache is persisted as
+ * a single string of {@code hash:timestamp} pairs under {@link
+ * AudienceConstants#AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY}, both in base 36. The persisted
+ * cache is read on first use, and written {@link AudienceConstants#DEST_CACHE_WRITE_DELAY_MILLIS}
+ * after the first URL recorded since the last write, so the URLs forwarded for one response are
+ * written at once.
+ */
+class AudienceDestCache {
+
+    private static final String LOG_SOURCE = "AudienceDestCache";
+
+    private static final char ENTRY_SEPARATOR = ',';
+    private static final char FIELD_SEPARATOR = ':';
+    private static final int RADIX = 36;
+
+    private final NamedCollection localStorage;
+
+    // URL hashes and when the URLs were last forwarded, least recently used first
+    private final LinkedHashMap<Long, Long> sentUrls =
+            new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, Long> eldest) {
+                    return size() > AudienceConstants.MAX_DEST_CACHE_ENTRIES;
+                }
+            };
+
+    private boolean loaded;
+    private ScheduledFuture<?> pendingWrite;
+    private ScheduledExecutorService persistenceExecutor;
+    private long ttlMillis = AudienceConstants.DEFAULT_AAM_DEST_CACHE_TTL_MILLIS;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Constructor.
+     *
+     * @param localStorage the {@link NamedCollection} where the cache is persisted, the cache is
+     *     only kept in memory if null
+     */
+    AudienceDestCache(final NamedCollection localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    /**
+     * Sets the time during which a forwarded URL is not forwarded again.
+     *
+     * @param ttlMillis the time to live of the cached URLs, in milliseconds; 0 disables the cache
+     */
+    synchronized void setTtl(final long ttlMillis) {
+        this.ttlMillis = Math.max(0, ttlMillis);
+    }
+
+    /**
+     * Returns whether the given URL was forwarded successfully within the time to live.
+     *
+     * @param url the destination URL
+     * @return true if {@code url} should not be forwarded again, always false if the cache is
+     *     disabled
+     */
+    synchronized boolean contains(@NonNull final String url) {
+        if (ttlMillis <= 0) {
+            return false;
+        }
+
+        load();
+        final Long sentTimestamp = sentUrls.get(AudienceUrlHash.hash(url));
+        if (sentTimestamp != null && System.currentTimeMillis() - sentTimestamp < ttlMillis) {
+            hitCount++;
+            return true;
+        }
+
+        missCount++;
+        return false;
+    }
+
+    /**
+     * Records that the given URL was forwarded successfully, and schedules a write of the cache.
+     *
+     * @param url the destination URL
+     */
+    synchronized void recordSent(@NonNull final String url) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+
+        load();
+        final long now = System.currentTimeMillis();
+        sentUrls.put(AudienceUrlHash.hash(url), now);
+        removeExpired(now);
+        scheduleWrite();
+    }
+
+    /** Writes the cache to persistence if a write is pending, without waiting for the delay. */
+    synchronized void flush() {
+        if (pendingWrite == null) {
+            return;
+        }
+
+        cancelPendingWrite();
+        persist();
+    }
+
+    /** Writes the cache to persistence if a write is pending, and stops the background writer. */
+    synchronized void shutdown() {
+        flush();
+        if (persistenceExecutor != null) {
+            persistenceExecutor.shutdown();
+            persistenceExecutor = null;
+        }
+    }
+
+    /** Removes all the URLs from the cache and from persistence. */
+    synchronized void clear() {
+        cancelPendingWrite();
+        sentUrls.clear();
+        loaded = true;
+        if (localStorage != null) {
+            localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY);
+        }
+    }
+
+    /**
+     * @return the number of URLs found in the cache
+     */
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of URLs not found in the cache, or whose time to live expired
+     */
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        if (localStorage == null) {
+            return;
+        }
+
+        final String persisted =
+                localStorage.getString(
+                        AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY, null);
+        if (persisted == null || persisted.isEmpty()) {
+            return;
+        }
+
+        int start = 0;
+        while (start < persisted.length()) {
+            int end = persisted.indexOf(ENTRY_SEPARATOR, start);
+            if (end < 0) {
+                end = persisted.length();
+            }
+
+            final int separator = persisted.indexOf(FIELD_SEPARATOR, start);
+            if (separator > start && separator < end) {
+                try {
+                    sentUrls.put(
+                            Long.parseLong(persisted.substring(start, separator), RADIX),
+                            Long.parseLong(persisted.substring(separator + 1, end), RADIX));
+                } catch (final NumberFormatException e) {
+                    Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring invalid persisted dest cache entry.");
+                }
+            }
+
+            start = end + 1;
+        }
+    }
+
+    private void removeExpired(final long now) {
+        final Iterator<Long> iterator = sentUrls.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next() >= ttlMillis) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void scheduleWrite() {
+        if (localStorage == null || pendingWrite != null) {
+            return;
+        }
+
+        if (persistenceExecutor == null) {
+            // the pending write must not keep the application process alive
+            persistenceExecutor =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                final Thread thread = new Thread(runnable, LOG_SOURCE);
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+        }
+
+        pendingWrite =
+                persistenceExecutor.schedule(
+                        this::flush,
+                        AudienceConstants.DEST_CACHE_WRITE_DELAY_MILLIS,
+                        TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingWrite() {
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+            pendingWrite = null;
+        }
+    }
+
+    private void persist() {
+        if (localStorage == null) {
+            return;
+        }
+
+        final StringBuilder persisted = new StringBuilder(sentUrls.size() * 24);
+        for (final Map.Entry<Long, Long> entry : sentUrls.entrySet()) {
+            if (persisted.length() > 0) {
+                persisted.append(ENTRY_SEPARATOR);
+            }
+
+            persisted
+                    .append(Long.toString(entry.getKey(), RADIX))
+                    .append(FIELD_SEPARATOR)
+                    .append(Long.toString(entry.getValue(), RADIX));
+        }
+
+        localStorage.setString(
+                AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY,
+                persisted.toString());
+    }
+}
@@ -0,0 +1,391 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.HttpConnecting;
+import com.adobe.marketing.mobile.services.HttpMethod;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NetworkRequest;
+import com.adobe.marketing.mobile.services.Networking;
+import com.adobe.marketing.mobile.services.NetworkingConstants;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forwards requests to the destination URLs ({@code dests}) of Audience Manager responses.
+ *
+ * <p>At most {@link #configure(int, int, long) maxConcurrent} requests are in flight at once, and
+ * at most {@code maxPerHost} of them to the same host. Other requests wait in a queue of at most
+ * {@link AudienceConstants#MAX_PENDING_DESTS} requests. A URL forwarded within the dedupe window
+ * is not forwarded again, nor is a URL found in the {@link AudienceDestCache}, if any.
+ *
+ * <p>Requests which fail while the device is offline or with a recoverable error, which do not fit
+ * in the queue, or which are still waiting on shutdown are passed to the {@link RetryCallback}, if
+ * any, to be forwarded later. Otherwise they are dropped. Requests waiting or in flight when the
+ * forwarder is {@link #clear() cleared} are never passed to the {@link RetryCallback}.
+ */
+class AudienceDestForwarder {
+
+    private static final String LOG_SOURCE = "AudienceDestForwarder";
+
+    /** Callback receiving the requests to be forwarded later. */
+    interface RetryCallback {
+        /**
+         * Called with a request which could not be forwarded now.
+         *
+         * @param url the destination URL
+         * @param timeoutSec the connect and read timeout of the request, in seconds
+         */
+        void onRetryLater(@NonNull final String url, final int timeoutSec);
+    }
+
+    private final RetryCallback retryCallback;
+    private final AudienceDestCache sentCache;
+
+    private final Deque<DestRequest> pendingRequests = new ArrayDeque<>();
+    private final Map<String, Integer> inFlightPerHost = new HashMap<>();
+    // forwarded URLs and when they were forwarded, in forwarding order
+    private final LinkedHashMap<String, Long> recentUrls = new LinkedHashMap<>();
+    private int inFlight;
+    // incremented on clear, requests started before are not retried
+    private long generation;
+
+    private int maxConcurrent = AudienceConstants.DEFAULT_AAM_DEST_CONCURRENCY;
+    private int maxPerHost = AudienceConstants.DEFAULT_AAM_DEST_HOST_CONCURRENCY;
+    private long dedupeWindowMillis = AudienceConstants.DEFAULT_AAM_DEST_DEDUPE_WINDOW_MILLIS;
+
+    private long sentCount;
+    private long failedCount;
+    private long dedupedCount;
+    private long droppedCount;
+    private long deferredCount;
+
+    AudienceDestForwarder() {
+        this(null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param retryCallback the {@link RetryCallback} receiving the requests to be forwarded later,
+     *     the requests are dropped if null
+     * @param sentCache the {@link AudienceDestCache} of the URLs forwarded successfully, may be
+     *     null
+     */
+    AudienceDestForwarder(final RetryCallback retryCallback, final AudienceDestCache sentCache) {
+        this.retryCallback = retryCallback;
+        this.sentCache = sentCache;
+    }
+
+    /**
+     * Updates the forwarding limits. Values lower than one are replaced by one.
+     *
+     * @param maxConcurrent the maximum number of requests in flight
+     * @param maxPerHost the maximum number of requests in flight to the same host
+     * @param dedupeWindowMillis the time during which a forwarded URL is not forwarded again, in
+     *     milliseconds; 0 disables deduplication
+     */
+    synchronized void configure(
+            final int maxConcurrent, final int maxPerHost, final long dedupeWindowMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.dedupeWindowMillis = Math.max(0, dedupeWindowMillis);
+    }
+
+    /**
+     * Forwards requests to the given destination URLs, as soon as the limits allow.
+     *
+     * @param urls the destination URLs to forward
+     * @param timeoutSec the connect and read timeout of the requests, in seconds
+     */
+    void forward(@NonNull final List<String> urls, final int timeoutSec) {
+        final List<DestRequest> overflowRequests = new ArrayList<>();
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            for (final String url : urls) {
+                if (sentCache != null && sentCache.contains(url)) {
+                    Log.trace(LOG_TAG, LOG_SOURCE, "Skipping recently forwarded 'dest'.");
+                    continue;
+                }
+
+                if (isDuplicate(url, now)) {
+                    dedupedCount++;
+                    continue;
+                }
+
+                if (pendingRequests.size() >= AudienceConstants.MAX_PENDING_DESTS) {
+                    overflowRequests.add(pendingRequests.removeFirst());
+                }
+
+                pendingRequests.addLast(
+                        new DestRequest(url, getHost(url), timeoutSec, generation));
+            }
+        }
+
+        for (final DestRequest request : overflowRequests) {
+            retryLater(request);
+        }
+
+        sendPendingRequests();
+    }
+
+    /** Passes the requests which are not in flight yet to the {@link RetryCallback}, if any. */
+    void shutdown() {
+        final List<DestRequest> waitingRequests;
+        synchronized (this) {
+            waitingRequests = new ArrayList<>(pendingRequests);
+            pendingRequests.clear();
+        }
+
+        for (final DestRequest request : waitingRequests) {
+            retryLater(request);
+        }
+    }
+
+    /**
+     * Drops the waiting requests and the recently forwarded URLs, without passing them to the
+     * {@link RetryCallback}, once the identities they carry were reset or the user opted out. The
+     * requests in flight are not retried when they fail.
+     */
+    synchronized void clear() {
+        generation++;
+        pendingRequests.clear();
+        recentUrls.clear();
+    }
+
+    /**
+     * @return the number of requests forwarded successfully
+     */
+    synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * @return the number of requests which failed or returned an unexpected status
+     */
+    synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return the number of URLs not forwarded because they were forwarded within the dedupe window
+     */
+    synchronized long getDedupedCount() {
+        return dedupedCount;
+    }
+
+    /**
+     * @return the number of requests dropped from a full queue or on shutdown
+     */
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the number of requests passed to the {@link RetryCallback}
+     */
+    synchronized long getDeferredCount() {
+        return deferredCount;
+    }
+
+    /**
+     * Checks if the given URL was forwarded within the dedupe window, and records it otherwise.
+     * Must be called while holding the lock of this forwarder.
+     */
+    private boolean isDuplicate(final String url, final long now) {
+        if (dedupeWindowMillis <= 0) {
+            return false;
+        }
+
+        // entries are kept in forwarding order, so expired entries are at the head
+        final Iterator<Map.Entry<String, Long>> iterator = recentUrls.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            if (now - entry.getValue() < dedupeWindowMillis
+                    && recentUrls.size() <= AudienceConstants.MAX_RECENT_DESTS) {
+                break;
+            }
+
+            iterator.remove();
+        }
+
+        if (recentUrls.containsKey(url)) {
+            return true;
+        }
+
+        recentUrls.put(url, now);
+        return false;
+    }
+
+    /** Starts the pending requests allowed by the limits. */
+    private void sendPendingRequests() {
+        final List<DestRequest> readyRequests = new ArrayList<>();
+
+        synchronized (this) {
+            final Iterator<DestRequest> iterator = pendingRequests.iterator();
+            while (inFlight < maxConcurrent && iterator.hasNext()) {
+                final DestRequest request = iterator.next();
+                final Integer hostCount = inFlightPerHost.get(request.host);
+                if (hostCount != null && hostCount >= maxPerHost) {
+                    continue;
+                }
+
+                iterator.remove();
+                inFlight++;
+                inFlightPerHost.put(request.host, hostCount == null ? 1 : hostCount + 1);
+                readyRequests.add(request);
+            }
+        }
+
+        // requests are started outside the lock, as their callback may run on this thread
+        for (final DestRequest request : readyRequests) {
+            send(request);
+        }
+    }
+
+    private void send(final DestRequest request) {
+        final Networking networkService = ServiceProvider.getInstance().getNetworkService();
+        if (networkService == null) {
+            complete(request, Result.RETRY);
+            return;
+        }
+
+        final NetworkRequest networkRequest =
+                new NetworkRequest(
+                        request.url,
+                        HttpMethod.GET,
+                        null,
+                        null,
+                        request.timeoutSec,
+                        request.timeoutSec);
+        networkService.connectAsync(
+                networkRequest, connection -> complete(request, handleResponse(connection)));
+    }
+
+    private Result handleResponse(final HttpConnecting connection) {
+        if (connection == null) {
+            Log.trace(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Failed to forward destination because the connection is null (network is"
+                            + " offline).");
+            return Result.RETRY;
+        }
+
+        final int responseCode = connection.getResponseCode();
+        connection.close();
+
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            Log.trace(LOG_TAG, LOG_SOURCE, "Successfully forwarded 'dest'.");
+            return Result.SENT;
+        }
+
+        Log.trace(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Failed to process dest - connection status \"%s\".",
+                responseCode);
+        return NetworkingConstants.RECOVERABLE_ERROR_CODES.contains(responseCode)
+                ? Result.RETRY
+                : Result.FAILED;
+    }
+
+    private void complete(final DestRequest request, final Result result) {
+        synchronized (this) {
+            inFlight--;
+            final int hostCount = inFlightPerHost.get(request.host) - 1;
+            if (hostCount > 0) {
+                inFlightPerHost.put(request.host, hostCount);
+            } else {
+                inFlightPerHost.remove(request.host);
+            }
+
+            if (result == Result.SENT) {
+                sentCount++;
+            } else {
+                failedCount++;
+            }
+        }
+
+        if (result == Result.SENT && sentCache != null) {
+            sentCache.recordSent(request.url);
+        } else if (result == Result.RETRY) {
+            retryLater(request);
+        }
+
+        sendPendingRequests();
+    }
+
+    private void retryLater(final DestRequest request) {
+        synchronized (this) {
+            // the requests started before a clear carry the identities which were cleared
+            if (request.generation != generation) {
+                Log.trace(LOG_TAG, LOG_SOURCE, "Not retrying 'dest' forwarded before a clear.");
+                return;
+            }
+
+            if (retryCallback == null) {
+                droppedCount++;
+                return;
+            }
+
+            deferredCount++;
+        }
+
+        retryCallback.onRetryLater(request.url, request.timeoutSec);
+    }
+
+    private static String getHost(final String url) {
+        try {
+            final String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (final IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /** The outcome of a request. */
+    private enum Result {
+        SENT,
+        FAILED,
+        RETRY
+    }
+
+    /** A request to a destination URL. */
+    private static final class DestRequest {
+
+        private final String url;
+        private final String host;
+        private final int timeoutSec;
+        private final long generation;
+
+        DestRequest(
+                final String url, final String host, final int timeoutSec, final long generation) {
+            this.url = url;
+            this.host = host;
+            this.timeoutSec = timeoutSec;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.adobe.marketing.mobile.services.DataEntity;
+import com.adobe.marketing.mobile.services.HitProcessing;
+import com.adobe.marketing.mobile.services.HitProcessingResult;
+import com.adobe.marketing.mobile.services.HttpConnecting;
+import com.adobe.marketing.mobile.services.HttpMethod;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NetworkRequest;
+import com.adobe.marketing.mobile.services.Networking;
+import com.adobe.marketing.mobile.services.NetworkingConstants;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.net.HttpURLConnection;
+import java.util.Date;
+
+/**
+ * Processes the hits of the {@code dests} hit queue, which holds the requests to destination URLs
+ * that could not be forwarded right away by the {@link AudienceDestForwarder}.
+ *
+ * <p>This queue is separate from the signal hit queue, so slow partner endpoints never delay
+ * signals. Failed requests are retried with an exponential backoff, and hits older than {@link
+ * AudienceConstants#DEST_HIT_TTL_MILLIS} are discarded without being sent.
+ */
+class AudienceDestHitProcessor implements HitProcessing {
+
+    private static final String LOG_SOURCE = "AudienceDestHitProcessor";
+
+    // one field per line: format version, timeout, URL
+    private static final String FORMAT_VERSION = "DEST1";
+    private static final String FIELD_SEPARATOR = "\n";
+    private static final int FIELD_COUNT = 3;
+
+    // the retry interval doubles after each consecutive failure, up to the maximum
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final AudienceDestCache sentCache;
+
+    // the hit queue processes one hit at a time, so these have a single writer
+    private volatile int consecutiveFailures;
+    private volatile long expiredCount;
+
+    /**
+     * Constructor.
+     *
+     * @param sentCache the {@link AudienceDestCache} recording the URLs forwarded successfully, may
+     *     be null
+     */
+    AudienceDestHitProcessor(final AudienceDestCache sentCache) {
+        this.sentCache = sentCache;
+    }
+
+    /**
+     * Serializes a request to a destination URL to a {@link DataEntity} for the dests hit queue.
+     * The timestamp of the entity is the current time, from which its expiry is computed.
+     *
+     * @param url the destination URL
+     * @param timeoutSec the connect and read timeout of the request, in seconds
+     * @return the {@code DataEntity} to queue
+     */
+    @NonNull static DataEntity toDataEntity(@NonNull final String url, final int timeoutSec) {
+        return new DataEntity(
+                FORMAT_VERSION + FIELD_SEPARATOR + timeoutSec + FIELD_SEPARATOR + url);
+    }
+
+    @Override
+    public int retryInterval(@NonNull final DataEntity dataEntity) {
+        final int shift = Math.min(Math.max(consecutiveFailures - 1, 0), MAX_BACKOFF_SHIFT);
+        return (int)
+                Math.min(
+                        (long) AudienceConstants.DEST_RETRY_BASE_SECONDS << shift,
+                        AudienceConstants.DEST_RETRY_MAX_SECONDS);
+    }
+
+    @Override
+    public void processHit(
+            @NonNull final DataEntity dataEntity,
+            @NonNull final HitProcessingResult processingResult) {
+        final Date timestamp = dataEntity.getTimestamp();
+        if (timestamp != null
+                && System.currentTimeMillis() - timestamp.getTime()
+                        > AudienceConstants.DEST_HIT_TTL_MILLIS) {
+            Log.debug(LOG_TAG, LOG_SOURCE, "Discarding expired destination request.");
+            expiredCount++;
+            processingResult.complete(true);
+            return;
+        }
+
+        final DestHit hit = DestHit.fromData(dataEntity.getData());
+        if (hit == null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unable to deserialize DataEntity to a destination request, discarding hit.");
+            processingResult.complete(true);
+            return;
+        }
+
+        final Networking networkService = ServiceProvider.getInstance().getNetworkService();
+        if (networkService == null) {
+            Log.warning(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unexpected null NetworkService, unable to forward the destination at this"
+                            + " time.");
+            complete(processingResult, false);
+            return;
+        }
+
+        final NetworkRequest networkRequest =
+                new NetworkRequest(
+                        hit.url, HttpMethod.GET, null, null, hit.timeoutSec, hit.timeoutSec);
+        networkService.connectAsync(
+                networkRequest,
+                connection -> complete(processingResult, handleResponse(connection, hit.url)));
+    }
+
+    /**
+     * @return the number of hits discarded because they expired before they could be sent
+     */
+    long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Handles the response of a destination request.
+     *
+     * @param connection the connection returned for the request, null if the device is offline
+     * @param url the destination URL of the request
+     * @return true if the hit can be removed from the queue, false if it should be retried
+     */
+    private boolean handleResponse(final HttpConnecting connection, final String url) {
+        if (connection == null) {
+            Log.trace(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Failed to forward destination because the connection is null, will retry"
+                            + " later.");
+            return false;
+        }
+
+        final int responseCode = connection.getResponseCode();
+        connection.close();
+
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            Log.trace(LOG_TAG, LOG_SOURCE, "Successfully forwarded queued 'dest'.");
+            if (sentCache != null) {
+                sentCache.recordSent(url);
+            }
+
+            return true;
+        }
+
+        if (NetworkingConstants.RECOVERABLE_ERROR_CODES.contains(responseCode)) {
+            Log.trace(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Recoverable error code (%d) while forwarding destination, will retry later.",
+                    responseCode);
+            return false;
+        }
+
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Unrecoverable error code (%d) while forwarding destination, discarding hit.",
+                responseCode);
+        return true;
+    }
+
+    private void complete(final HitProcessingResult processingResult, final boolean done) {
+        consecutiveFailures = done ? 0 : consecutiveFailures + 1;
+        processingResult.complete(done);
+    }
+
+    /** A request to a destination URL read from the dests hit queue. */
+    private static final class DestHit {
+
+        private final String url;
+        private final int timeoutSec;
+
+        private DestHit(final String url, final int timeoutSec) {
+            this.url = url;
+            this.timeoutSec = timeoutSec;
+        }
+
+        /**
+         * Deserializes the data of a dests hit.
+         *
+         * @param data the data of the queued {@link DataEntity}
+         * @return the {@code DestHit}, or null if {@code data} is not a valid dests hit
+         */
+        @Nullable static DestHit fromData(final String data) {
+            if (data == null || !data.startsWith(FORMAT_VERSION + FIELD_SEPARATOR)) {
+                return null;
+            }
+
+            final String[] fields = data.split(FIELD_SEPARATOR, FIELD_COUNT);
+            if (fields.length != FIELD_COUNT || fields[2].isEmpty()) {
+                return null;
+            }
+
+            try {
+                return new DestHit(fields[2], Integer.parseInt(fields[1]));
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
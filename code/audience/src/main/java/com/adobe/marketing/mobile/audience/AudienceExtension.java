@@ -16,22 +16,25 @@ import static com.adobe.marketing.mobile.audience.AudienceConstants.FRIENDLY_EXT
 import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
+import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.Extension;
 import com.adobe.marketing.mobile.ExtensionApi;
 import com.adobe.marketing.mobile.MobilePrivacyStatus;
-import com.adobe.marketing.mobile.SharedStateResolution;
 import com.adobe.marketing.mobile.SharedStateResolver;
 import com.adobe.marketing.mobile.SharedStateResult;
 import com.adobe.marketing.mobile.SharedStateStatus;
 import com.adobe.marketing.mobile.services.DataQueue;
 import com.adobe.marketing.mobile.services.DataQueuing;
+import com.adobe.marketing.mobile.services.DataStoring;
 import com.adobe.marketing.mobile.services.DeviceInforming;
 import com.adobe.marketing.mobile.services.HttpMethod;
 import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.services.NetworkRequest;
 import com.adobe.marketing.mobile.services.PersistentHitQueue;
 import com.adobe.marketing.mobile.services.ServiceProvider;
@@ -41,15 +44,22 @@ import com.adobe.marketing.mobile.util.SQLiteUtils;
 import com.adobe.marketing.mobile.util.StringUtils;
 import com.adobe.marketing.mobile.util.URLBuilder;
 import com.adobe.marketing.mobile.util.UrlUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import org.json.JSONArray;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 /**
  * The AudienceExtension enables interactions with Audience Manager.
@@ -68,9 +78,41 @@ public final class AudienceExtension extends Extension {
 
     private static final String LOG_SOURCE = "AudienceExtension";
 
+    /** Source of the events dispatched when the segments of the visitor profile change. */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static final String PROFILE_CHANGE_EVENT_SOURCE =
+            AudienceConstants.PROFILE_CHANGE_EVENT_SOURCE;
+
+    // visitor profile of the registered extension, null while no extension is registered
+    private static volatile VisitorProfileSnapshot visitorProfileSnapshot;
+    // the snapshot current when a reset was requested, only snapshots published after a reset of
+    // its AudienceState are read meanwhile
+    private static final AtomicReference<VisitorProfileSnapshot> resetPendingSnapshot =
+            new AtomicReference<>();
+    // calls the visitor profile callbacks, so they are never called on the calling thread
+    private static final ExecutorService profileCallbackExecutor =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, LOG_SOURCE);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
     private final AudienceState internalState;
     private PersistentHitQueue hitQueue;
+    private PersistentHitQueue destHitQueue;
+    private AudienceDestHitProcessor destHitProcessor;
+    private final AudienceDestCache destCache;
+    private AudienceHitProcessor hitProcessor;
     private ConcurrentMap<String, SharedStateResolver> pendingSharedStates;
+    private final AudienceSignalCoalescer signalCoalescer;
+    private final ConcurrentMap<String, List<Event>> coalescedRequestEvents;
+    private final AudienceQueuedSignalIndex queuedSignalIndex;
+    private final AudienceSharedStateContext sharedStateContext;
+    private final AudienceDestForwarder destForwarder;
+    private SignalUrlTemplate signalUrlTemplate;
+    private String platformSuffix;
+    private volatile boolean profileChangeEventsEnabled;
 
     @VisibleForTesting final AudienceNetworkResponseHandler networkResponseHandler;
 
@@ -84,6 +126,38 @@ public final class AudienceExtension extends Extension {
 
         @Override
         public void complete(final String responsePayload, final Event requestEvent) {
+            complete(responsePayload, requestEvent, null);
+        }
+
+        @Override
+        public void complete(
+                final String responsePayload,
+                final Event requestEvent,
+                final List<Event> pairedRequestEvents) {
+            completeWithReader(
+                    responsePayload != null ? new StringReader(responsePayload) : null,
+                    requestEvent,
+                    pairedRequestEvents);
+        }
+
+        @Override
+        public void completeWithStream(
+                final InputStream responseStream,
+                final Event requestEvent,
+                final List<Event> pairedRequestEvents) {
+            completeWithReader(
+                    responseStream != null
+                            ? AudienceResponseParser.newReader(
+                                    responseStream, AudienceConstants.MAX_AAM_RESPONSE_SIZE_BYTES)
+                            : null,
+                    requestEvent,
+                    pairedRequestEvents);
+        }
+
+        private void completeWithReader(
+                final Reader responseReader,
+                final Event requestEvent,
+                final List<Event> pairedRequestEvents) {
             final String LOG_SOURCE = "AudienceNetworkResponseHandler";
             if (requestEvent == null) {
                 Log.warning(
@@ -93,6 +167,67 @@ public final class AudienceExtension extends Extension {
                 return;
             }
 
+            final Map<String, String> profile = handleResponse(responseReader, requestEvent);
+
+            // return the same profile to every request event merged into this network request
+            for (final Event pairedEvent :
+                    getPairedRequestEvents(requestEvent, pairedRequestEvents)) {
+                resolveSharedStateForEvent(pairedEvent);
+                if (pairedEvent.getTimestamp() >= state.getLastResetTimestampMillis()) {
+                    dispatchAudienceResponseContent(profile, pairedEvent);
+                }
+            }
+        }
+
+        /**
+         * Collects the request events paired with the given request event, including the events of
+         * signals coalesced into the queued hits.
+         *
+         * @param requestEvent triggering {@link Event} that caused the AAM network request
+         * @param pairedRequestEvents the request events of the hits merged into the network
+         *     request, may be null
+         * @return the {@code List<Event>} of paired request events, in the order they were
+         *     submitted
+         */
+        private List<Event> getPairedRequestEvents(
+                final Event requestEvent, final List<Event> pairedRequestEvents) {
+            final List<Event> events = new ArrayList<>();
+            addCoalescedRequestEvents(requestEvent, events);
+
+            if (pairedRequestEvents != null) {
+                for (final Event pairedEvent : pairedRequestEvents) {
+                    if (pairedEvent != null) {
+                        events.add(pairedEvent);
+                        addCoalescedRequestEvents(pairedEvent, events);
+                    }
+                }
+            }
+
+            return events;
+        }
+
+        private void addCoalescedRequestEvents(final Event requestEvent, final List<Event> events) {
+            final List<Event> coalescedEvents =
+                    coalescedRequestEvents.remove(requestEvent.getUniqueIdentifier());
+            if (coalescedEvents != null) {
+                events.addAll(coalescedEvents);
+            }
+
+            // signals identical to the queued hit, submitted while it was waiting in the queue
+            events.addAll(queuedSignalIndex.release(requestEvent.getUniqueIdentifier()));
+        }
+
+        /**
+         * Processes the response for the given request event, resolves its pending shared state and
+         * dispatches the response events.
+         *
+         * @param responseReader {@link Reader} for the response from the AAM server, may be null
+         * @param requestEvent triggering {@link Event} that caused the AAM network request
+         * @return the processed visitor profile, or null if the response could not be processed
+         */
+        private Map<String, String> handleResponse(
+                final Reader responseReader, final Event requestEvent) {
+            final String LOG_SOURCE = "AudienceNetworkResponseHandler";
             if (requestEvent.getTimestamp() < state.getLastResetTimestampMillis()) {
                 Log.debug(
                         LOG_TAG,
@@ -100,19 +235,32 @@ public final class AudienceExtension extends Extension {
                         "Not dispatching Audience hit response since resetIdentities API was called"
                                 + " after queuing this hit.");
                 resolveSharedStateForEvent(requestEvent);
-                return;
+                return null;
             }
 
             Map<String, String> profile = new HashMap<>();
+            final Reader responsePayload;
+            try {
+                responsePayload = nonEmptyReader(responseReader);
+            } catch (final IOException ex) {
+                Log.debug(
+                        LOG_TAG,
+                        LOG_SOURCE,
+                        "Unable to read response from server - %s",
+                        ex.getLocalizedMessage());
+                resolveSharedStateForEvent(requestEvent);
+                dispatchAudienceResponseContent(null, requestEvent);
+                return null;
+            }
 
-            if (StringUtils.isNullOrEmpty(responsePayload)) {
+            if (responsePayload == null) {
                 Log.debug(
                         LOG_TAG,
                         LOG_SOURCE,
                         "Null/empty response from server, nothing to process.");
                 resolveSharedStateForEvent(requestEvent);
                 dispatchAudienceResponseContent(profile, requestEvent);
-                return;
+                return profile;
             }
 
             // process the response from the AAM server and share the shared state
@@ -127,6 +275,30 @@ public final class AudienceExtension extends Extension {
 
             // dispatch paired event
             dispatchAudienceResponseContent(profile, requestEvent);
+            return profile;
+        }
+
+        /**
+         * Checks whether a response is empty. A response holding only whitespace is not empty, it
+         * fails to parse like any other malformed response.
+         *
+         * @param responseReader {@link Reader} for the response from the AAM server, may be null
+         * @return a {@code Reader} for the whole response, or null if the response is null or empty
+         * @throws IOException if the response could not be read
+         */
+        private Reader nonEmptyReader(final Reader responseReader) throws IOException {
+            if (responseReader == null) {
+                return null;
+            }
+
+            final PushbackReader pushbackReader = new PushbackReader(responseReader);
+            final int c = pushbackReader.read();
+            if (c == -1) {
+                return null;
+            }
+
+            pushbackReader.unread(c);
+            return pushbackReader;
         }
     }
 
@@ -141,22 +313,51 @@ public final class AudienceExtension extends Extension {
             final PersistentHitQueue hitQueue) {
         super(extensionApi);
         this.pendingSharedStates = new ConcurrentHashMap<>();
+        this.coalescedRequestEvents = new ConcurrentHashMap<>();
+        this.queuedSignalIndex = new AudienceQueuedSignalIndex();
+        this.signalCoalescer =
+                new AudienceSignalCoalescer(
+                        this::queueCoalescedSignal, this::dispatchCoalescingWindowClosed);
+        this.sharedStateContext = new AudienceSharedStateContext(extensionApi);
         this.internalState = audienceState != null ? audienceState : new AudienceState();
         networkResponseHandler = new NetworkResponseHandler(internalState);
+        final DataStoring dataStoreService = ServiceProvider.getInstance().getDataStoreService();
+        final NamedCollection localStorage =
+                dataStoreService != null
+                        ? dataStoreService.getNamedCollection(
+                                AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_DATA_STORE)
+                        : null;
+        this.destCache = new AudienceDestCache(localStorage);
         if (hitQueue == null) {
             final DataQueuing dataQueueService =
                     ServiceProvider.getInstance().getDataQueueService();
             if (dataQueueService != null) {
                 final DataQueue dataQueue = dataQueueService.getDataQueue(getName());
                 if (dataQueue != null) {
-                    this.hitQueue =
-                            new PersistentHitQueue(
-                                    dataQueue, new AudienceHitProcessor(networkResponseHandler));
+                    this.hitProcessor =
+                            new AudienceHitProcessor(
+                                    networkResponseHandler,
+                                    dataQueue,
+                                    new AudienceHitRetryPolicy(localStorage),
+                                    new AudienceCompletedHits(localStorage));
+                    this.hitQueue = new PersistentHitQueue(dataQueue, hitProcessor);
+                }
+
+                // dests have their own queue, so slow partner endpoints never delay signals
+                final DataQueue destDataQueue =
+                        dataQueueService.getDataQueue(AudienceConstants.DEST_DATA_QUEUE_NAME);
+                if (destDataQueue != null) {
+                    this.destHitProcessor = new AudienceDestHitProcessor(destCache);
+                    this.destHitQueue = new PersistentHitQueue(destDataQueue, destHitProcessor);
                 }
             }
         } else {
             this.hitQueue = hitQueue;
         }
+
+        this.destForwarder =
+                new AudienceDestForwarder(
+                        destHitQueue != null ? this::queueDestRetry : null, destCache);
     }
 
     // region Extension interface methods
@@ -200,8 +401,11 @@ public final class AudienceExtension extends Extension {
      *   <li>{@link EventType#AUDIENCEMANAGER} - {@link EventSource#REQUEST_CONTENT}
      *   <li>{@link EventType#AUDIENCEMANAGER} - {@link EventSource#REQUEST_IDENTITY}
      *   <li>{@link EventType#AUDIENCEMANAGER} - {@link EventSource#REQUEST_RESET}
+     *   <li>{@link EventType#AUDIENCEMANAGER} - {@link
+     *       AudienceConstants#COALESCING_WINDOW_EVENT_SOURCE}
      *   <li>{@link EventType#CONFIGURATION} - {@link EventSource#RESPONSE_CONTENT}
      *   <li>{@link EventType#GENERIC_IDENTITY} - {@link EventSource#REQUEST_RESET}
+     *   <li>{@link EventType#GENERIC_LIFECYCLE} - {@link EventSource#REQUEST_CONTENT}
      *   <li>{@link EventType#LIFECYCLE} - {@link EventSource#RESPONSE_CONTENT}
      * </ol>
      */
@@ -223,6 +427,10 @@ public final class AudienceExtension extends Extension {
                         EventType.AUDIENCEMANAGER,
                         EventSource.REQUEST_RESET,
                         this::handleResetIdentities);
+        getApi().registerEventListener(
+                        EventType.AUDIENCEMANAGER,
+                        AudienceConstants.COALESCING_WINDOW_EVENT_SOURCE,
+                        this::handleCoalescingWindowClosed);
         getApi().registerEventListener(
                         EventType.CONFIGURATION,
                         EventSource.RESPONSE_CONTENT,
@@ -231,6 +439,10 @@ public final class AudienceExtension extends Extension {
                         EventType.GENERIC_IDENTITY,
                         EventSource.REQUEST_RESET,
                         this::handleResetIdentities);
+        getApi().registerEventListener(
+                        EventType.GENERIC_LIFECYCLE,
+                        EventSource.REQUEST_CONTENT,
+                        this::handleLifecycleRequest);
         getApi().registerEventListener(
                         EventType.LIFECYCLE,
                         EventSource.RESPONSE_CONTENT,
@@ -241,8 +453,67 @@ public final class AudienceExtension extends Extension {
         deleteDeprecatedV1HitDatabase();
     }
 
+    /**
+     * Queues the pending coalesced signal, if any, and writes the pending visitor profile and dest
+     * cache to persistence.
+     */
+    @Override
+    protected void onUnregistered() {
+        visitorProfileSnapshot = null;
+        signalCoalescer.shutdown();
+        internalState.shutdown();
+        // requests still waiting are moved to the dests hit queue
+        destForwarder.shutdown();
+        destCache.shutdown();
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Saved %d shared state lookups and %d persistence reads while processing events.",
+                sharedStateContext.getSavedLookupCount(),
+                internalState.getAvoidedPersistenceReadCount());
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Forwarded %d destinations, %d failed, %d deduplicated, %d dropped and %d queued"
+                        + " for retry.",
+                destForwarder.getSentCount(),
+                destForwarder.getFailedCount(),
+                destForwarder.getDedupedCount(),
+                destForwarder.getDroppedCount(),
+                destForwarder.getDeferredCount());
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Skipped %d recently forwarded destinations, %d destinations were not cached.",
+                destCache.getHitCount(),
+                destCache.getMissCount());
+        if (destHitProcessor != null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Discarded %d expired destination requests.",
+                    destHitProcessor.getExpiredCount());
+        }
+
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Folded %d signals into identical queued hits.",
+                queuedSignalIndex.getFoldedCount());
+        if (hitProcessor != null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Discarded %d expired signals and %d signals above the queue limit.",
+                    hitProcessor.getExpiredCount(),
+                    hitProcessor.getEvictedCount());
+        }
+    }
+
     @Override
     public boolean readyForEvent(@NonNull final Event event) {
+        // shared states resolved from here on are reused while processing this event
+        sharedStateContext.begin(event);
         final SharedStateResult configSharedState =
                 getSharedStateForExtension(
                         AudienceConstants.EventDataKeys.Configuration.MODULE_NAME, event);
@@ -290,11 +561,103 @@ public final class AudienceExtension extends Extension {
             sendOptOutHit(eventData);
         }
 
+        if (hitProcessor != null) {
+            hitProcessor.setBatchLimit(
+                    DataReader.optInt(
+                            eventData,
+                            AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_BATCH_LIMIT,
+                            AudienceConstants.DEFAULT_AAM_BATCH_LIMIT));
+            hitProcessor.setLaneCount(
+                    DataReader.optInt(
+                            eventData,
+                            AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_HIT_LANES,
+                            AudienceConstants.DEFAULT_AAM_HIT_LANES));
+            hitProcessor.setMaxRetryInterval(
+                    DataReader.optInt(
+                            eventData,
+                            AudienceConstants.EventDataKeys.Configuration
+                                    .AAM_CONFIG_RETRY_MAX_INTERVAL,
+                            AudienceConstants.DEFAULT_AAM_RETRY_MAX_INTERVAL_SECONDS));
+            hitProcessor.setMaxHitAge(
+                    DataReader.optInt(
+                            eventData,
+                            AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_HIT_MAX_AGE,
+                            AudienceConstants.DEFAULT_AAM_HIT_MAX_AGE_SECONDS));
+            hitProcessor.setMaxQueuedHits(
+                    DataReader.optInt(
+                            eventData,
+                            AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_HIT_MAX_COUNT,
+                            AudienceConstants.DEFAULT_AAM_HIT_MAX_COUNT));
+        }
+
+        queuedSignalIndex.setEnabled(
+                DataReader.optBoolean(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration
+                                .AAM_CONFIG_DEDUPE_QUEUED_SIGNALS,
+                        AudienceConstants.DEFAULT_AAM_DEDUPE_QUEUED_SIGNALS));
+
+        destForwarder.configure(
+                DataReader.optInt(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_DEST_CONCURRENCY,
+                        AudienceConstants.DEFAULT_AAM_DEST_CONCURRENCY),
+                DataReader.optInt(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration
+                                .AAM_CONFIG_DEST_HOST_CONCURRENCY,
+                        AudienceConstants.DEFAULT_AAM_DEST_HOST_CONCURRENCY),
+                DataReader.optLong(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_DEST_DEDUPE_WINDOW,
+                        AudienceConstants.DEFAULT_AAM_DEST_DEDUPE_WINDOW_MILLIS));
+        destCache.setTtl(
+                DataReader.optLong(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_DEST_CACHE_TTL,
+                        AudienceConstants.DEFAULT_AAM_DEST_CACHE_TTL_MILLIS));
+
+        profileChangeEventsEnabled =
+                DataReader.optBoolean(
+                        eventData,
+                        AudienceConstants.EventDataKeys.Configuration
+                                .AAM_CONFIG_PROFILE_CHANGE_EVENTS,
+                        false);
+
         // handle the privacy change and clear all identifiers
+        final boolean optedOut = privacyStatus == MobilePrivacyStatus.OPT_OUT;
+        if (!optedOut) {
+            // queue the pending coalesced signal so the privacy change applies to it as well
+            signalCoalescer.flush();
+        }
+
+        final Map<String, String> previousProfile =
+                optedOut ? internalState.getVisitorProfile() : null;
         internalState.setMobilePrivacyStatus(privacyStatus);
+        if (optedOut) {
+            // visitor profile reads must not return the profile being cleared
+            publishVisitorProfile(internalState.getStateData());
+            dispatchProfileChange(previousProfile);
+        }
         if (hitQueue != null) {
             hitQueue.handlePrivacyChange(privacyStatus);
         }
+
+        if (destHitQueue != null) {
+            destHitQueue.handlePrivacyChange(privacyStatus);
+        }
+
+        if (privacyStatus == MobilePrivacyStatus.OPT_OUT) {
+            discardCoalescedSignals();
+            coalescedRequestEvents.clear();
+            queuedSignalIndex.clear();
+            if (hitProcessor != null) {
+                hitProcessor.onHitQueueCleared();
+            }
+
+            destCache.clear();
+            destForwarder.clear();
+        }
         shareStateForEvent(event);
     }
 
@@ -314,13 +677,50 @@ public final class AudienceExtension extends Extension {
                 "Resetting stored Audience Manager identities and visitor profile.");
         if (EventType.GENERIC_IDENTITY.equals(event.getType()) && hitQueue != null) {
             hitQueue.clear();
+            coalescedRequestEvents.clear();
+            queuedSignalIndex.clear();
+            if (hitProcessor != null) {
+                hitProcessor.onHitQueueCleared();
+            }
+        }
+
+        // queued dests may carry the identities being reset, and partners should sync the new ones
+        if (EventType.GENERIC_IDENTITY.equals(event.getType())) {
+            destCache.clear();
+            destForwarder.clear();
+            if (destHitQueue != null) {
+                destHitQueue.clear();
+            }
         }
 
+        final Map<String, String> previousProfile = internalState.getVisitorProfile();
         internalState.clearIdentifiers();
         internalState.setLastResetTimestamp(event.getTimestamp());
+        // signals still waiting for their coalescing window carry the identities being reset
+        discardCoalescedSignals();
+        // the visitor profile can be read from the snapshot again, see onResetRequested()
+        publishVisitorProfile(internalState.getStateData());
+
+        dispatchProfileChange(previousProfile);
         shareStateForEvent(event);
     }
 
+    /**
+     * Queues the pending coalesced signal once its coalescing window closed. The window timer
+     * dispatches this event, so the signal is queued in order with the events processed before and
+     * after it.
+     *
+     * @param event the {@link Event} dispatched when the coalescing window closed
+     */
+    @VisibleForTesting
+    void handleCoalescingWindowClosed(@NonNull final Event event) {
+        signalCoalescer.flushWindow(
+                DataReader.optLong(
+                        event.getEventData(),
+                        AudienceConstants.EventDataKeys.Audience.COALESCING_WINDOW_ID,
+                        0));
+    }
+
     /**
      * Processes Analytics Response events containing the server response payload.
      *
@@ -433,6 +833,25 @@ public final class AudienceExtension extends Extension {
         submitSignal(event);
     }
 
+    /**
+     * Writes the pending visitor profile and dest cache to persistence when the application goes
+     * to the background, as its process may be terminated before the write delay elapses.
+     *
+     * @param event the lifecycle request event, coming from the lifecyclePause API invocation
+     */
+    @VisibleForTesting
+    void handleLifecycleRequest(@NonNull final Event event) {
+        final String action =
+                DataReader.optString(
+                        event.getEventData(),
+                        AudienceConstants.EventDataKeys.Lifecycle.LIFECYCLE_ACTION,
+                        "");
+        if (AudienceConstants.EventDataKeys.Lifecycle.LIFECYCLE_PAUSE.equals(action)) {
+            internalState.flushPersistence();
+            destCache.flush();
+        }
+    }
+
     // endregion
 
     /**
@@ -459,6 +878,18 @@ public final class AudienceExtension extends Extension {
             return null;
         }
 
+        return processResponse(new StringReader(response), event);
+    }
+
+    /**
+     * Processes a response from Audience Manager, reading it from the given {@link Reader}.
+     *
+     * @param response {@code Reader} for the JSON response from the Audience Manager server
+     * @param event {@link Event} instance
+     * @return a {@code Map<String, String>} containing the user's AAM segments
+     * @see #processResponse(String, Event)
+     */
+    private Map<String, String> processResponse(final Reader response, final Event event) {
         // get timeout from config
         final SharedStateResult configSharedState =
                 getSharedStateForExtension(
@@ -479,10 +910,11 @@ public final class AudienceExtension extends Extension {
                         AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_TIMEOUT,
                         AudienceConstants.DEFAULT_AAM_TIMEOUT);
 
-        JSONObject jsonResponse;
+        // the response is fully parsed before any of its values are used
+        final AudienceResponseParser.Response parsedResponse;
         try {
-            jsonResponse = new JSONObject(response);
-        } catch (JSONException ex) {
+            parsedResponse = AudienceResponseParser.parse(response);
+        } catch (JSONException | IOException ex) {
             Log.warning(
                     LOG_TAG,
                     LOG_SOURCE,
@@ -492,23 +924,19 @@ public final class AudienceExtension extends Extension {
         }
 
         // check "dests" for urls to send
-        processDestsArray(jsonResponse, timeout);
+        processDests(parsedResponse.getDestUrls(), timeout);
 
-        try {
-            // save uuid for use with subsequent calls
-            // Setting the UUID may fail if the AudienceState's current privacy is opt-out
-            internalState.setUuid(
-                    jsonResponse.getString(AudienceConstants.AUDIENCE_MANAGER_JSON_USER_ID_KEY));
-        } catch (final JSONException ex) {
+        // save uuid for use with subsequent calls
+        // Setting the UUID may fail if the AudienceState's current privacy is opt-out
+        if (parsedResponse.getUuid() != null) {
+            internalState.setUuid(parsedResponse.getUuid());
+        } else {
             Log.debug(
-                    LOG_TAG,
-                    LOG_SOURCE,
-                    "Unable to retrieve UUID from Audience Manager response - %s",
-                    ex.getLocalizedMessage());
+                    LOG_TAG, LOG_SOURCE, "Unable to retrieve UUID from Audience Manager response.");
         }
 
         // process the "stuff" array
-        final Map<String, String> returnedMap = processStuffArray(jsonResponse);
+        final Map<String, String> returnedMap = processSegments(parsedResponse.getSegments());
 
         if (returnedMap.size() > 0) {
             Log.trace(LOG_TAG, LOG_SOURCE, "Response received from server: %s", returnedMap);
@@ -520,7 +948,9 @@ public final class AudienceExtension extends Extension {
         // Note, the AudienceState may have a different privacy status than that of the calling
         // event.
         // Setting the visitor profile may fail if the AudienceState's current privacy is opt-out
+        final Map<String, String> previousProfile = internalState.getVisitorProfile();
         internalState.setVisitorProfile(returnedMap);
+        dispatchProfileChange(previousProfile);
 
         return returnedMap;
     }
@@ -528,13 +958,16 @@ public final class AudienceExtension extends Extension {
     /**
      * Retrieves last set shared state for the given extension name
      *
+     * <p>Shared states of the event being processed are fetched once and reused by the {@link
+     * AudienceSharedStateContext}.
+     *
      * @param extensionName shared state owner for which to get the shared state
      * @param event current event
      * @return {@link SharedStateResult}
      */
     private SharedStateResult getSharedStateForExtension(
             final String extensionName, final Event event) {
-        return getApi().getSharedState(extensionName, event, false, SharedStateResolution.LAST_SET);
+        return sharedStateContext.get(extensionName, event);
     }
 
     /**
@@ -543,7 +976,9 @@ public final class AudienceExtension extends Extension {
      * @param event the event for which to create the state
      */
     private void shareStateForEvent(final Event event) {
-        getApi().createSharedState(internalState.getStateData(), event);
+        final Map<String, Object> stateData = internalState.getStateData();
+        publishVisitorProfile(stateData);
+        getApi().createSharedState(stateData, event);
     }
 
     /**
@@ -556,15 +991,162 @@ public final class AudienceExtension extends Extension {
             return;
         }
 
+        final Map<String, Object> stateData = internalState.getStateData();
+        publishVisitorProfile(stateData);
+
         SharedStateResolver resolver = pendingSharedStates.get(event.getUniqueIdentifier());
         if (resolver == null) {
             return;
         }
 
-        resolver.resolve(internalState.getStateData());
+        resolver.resolve(stateData);
         pendingSharedStates.remove(event.getUniqueIdentifier());
     }
 
+    /**
+     * Publishes the visitor profile of the given state data for {@link
+     * #readVisitorProfile(AdobeCallback)}.
+     *
+     * @param stateData the current state data of the {@link AudienceState}
+     */
+    @SuppressWarnings("unchecked")
+    private void publishVisitorProfile(final Map<String, Object> stateData) {
+        final Object value =
+                stateData != null
+                        ? stateData.get(AudienceConstants.EventDataKeys.Audience.VISITOR_PROFILE)
+                        : null;
+        // the state data only holds the visitor profile as an immutable Map<String, String>
+        final Map<String, String> profile =
+                value instanceof Map ? (Map<String, String>) value : null;
+
+        // the segment index is only rebuilt when the profile or the reset generation changed
+        final long resetGeneration = internalState.getResetGeneration();
+        final VisitorProfileSnapshot snapshot = visitorProfileSnapshot;
+        if (snapshot != null
+                && snapshot.state == internalState
+                && snapshot.resetGeneration == resetGeneration
+                && (snapshot.profile == null
+                        ? profile == null
+                        : snapshot.profile.equals(profile))) {
+            return;
+        }
+
+        final VisitorProfileSnapshot published =
+                new VisitorProfileSnapshot(profile, internalState, resetGeneration);
+        visitorProfileSnapshot = published;
+
+        final VisitorProfileSnapshot pending = resetPendingSnapshot.get();
+        if (pending != null && published.isAfterResetOf(pending)) {
+            resetPendingSnapshot.compareAndSet(pending, null);
+        }
+    }
+
+    /**
+     * Records that a reset request is about to be dispatched. Until the {@link AudienceState} of
+     * the extension is reset, by this request or any other reset or opt-out, the visitor profile
+     * is not read from the snapshot, so the requests dispatched after the reset are answered by the
+     * extension with the reset profile.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void onResetRequested() {
+        final VisitorProfileSnapshot snapshot = visitorProfileSnapshot;
+        if (snapshot != null) {
+            resetPendingSnapshot.set(snapshot);
+        }
+    }
+
+    /** Forgets the reset request recorded by {@link #onResetRequested()}. */
+    @VisibleForTesting
+    static void clearPendingReset() {
+        resetPendingSnapshot.set(null);
+    }
+
+    /**
+     * @return the visitor profile published by the registered extension, or null if there is none
+     *     or a reset request was not handled yet
+     */
+    private static VisitorProfileSnapshot readableSnapshot() {
+        final VisitorProfileSnapshot snapshot = visitorProfileSnapshot;
+        final VisitorProfileSnapshot pending = resetPendingSnapshot.get();
+        return snapshot != null && (pending == null || snapshot.isAfterResetOf(pending))
+                ? snapshot
+                : null;
+    }
+
+    /**
+     * Calls the given callback with the visitor profile of the registered Audience extension, on
+     * a background thread.
+     *
+     * <p>The profile is the one last shared by the extension when this method is called, so
+     * reading it does not wait for the event hub.
+     *
+     * @param callback {@link AdobeCallback} invoked with a copy of the visitor profile, or null if
+     *     there is none
+     * @return true if the callback was called, false if the extension is not registered yet or a
+     *     reset is pending
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static boolean readVisitorProfile(
+            @NonNull final AdobeCallback<Map<String, String>> callback) {
+        final VisitorProfileSnapshot snapshot = readableSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+
+        final Map<String, String> profile =
+                snapshot.profile != null ? new HashMap<>(snapshot.profile) : null;
+        profileCallbackExecutor.execute(() -> callback.call(profile));
+        return true;
+    }
+
+    /**
+     * Calls the given callback with whether the visitor belongs to a segment, on a background
+     * thread. The segment is either a segment id listed in a visitor profile value or the name of a
+     * visitor profile entry.
+     *
+     * @param segment the segment id or name to look up
+     * @param callback {@link AdobeCallback} invoked with the segment membership
+     * @return true if the callback was called, false if the extension is not registered yet or a
+     *     reset is pending
+     * @see AudienceSegmentIndex#isInSegment(String)
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static boolean readSegmentMembership(
+            @NonNull final String segment, @NonNull final AdobeCallback<Boolean> callback) {
+        final VisitorProfileSnapshot snapshot = readableSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+
+        final boolean inSegment = snapshot.segmentIndex.isInSegment(segment);
+        profileCallbackExecutor.execute(() -> callback.call(inSegment));
+        return true;
+    }
+
+    /**
+     * Calls the given callback with the sorted names of the visitor profile entries starting with
+     * a prefix, on a background thread.
+     *
+     * @param prefix the prefix of the names to return
+     * @param callback {@link AdobeCallback} invoked with an unmodifiable {@code List<String>} of
+     *     names
+     * @return true if the callback was called, false if the extension is not registered yet or a
+     *     reset is pending
+     * @see AudienceSegmentIndex#getSegments(String)
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static boolean readSegments(
+            @NonNull final String prefix, @NonNull final AdobeCallback<List<String>> callback) {
+        final VisitorProfileSnapshot snapshot = readableSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+
+        final List<String> segments = snapshot.segmentIndex.getSegments(prefix);
+        profileCallbackExecutor.execute(() -> callback.call(segments));
+        return true;
+    }
+
     /**
      * Extracts the {@link
      * AudienceConstants.EventDataKeys.Configuration#ANALYTICS_CONFIG_AAMFORWARDING} key from config
@@ -707,14 +1289,149 @@ public final class AudienceExtension extends Extension {
                                     null);
         }
 
+        final String signalUrlPrefix = getSignalUrlPrefix(server, configData, event);
+
+        // signals submitted through the public API within the coalescing window share one hit
+        final long coalescingWindowMillis =
+                DataReader.optLong(
+                        configData,
+                        AudienceConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                        AudienceConstants.DEFAULT_AAM_COALESCING_WINDOW_MILLIS);
+        if (coalescingWindowMillis > 0 && EventType.AUDIENCEMANAGER.equals(event.getType())) {
+            signalCoalescer.add(
+                    signalUrlPrefix, timeout, signalData, event, coalescingWindowMillis);
+            return;
+        }
+
+        // signals still waiting for their coalescing window were submitted before this one
+        signalCoalescer.flush();
+
         // generate the url to send
-        final String requestUrl = buildSignalUrl(server, signalData, event);
+        final String requestUrl =
+                buildSignalUrl(signalUrlPrefix, getCustomUrlVariables(signalData));
+        queueSignal(event, requestUrl, timeout);
+    }
+
+    /**
+     * Dispatches the event which queues the pending coalesced signal of a closed coalescing window,
+     * so the signal is queued from the event hub thread.
+     *
+     * @param windowId the identifier of the coalescing window which closed
+     */
+    private void dispatchCoalescingWindowClosed(final long windowId) {
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put(AudienceConstants.EventDataKeys.Audience.COALESCING_WINDOW_ID, windowId);
+        final Event windowClosedEvent =
+                new Event.Builder(
+                                "Audience Coalescing Window Closed",
+                                EventType.AUDIENCEMANAGER,
+                                AudienceConstants.COALESCING_WINDOW_EVENT_SOURCE)
+                        .setEventData(eventData)
+                        .build();
+        getApi().dispatch(windowClosedEvent);
+    }
+
+    /**
+     * Drops the signals waiting for their coalescing window to close, resolving their pending
+     * shared states and dispatching an empty profile for them.
+     */
+    private void discardCoalescedSignals() {
+        final List<Event> events = signalCoalescer.discard();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Dropping %d signals waiting for their coalescing window.",
+                events.size());
+        for (final Event event : events) {
+            resolveSharedStateForEvent(event);
+            dispatchAudienceResponseContent(null, event);
+        }
+    }
+
+    /**
+     * Queues the hit for a signal whose coalescing window closed. The request events of the
+     * signals coalesced after the first one are paired with the queued hit and receive its
+     * response.
+     *
+     * @param signal the {@link AudienceSignalCoalescer.CoalescedSignal} to be queued
+     */
+    private void queueCoalescedSignal(
+            @NonNull final AudienceSignalCoalescer.CoalescedSignal signal) {
+        final List<Event> events = signal.getEvents();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        final Event requestEvent = events.get(0);
+        final String requestUrl =
+                buildSignalUrl(signal.getUrlPrefix(), getCustomUrlVariables(signal.getTraits()));
+
+        if (requestUrl != null && events.size() > 1) {
+            coalescedRequestEvents.put(
+                    requestEvent.getUniqueIdentifier(),
+                    new ArrayList<>(events.subList(1, events.size())));
+        }
+
+        queueSignal(requestEvent, requestUrl, signal.getTimeoutSec());
+    }
+
+    /**
+     * Queues a hit for the given request URL in the Audience hit queue.
+     *
+     * @param event the request {@link Event} for the hit
+     * @param requestUrl the URL of the hit, or null if the URL is invalid
+     * @param timeout the network timeout for the hit, in seconds
+     */
+    private void queueSignal(final Event event, final String requestUrl, final int timeout) {
         Log.debug(LOG_TAG, LOG_SOURCE, "Queuing hit for url: %s", requestUrl);
 
         // URLBuilder will return null, if the final URL is invalid. Drop the hit in that case.
         if (requestUrl != null) {
+            final String eventId = event.getUniqueIdentifier();
+            final boolean isPublicSignal = EventType.AUDIENCEMANAGER.equals(event.getType());
+            if (isPublicSignal
+                    && queuedSignalIndex.fold(
+                            requestUrl, timeout, event, coalescedRequestEvents.get(eventId))) {
+                // the queued hit returns its response to this event and its paired events
+                coalescedRequestEvents.remove(eventId);
+                Log.debug(
+                        LOG_TAG,
+                        LOG_SOURCE,
+                        "submitSignal - Folded request with event id '%s' into an identical"
+                                + " queued hit.",
+                        eventId);
+                return;
+            }
+
+            // the hit queue is suspended until the privacy status is opted in
+            final boolean queueSuspended =
+                    internalState.getMobilePrivacyStatus() != MobilePrivacyStatus.OPT_IN;
+            if (hitProcessor != null && !hitProcessor.acceptHit(queueSuspended)) {
+                Log.debug(
+                        LOG_TAG,
+                        LOG_SOURCE,
+                        "submitSignal - Dropping request with event id '%s' because the hit queue"
+                                + " is full.",
+                        eventId);
+                // resolves the pending shared state and dispatches an empty response
+                networkResponseHandler.complete(null, event);
+                return;
+            }
+
+            if (isPublicSignal) {
+                queuedSignalIndex.add(requestUrl, timeout, eventId);
+            }
+
             AudienceDataEntity entity = new AudienceDataEntity(event, requestUrl, timeout);
-            hitQueue.queue(entity.toDataEntity());
+            if (!hitQueue.queue(entity.toDataEntity())) {
+                queuedSignalIndex.release(eventId);
+            } else if (hitProcessor != null) {
+                hitProcessor.onHitQueued();
+            }
         } else {
             Log.warning(
                     LOG_TAG,
@@ -766,6 +1483,44 @@ public final class AudienceExtension extends Extension {
         getApi().dispatch(responseEvent);
     }
 
+    /**
+     * Dispatches an {@link EventType#AUDIENCEMANAGER} - {@link
+     * AudienceConstants#PROFILE_CHANGE_EVENT_SOURCE} event with the segments added, removed and
+     * changed since {@code previousProfile}, if the visitor profile changed and profile change
+     * events are enabled by {@link
+     * AudienceConstants.EventDataKeys.Configuration#AAM_CONFIG_PROFILE_CHANGE_EVENTS}.
+     *
+     * @param previousProfile the visitor profile before it was updated, may be null
+     */
+    private void dispatchProfileChange(final Map<String, String> previousProfile) {
+        if (!profileChangeEventsEnabled) {
+            return;
+        }
+
+        final AudienceProfileChange change =
+                AudienceProfileChange.between(previousProfile, internalState.getVisitorProfile());
+        if (change == null) {
+            return;
+        }
+
+        Log.trace(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Visitor profile changed: %d segments added, %d removed and %d changed.",
+                change.getAdded().size(),
+                change.getRemoved().size(),
+                change.getChanged().size());
+
+        final Event profileChangeEvent =
+                new Event.Builder(
+                                "Audience Manager Profile Change",
+                                EventType.AUDIENCEMANAGER,
+                                AudienceConstants.PROFILE_CHANGE_EVENT_SOURCE)
+                        .setEventData(change.toEventData())
+                        .build();
+        getApi().dispatch(profileChangeEvent);
+    }
+
     /**
      * Send an opt-out hit to the AAM server that has been configured.
      *
@@ -912,22 +1667,61 @@ public final class AudienceExtension extends Extension {
     /**
      * Builds the URL used to send a signal to Audience Manager.
      *
-     * <p>Customer provided KVPs are added as URL parameters to be used as traits for the signal.
+     * <p>Customer provided KVPs are appended to the signal URL prefix as URL parameters to be used
+     * as traits for the signal.
+     *
+     * @param urlPrefix the signal URL prefix returned by {@link #getSignalUrlPrefix(String, Map,
+     *     Event)}, or null if it is invalid
+     * @param customUrlVariables the customer traits encoded as URL parameters
+     * @return {@code String} representation of the URL to be used, or null if it is invalid
+     */
+    private String buildSignalUrl(final String urlPrefix, final String customUrlVariables) {
+        if (urlPrefix == null || StringUtils.isNullOrEmpty(customUrlVariables)) {
+            return urlPrefix;
+        }
+
+        return urlPrefix + "&" + customUrlVariables;
+    }
+
+    /**
+     * Returns the part of the signal URL shared by all signals sent with the same configuration,
+     * identities and uuid.
+     *
+     * <p>The prefix contains the server, event path, identity and data provider variables, platform
+     * and response format parameters. It is rebuilt only when the server, the Configuration or
+     * Identity shared state, or the uuid changed since the last signal.
      *
      * @param server {@link String} containing name of the server
-     * @param signalData to convert in custom url variables
-     * @param event current {@link Event} for which to retrieve required shared states
-     * @return {@code String} representation of the URL to be used
+     * @param configurationSharedState the Configuration shared state for the {@code event}
+     * @param event {@link Event} instance
+     * @return the signal URL prefix, or null if the resulting URL is invalid
      */
-    private String buildSignalUrl(
-            final String server, final Map<String, String> signalData, final Event event) {
-        final String urlString =
+    private String getSignalUrlPrefix(
+            final String server,
+            final Map<String, Object> configurationSharedState,
+            final Event event) {
+        final SharedStateResult identityResult =
+                getSharedStateForExtension(
+                        AudienceConstants.EventDataKeys.Identity.MODULE_NAME, event);
+        final Map<String, Object> identitySharedState =
+                identityResult != null ? identityResult.getValue() : null;
+        final String uuid = internalState.getUuid();
+
+        final SignalUrlTemplate template = signalUrlTemplate;
+        if (template != null
+                && template.matches(server, configurationSharedState, identitySharedState, uuid)) {
+            return template.urlPrefix;
+        }
+
+        final String urlPrefix =
                 new URLBuilder()
                         .enableSSL(true)
                         .setServer(server)
                         .addPath(AudienceConstants.AUDIENCE_MANAGER_EVENT_PATH)
-                        .addQuery(getCustomUrlVariables(signalData), URLBuilder.EncodeType.NONE)
-                        .addQuery(getDataProviderUrlVariables(event), URLBuilder.EncodeType.NONE)
+                        .addQuery(
+                                getDataProviderUrlVariables(
+                                        configurationSharedState, identitySharedState, uuid),
+                                URLBuilder.EncodeType.NONE)
                         .addQuery(getPlatformSuffix(), URLBuilder.EncodeType.NONE)
                         .addQuery(
                                 AudienceConstants.AUDIENCE_MANAGER_URL_PARAM_DST,
@@ -937,7 +1731,10 @@ public final class AudienceExtension extends Extension {
                                 URLBuilder.EncodeType.NONE)
                         .build();
 
-        return urlString;
+        signalUrlTemplate =
+                new SignalUrlTemplate(
+                        server, configurationSharedState, identitySharedState, uuid, urlPrefix);
+        return urlPrefix;
     }
 
     /**
@@ -955,50 +1752,21 @@ public final class AudienceExtension extends Extension {
             return "";
         }
 
-        final StringBuilder urlVars = new StringBuilder(1024);
-
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            final String key = entry.getKey();
-            final String value = entry.getValue();
-
-            // check to make sure neither of our entry values is null or empty
-            if (StringUtils.isNullOrEmpty(key) || StringUtils.isNullOrEmpty(value)) {
-                continue;
-            }
-
-            // the first variable should have no '&' character,
-            // but subsequent variables appended to this string should
-            if (urlVars.length() != 0) {
-                urlVars.append("&");
-            }
-
-            urlVars.append(AudienceConstants.AUDIENCE_MANAGER_CUSTOMER_DATA_PREFIX)
-                    .append(UrlUtils.urlEncode(key.replace(".", "_")))
-                    .append("=")
-                    .append(UrlUtils.urlEncode(value));
-        }
-
-        return urlVars.toString();
+        return AudienceTraitEncoder.get().encode(data);
     }
 
     /**
      * Generates URL parameters that represent Identity, UUID, and Data Provider variables
      *
-     * @param event {@link Event} instance
+     * @param configurationSharedState the Configuration shared state, may be null
+     * @param identitySharedState the Identity shared state, may be null
+     * @param uuid the Audience Manager user id, may be null
      * @return {@link String} value of Data Provider and Identity variables
      */
-    private String getDataProviderUrlVariables(final Event event) {
-        final SharedStateResult identityResult =
-                getSharedStateForExtension(
-                        AudienceConstants.EventDataKeys.Identity.MODULE_NAME, event);
-        final Map<String, Object> identitySharedState =
-                identityResult != null ? identityResult.getValue() : null;
-        final SharedStateResult configResult =
-                getSharedStateForExtension(
-                        AudienceConstants.EventDataKeys.Configuration.MODULE_NAME, event);
-        final Map<String, Object> configurationSharedState =
-                configResult != null ? configResult.getValue() : null;
-
+    private String getDataProviderUrlVariables(
+            final Map<String, Object> configurationSharedState,
+            final Map<String, Object> identitySharedState,
+            final String uuid) {
         final StringBuilder urlVars = new StringBuilder(1024);
 
         if (identitySharedState != null) {
@@ -1067,15 +1835,10 @@ public final class AudienceExtension extends Extension {
             }
         }
 
-        if (internalState != null) {
-            // if we have a uuid, we should send it in the hit
-            final String uuid = internalState.getUuid();
-
-            if (!StringUtils.isNullOrEmpty(uuid)) {
-                urlVars.append(
-                        serializeKeyValuePair(
-                                AudienceConstants.AUDIENCE_MANAGER_USER_ID_KEY, uuid));
-            }
+        // if we have a uuid, we should send it in the hit
+        if (!StringUtils.isNullOrEmpty(uuid)) {
+            urlVars.append(
+                    serializeKeyValuePair(AudienceConstants.AUDIENCE_MANAGER_USER_ID_KEY, uuid));
         }
 
         // remove leading '&' if we have a query string
@@ -1143,11 +1906,20 @@ public final class AudienceExtension extends Extension {
      * Generates a URL suffix for AAM requests containing platform information.
      *
      * <p>Returns suffix with generic platform name "java" if the canonical platform name is
-     * unavailable from the {@link ServiceProvider}.
+     * unavailable from the {@link ServiceProvider}. The platform does not change while the app is
+     * running, so the suffix is only generated once.
      *
      * @return {@link String} representing the URL suffix for AAM request
      */
     private String getPlatformSuffix() {
+        if (platformSuffix == null) {
+            platformSuffix = generatePlatformSuffix();
+        }
+
+        return platformSuffix;
+    }
+
+    private String generatePlatformSuffix() {
         String platform = "java";
         DeviceInforming deviceInfoService = ServiceProvider.getInstance().getDeviceInfoService();
         if (deviceInfoService == null) {
@@ -1162,106 +1934,57 @@ public final class AudienceExtension extends Extension {
     }
 
     /**
-     * Loops through the "dests" array of an AAM response and attempts to forward requests where
-     * necessary.
+     * Queues a request to a destination URL which could not be forwarded right away in the dests
+     * hit queue, to be retried later.
      *
-     * @param jsonResponse the {@link JSONObject} representation of the AAM server response
-     * @param timeout {@code int} indicating connection timeout value for requests
+     * @param url the destination URL
+     * @param timeoutSec the connect and read timeout of the request, in seconds
      */
-    private void processDestsArray(final JSONObject jsonResponse, final int timeout) {
-        try {
-            // check "dests" for urls to send
-            final JSONArray dests =
-                    jsonResponse.getJSONArray(AudienceConstants.AUDIENCE_MANAGER_JSON_DESTS_KEY);
-
-            for (int i = 0; i < dests.length(); i++) {
-                final JSONObject dest = dests.getJSONObject(i);
+    private void queueDestRetry(@NonNull final String url, final int timeoutSec) {
+        // a request completing after the user opted out must not be queued again
+        if (internalState.getMobilePrivacyStatus() == MobilePrivacyStatus.OPT_OUT) {
+            Log.debug(LOG_TAG, LOG_SOURCE, "Dropping destination request, privacy is opted out.");
+            return;
+        }
 
-                if (dest.length() == 0) {
-                    continue;
-                }
+        final PersistentHitQueue queue = destHitQueue;
+        if (queue == null || !queue.queue(AudienceDestHitProcessor.toDataEntity(url, timeoutSec))) {
+            Log.debug(LOG_TAG, LOG_SOURCE, "Failed to queue destination request for retry.");
+        }
+    }
 
-                final String url =
-                        dest.optString(AudienceConstants.AUDIENCE_MANAGER_JSON_URL_KEY, "");
-
-                if (!StringUtils.isNullOrEmpty(url)) {
-                    final NetworkRequest request =
-                            new NetworkRequest(url, HttpMethod.GET, null, null, timeout, timeout);
-                    ServiceProvider.getInstance()
-                            .getNetworkService()
-                            .connectAsync(
-                                    request,
-                                    connection -> {
-                                        if (connection == null) {
-                                            Log.trace(
-                                                    LOG_TAG,
-                                                    LOG_SOURCE,
-                                                    "processDestsArray - Failed to forward"
-                                                        + " destinations because the connection is"
-                                                        + " null (network is offline).");
-                                            return;
-                                        }
-
-                                        if (connection.getResponseCode()
-                                                == HttpURLConnection.HTTP_OK) {
-                                            Log.trace(
-                                                    LOG_TAG,
-                                                    LOG_SOURCE,
-                                                    "Successfully forwarded 'dest'.");
-                                        } else {
-                                            Log.trace(
-                                                    LOG_TAG,
-                                                    LOG_SOURCE,
-                                                    "Failed to process dest - connection status"
-                                                            + " \"%s\".",
-                                                    connection.getResponseCode());
-                                        }
-
-                                        connection.close();
-                                    });
-                }
-            }
-        } catch (final JSONException ex) {
+    /**
+     * Forwards requests to the destination URLs of the "dests" array of an AAM response through the
+     * {@link AudienceDestForwarder}, which bounds the number of concurrent requests. Requests which
+     * cannot be forwarded right away are retried from the dests hit queue.
+     *
+     * @param destUrls the destination URLs of the AAM server response, or null if the response has
+     *     no "dests" array
+     * @param timeout {@code int} indicating connection timeout value for requests
+     */
+    private void processDests(final List<String> destUrls, final int timeout) {
+        if (destUrls == null) {
             Log.trace(LOG_TAG, LOG_SOURCE, "No destinations ('dests') in response.");
+            return;
         }
+
+        destForwarder.forward(destUrls, timeout);
     }
 
     /**
-     * Loops through the "stuff" array of an AAM response and creates a {@code Map} representing the
-     * segments for the user.
+     * Returns the segments of the "stuff" array of an AAM response as the visitor profile.
      *
-     * @param jsonResponse the {@link JSONObject} representation of the AAM server response
+     * @param segments the segments of the AAM server response, or null if the response has no
+     *     "stuff" array
      * @return a {@code Map<String, String>} representing the segments for the user
      */
-    private @NonNull Map<String, String> processStuffArray(final JSONObject jsonResponse) {
-        final Map<String, String> returnedMap = new HashMap<>();
-
-        try {
-            final JSONArray stuffArray =
-                    jsonResponse.getJSONArray(AudienceConstants.AUDIENCE_MANAGER_JSON_STUFF_KEY);
-
-            // loop through array and make a more user friendly dictionary
-            for (int i = 0; i < stuffArray.length(); i++) {
-                final JSONObject stuff = stuffArray.getJSONObject(i);
-
-                if (stuff != null && stuff.length() != 0) {
-                    final String cookieName =
-                            stuff.optString(
-                                    AudienceConstants.AUDIENCE_MANAGER_JSON_COOKIE_NAME_KEY, "");
-                    final String cookieValue =
-                            stuff.optString(
-                                    AudienceConstants.AUDIENCE_MANAGER_JSON_COOKIE_VALUE_KEY, "");
-
-                    if (!cookieName.isEmpty()) {
-                        returnedMap.put(cookieName, cookieValue);
-                    }
-                }
-            }
-        } catch (final JSONException ex) {
+    private @NonNull Map<String, String> processSegments(final Map<String, String> segments) {
+        if (segments == null) {
             Log.trace(LOG_TAG, LOG_SOURCE, "No 'stuff' array in response.");
+            return new HashMap<>();
         }
 
-        return returnedMap;
+        return segments;
     }
 
     /**
@@ -1285,4 +2008,81 @@ public final class AudienceExtension extends Extension {
     private void deleteDeprecatedV1HitDatabase() {
         SQLiteUtils.deleteDBFromCacheDir(AudienceConstants.DEPRECATED_1X_HIT_DATABASE_FILENAME);
     }
+
+    /** A signal URL prefix and the server, shared states and uuid it was built from. */
+    private static final class SignalUrlTemplate {
+
+        private final String server;
+        private final Map<String, Object> configurationSharedState;
+        private final Map<String, Object> identitySharedState;
+        private final String uuid;
+        private final String urlPrefix;
+
+        SignalUrlTemplate(
+                final String server,
+                final Map<String, Object> configurationSharedState,
+                final Map<String, Object> identitySharedState,
+                final String uuid,
+                final String urlPrefix) {
+            this.server = server;
+            this.configurationSharedState = configurationSharedState;
+            this.identitySharedState = identitySharedState;
+            this.uuid = uuid;
+            this.urlPrefix = urlPrefix;
+        }
+
+        /**
+         * Checks if this template was built from the given inputs. Shared states are compared by
+         * reference first, as the same shared state version is returned until it is updated.
+         *
+         * @return true if the cached prefix can be reused for the given inputs
+         */
+        boolean matches(
+                final String server,
+                final Map<String, Object> configurationSharedState,
+                final Map<String, Object> identitySharedState,
+                final String uuid) {
+            return equals(this.server, server)
+                    && equals(this.uuid, uuid)
+                    && equals(this.configurationSharedState, configurationSharedState)
+                    && equals(this.identitySharedState, identitySharedState);
+        }
+
+        private static boolean equals(final Object first, final Object second) {
+            return first == second || (first != null && first.equals(second));
+        }
+    }
+
+    /**
+     * Immutable visitor profile published by the registered extension, its segment index, and the
+     * reset generation of the {@link AudienceState} it was read from.
+     */
+    private static final class VisitorProfileSnapshot {
+
+        private final Map<String, String> profile;
+        private final AudienceSegmentIndex segmentIndex;
+        private final AudienceState state;
+        private final long resetGeneration;
+
+        VisitorProfileSnapshot(
+                final Map<String, String> profile,
+                final AudienceState state,
+                final long resetGeneration) {
+            this.profile = profile;
+            this.segmentIndex = new AudienceSegmentIndex(profile);
+            this.state = state;
+            this.resetGeneration = resetGeneration;
+        }
+
+        /**
+         * Returns whether this snapshot was published after the state of the given snapshot was
+         * reset, or by another extension instance.
+         *
+         * @param pending the snapshot current when a reset was requested
+         * @return true if this snapshot does not hold the profile the reset applies to
+         */
+        boolean isAfterResetOf(final VisitorProfileSnapshot pending) {
+            return state != pending.state || resetGeneration > pending.resetGeneration;
+        }
+    }
 }
@@ -16,6 +16,7 @@ import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
 import androidx.annotation.NonNull;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.services.DataEntity;
+import com.adobe.marketing.mobile.services.DataQueue;
 import com.adobe.marketing.mobile.services.HitProcessing;
 import com.adobe.marketing.mobile.services.HitProcessingResult;
 import com.adobe.marketing.mobile.services.HttpConnecting;
@@ -25,59 +26,263 @@ import com.adobe.marketing.mobile.services.NetworkRequest;
 import com.adobe.marketing.mobile.services.Networking;
 import com.adobe.marketing.mobile.services.NetworkingConstants;
 import com.adobe.marketing.mobile.services.ServiceProvider;
-import com.adobe.marketing.mobile.util.StreamUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * AudienceHitProcessor is responsible for processing hits retrieved from the {@code Audience} hit
  * queue
+ *
+ * <p>When a batch limit greater than one is set and the processor has access to the backing {@link
+ * DataQueue}, consecutive queued hits which target the same server with the same identities are
+ * merged into a single signal request. The response is then returned to the request events of all
+ * the merged hits.
+ *
+ * <p>When a lane count greater than one is set, up to that many queued hits which already carry
+ * an Audience Manager UUID ({@code d_uuid}) are sent in parallel, one request per hit. A hit
+ * without a UUID is always sent alone, so the UUID assigned by its response is known before the
+ * following hits are processed. Responses are passed to the {@link
+ * AudienceNetworkResponseHandler} in queue order, whatever the order in which they arrive.
+ *
+ * <p>Hits older than the maximum hit age, and the oldest hits while the queue holds more than the
+ * maximum number of hits, are discarded without being sent once they reach the head of the queue.
+ * Their request events still receive an empty response. The limits are also enforced as hits are
+ * queued, see {@link #acceptHit(boolean)}, so the queue stays bounded while it is suspended.
  */
 class AudienceHitProcessor implements HitProcessing {
 
     private static final String LOG_SOURCE = "AudienceHitProcessor";
-    private static final int HIT_QUEUE_RETRY_TIME_SECONDS = 30;
 
     private final Networking networkService;
     private final AudienceNetworkResponseHandler networkResponseHandler;
+    private final DataQueue dataQueue;
+    private final AudienceHitRetryPolicy retryPolicy;
+    private volatile int batchLimit = AudienceConstants.DEFAULT_AAM_BATCH_LIMIT;
+    private volatile int laneCount = AudienceConstants.DEFAULT_AAM_HIT_LANES;
+    private volatile long maxHitAgeMillis =
+            AudienceConstants.DEFAULT_AAM_HIT_MAX_AGE_SECONDS * 1000L;
+    private volatile int maxQueuedHits = AudienceConstants.DEFAULT_AAM_HIT_MAX_COUNT;
+
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    // hits which completed in a lane while a hit ahead of them is retried, skipped at the head
+    private final AudienceCompletedHits completedHits;
+
+    // hits in the data queue, counted once and then updated as hits are queued and removed
+    private final AtomicInteger queuedHitCount = new AtomicInteger();
+
+    // guards the removal of expired hits from the head of the data queue outside of processHit
+    private final Object queueHeadLock = new Object();
+    private boolean processingHit;
+    private boolean queueHeadRemoved;
 
     AudienceHitProcessor(final AudienceNetworkResponseHandler networkResponseHandler) {
+        this(networkResponseHandler, null);
+    }
+
+    AudienceHitProcessor(
+            final AudienceNetworkResponseHandler networkResponseHandler,
+            final DataQueue dataQueue) {
+        this(networkResponseHandler, dataQueue, new AudienceHitRetryPolicy(null));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param networkResponseHandler the {@link AudienceNetworkResponseHandler} to be notified of
+     *     network responses
+     * @param dataQueue the {@link DataQueue} backing the hit queue this processor is attached to,
+     *     used to look ahead at queued hits when batching is enabled; batching is disabled if null
+     * @param retryPolicy the {@link AudienceHitRetryPolicy} computing the retry interval of failed
+     *     hits
+     */
+    AudienceHitProcessor(
+            final AudienceNetworkResponseHandler networkResponseHandler,
+            final DataQueue dataQueue,
+            @NonNull final AudienceHitRetryPolicy retryPolicy) {
+        this(networkResponseHandler, dataQueue, retryPolicy, new AudienceCompletedHits(null));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param networkResponseHandler the {@link AudienceNetworkResponseHandler} to be notified of
+     *     network responses
+     * @param dataQueue the {@link DataQueue} backing the hit queue this processor is attached to,
+     *     used to look ahead at queued hits when batching is enabled; batching is disabled if null
+     * @param retryPolicy the {@link AudienceHitRetryPolicy} computing the retry interval of failed
+     *     hits
+     * @param completedHits the {@link AudienceCompletedHits} recording the hits which completed in
+     *     a lane behind a retried hit
+     */
+    AudienceHitProcessor(
+            final AudienceNetworkResponseHandler networkResponseHandler,
+            final DataQueue dataQueue,
+            @NonNull final AudienceHitRetryPolicy retryPolicy,
+            @NonNull final AudienceCompletedHits completedHits) {
         this.networkService = ServiceProvider.getInstance().getNetworkService();
         this.networkResponseHandler = networkResponseHandler;
+        this.dataQueue = dataQueue;
+        this.retryPolicy = retryPolicy;
+        this.completedHits = completedHits;
+        if (dataQueue != null) {
+            queuedHitCount.set(dataQueue.count());
+        }
+    }
+
+    /**
+     * Sets the maximum number of queued hits which can be merged into a single signal request.
+     *
+     * @param batchLimit the maximum number of hits per request; values lower than one are treated
+     *     as one, which disables batching
+     */
+    void setBatchLimit(final int batchLimit) {
+        this.batchLimit = Math.max(batchLimit, AudienceConstants.DEFAULT_AAM_BATCH_LIMIT);
+    }
+
+    /**
+     * Sets the maximum number of queued hits which can be sent in parallel.
+     *
+     * @param laneCount the maximum number of requests in flight; values lower than one are treated
+     *     as one, which sends one hit at a time
+     */
+    void setLaneCount(final int laneCount) {
+        this.laneCount = Math.max(laneCount, AudienceConstants.DEFAULT_AAM_HIT_LANES);
+    }
+
+    /**
+     * Sets the maximum age of a queued hit, after which it is discarded without being sent.
+     *
+     * @param maxAgeSeconds the maximum age of a queued hit, in seconds; 0 disables the limit
+     */
+    void setMaxHitAge(final int maxAgeSeconds) {
+        this.maxHitAgeMillis = Math.max(maxAgeSeconds, 0) * 1000L;
+    }
+
+    /**
+     * Sets the maximum number of queued hits, above which the oldest hits are discarded without
+     * being sent.
+     *
+     * @param maxCount the maximum number of queued hits; 0 disables the limit
+     */
+    void setMaxQueuedHits(final int maxCount) {
+        this.maxQueuedHits = Math.max(maxCount, 0);
+    }
+
+    /**
+     * Sets the maximum interval after which a failed hit is retried.
+     *
+     * @param maxIntervalSeconds the maximum retry interval, in seconds
+     */
+    void setMaxRetryInterval(final int maxIntervalSeconds) {
+        retryPolicy.setMaxInterval(maxIntervalSeconds);
     }
 
     @Override
     public int retryInterval(@NonNull DataEntity dataEntity) {
-        return HIT_QUEUE_RETRY_TIME_SECONDS;
+        return retryPolicy.retryInterval(dataEntity.getUniqueIdentifier());
     }
 
     @Override
     public void processHit(
-            @NonNull DataEntity dataEntity, @NonNull HitProcessingResult processingResult) {
+            @NonNull DataEntity dataEntity, @NonNull HitProcessingResult hitProcessingResult) {
+        // the hit queue removes the hit from the data queue once it is processed
+        final HitProcessingResult processingResult =
+                processed -> {
+                    if (processed) {
+                        queuedHitCount.decrementAndGet();
+                    }
+
+                    synchronized (queueHeadLock) {
+                        processingHit = false;
+                    }
+
+                    hitProcessingResult.complete(processed);
+                };
+
+        if (!beginProcessing(dataEntity)) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Hit was removed from the queue before it was processed, will retry later.");
+            hitProcessingResult.complete(false);
+            return;
+        }
+
         if (networkService == null) {
             Log.warning(
                     LOG_TAG,
                     LOG_SOURCE,
                     "Unexpected null NetworkService, unable to execute the request at this time.");
+            retryPolicy.recordFailure(
+                    dataEntity.getUniqueIdentifier(), AudienceHitRetryPolicy.NO_RESPONSE);
             processingResult.complete(false);
             return;
         }
 
+        if (completedHits.remove(dataEntity.getUniqueIdentifier())) {
+            Log.trace(LOG_TAG, LOG_SOURCE, "Hit already sent in a parallel lane, removing it.");
+            retryPolicy.reset();
+            processingResult.complete(true);
+            return;
+        }
+
         AudienceDataEntity entity = AudienceDataEntity.fromDataEntity(dataEntity);
 
+        // the request event is only decoded once the response of the hit is handled
         if (entity == null) {
             Log.debug(
                     LOG_TAG,
                     LOG_SOURCE,
                     "Unable to deserialize DataEntity to AudienceDataEntity, discarding hit.");
+            retryPolicy.reset();
             processingResult.complete(true);
             return;
         }
 
-        Log.trace(LOG_TAG, LOG_SOURCE, "Processing hit request: %s", entity.getUrl());
+        final boolean expired = isExpired(entity);
+        if (expired || isOverQueueLimit()) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Discarding %s hit without sending it.",
+                    expired ? "expired" : "oldest queued");
+            if (expired) {
+                expiredCount.incrementAndGet();
+            } else {
+                evictedCount.incrementAndGet();
+            }
+
+            // resolves the pending shared state and dispatches an empty response
+            networkResponseHandler.complete(null, entity.getEvent());
+            retryPolicy.reset();
+            processingResult.complete(true);
+            return;
+        }
+
+        final HitBatch batch = collectBatch(dataEntity, entity);
+        if (batch.pairedEntities.isEmpty()) {
+            final List<LaneHit> laneHits = collectLanes(dataEntity, entity);
+            if (laneHits.size() > 1) {
+                sendLanes(laneHits, processingResult);
+                return;
+            }
+        }
+
+        Log.trace(LOG_TAG, LOG_SOURCE, "Processing hit request: %s", batch.url);
 
         final NetworkRequest networkRequest =
                 new NetworkRequest(
-                        entity.getUrl(),
+                        batch.url,
                         HttpMethod.GET,
                         null,
                         null,
@@ -86,21 +291,171 @@ class AudienceHitProcessor implements HitProcessing {
 
         networkService.connectAsync(
                 networkRequest,
-                connection ->
-                        handleNetworkResponse(connection, entity.getEvent(), processingResult));
+                connection -> handleNetworkResponse(connection, batch, processingResult));
+    }
+
+    /**
+     * Checks whether a new hit can be added to the hit queue, before it is queued.
+     *
+     * <p>While the hit queue is suspended, the expired hits at its head are removed first and their
+     * request events receive an empty response, as no hit is being processed to remove them. A new
+     * hit is refused, and counted as evicted, while the queue holds the maximum number of hits.
+     *
+     * @param queueSuspended whether the hit queue is suspended
+     * @return true if the hit can be queued, false if it should be discarded
+     */
+    boolean acceptHit(final boolean queueSuspended) {
+        if (queueSuspended) {
+            removeExpiredHits();
+        }
+
+        final int maxCount = maxQueuedHits;
+        if (maxCount > 0 && dataQueue != null && queuedHitCount.get() >= maxCount) {
+            evictedCount.incrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Counts a hit added to the hit queue, so the maximum number of queued hits is enforced without
+     * counting the hits of the {@link DataQueue}.
+     */
+    void onHitQueued() {
+        queuedHitCount.incrementAndGet();
+    }
+
+    /** Resets the queued hit count and forgets the hits which completed in a lane. */
+    void onHitQueueCleared() {
+        queuedHitCount.set(0);
+        completedHits.clear();
+    }
+
+    /**
+     * @return the number of hits discarded because they were older than the maximum hit age
+     */
+    long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return the number of hits discarded because the queue held more than the maximum number of
+     *     hits
+     */
+    long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Marks the given hit as being processed. If expired hits were removed from the head of the
+     * queue since the last hit was processed, the hit is first checked to still be the head of the
+     * queue, as the hit queue removes its head once the hit is processed.
+     *
+     * @param dataEntity the {@link DataEntity} about to be processed
+     * @return true if the hit can be processed, false if it was removed from the queue
+     */
+    private boolean beginProcessing(final DataEntity dataEntity) {
+        synchronized (queueHeadLock) {
+            if (queueHeadRemoved) {
+                queueHeadRemoved = false;
+                if (dataQueue != null && !isSameHit(dataQueue.peek(), dataEntity)) {
+                    return false;
+                }
+            }
+
+            processingHit = true;
+            return true;
+        }
+    }
+
+    /**
+     * Removes the expired hits at the head of the {@link DataQueue}, unless a hit is being
+     * processed, and returns an empty response to their request events.
+     */
+    private void removeExpiredHits() {
+        if (dataQueue == null || maxHitAgeMillis <= 0) {
+            return;
+        }
+
+        final List<AudienceDataEntity> expiredEntities = new ArrayList<>();
+        synchronized (queueHeadLock) {
+            if (processingHit) {
+                return;
+            }
+
+            DataEntity head = dataQueue.peek();
+            while (head != null) {
+                final AudienceDataEntity entity = AudienceDataEntity.fromDataEntity(head);
+                if ((entity != null && !isExpired(entity)) || !dataQueue.remove()) {
+                    break;
+                }
+
+                queueHeadRemoved = true;
+                queuedHitCount.decrementAndGet();
+                completedHits.remove(head.getUniqueIdentifier());
+                if (entity != null) {
+                    expiredEntities.add(entity);
+                }
+
+                head = dataQueue.peek();
+            }
+        }
+
+        if (expiredEntities.isEmpty()) {
+            return;
+        }
+
+        Log.debug(
+                LOG_TAG,
+                LOG_SOURCE,
+                "Discarded %d expired hits from the suspended hit queue.",
+                expiredEntities.size());
+        expiredCount.addAndGet(expiredEntities.size());
+        for (final AudienceDataEntity entity : expiredEntities) {
+            // resolves the pending shared state and dispatches an empty response
+            networkResponseHandler.complete(null, entity.getEvent());
+        }
+    }
+
+    /**
+     * Checks whether a queued hit is older than the maximum hit age, from the timestamp of its
+     * request event.
+     *
+     * @param entity the queued {@link AudienceDataEntity}
+     * @return true if the hit should be discarded without being sent
+     */
+    private boolean isExpired(final AudienceDataEntity entity) {
+        final long maxAgeMillis = maxHitAgeMillis;
+        final long timestamp = entity.getEventTimestamp();
+        return maxAgeMillis > 0
+                && timestamp > 0
+                && System.currentTimeMillis() - timestamp > maxAgeMillis;
+    }
+
+    /**
+     * Checks whether the queue holds more than the maximum number of hits. As the hit being
+     * processed is the oldest queued hit, it is the one to be discarded.
+     *
+     * @return true if the hit at the head of the queue should be discarded without being sent
+     */
+    private boolean isOverQueueLimit() {
+        final int maxCount = maxQueuedHits;
+        return maxCount > 0 && dataQueue != null && queuedHitCount.get() > maxCount;
     }
 
     /**
      * Handles the network response after a hit has been sent to the server
      *
      * @param connection the connection object returned for the network request
-     * @param requestEvent the request event that initiated this network call
+     * @param batch the {@link HitBatch} containing the request events that initiated this network
+     *     call
      * @param processingResult a callback to be invoked after processing the response, with true for
      *     success and false for failure (retry)
      */
     private void handleNetworkResponse(
             final HttpConnecting connection,
-            final Event requestEvent,
+            final HitBatch batch,
             @NonNull HitProcessingResult processingResult) {
         // a null connection represents an invalid request
         if (connection == null) {
@@ -111,30 +466,29 @@ class AudienceHitProcessor implements HitProcessing {
                             + " later.");
 
             // calls handler to update the shared state and notifies listeners accordingly
-            networkResponseHandler.complete(null, requestEvent);
+            notifyResponseHandler(null, batch);
+            retryPolicy.recordFailure(batch.hitId, AudienceHitRetryPolicy.NO_RESPONSE);
             processingResult.complete(false); // the device is offline, will retry later
             return;
         }
 
         final boolean processingComplete;
-        if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-            final String response = StreamUtils.readAsString(connection.getInputStream());
-
-            // pass the response back to handler, delete hit
-            networkResponseHandler.complete(response, requestEvent);
+        final int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            // pass the response stream to the handler, which parses it as it is read, delete hit
+            streamResponseToHandler(connection.getInputStream(), batch);
             processingComplete = true;
-        } else if (!NetworkingConstants.RECOVERABLE_ERROR_CODES.contains(
-                connection.getResponseCode())) {
+        } else if (!NetworkingConstants.RECOVERABLE_ERROR_CODES.contains(responseCode)) {
             // unrecoverable error. delete the hit from the database and continue
             Log.warning(
                     LOG_TAG,
                     LOG_SOURCE,
                     "Unrecoverable network error code (%d) while processing AAM requests,"
                             + " discarding hit.",
-                    connection.getResponseCode());
+                    responseCode);
 
             // calls handler to update the shared state and notifies listeners accordingly
-            networkResponseHandler.complete(null, requestEvent);
+            notifyResponseHandler(null, batch);
 
             // delete the current request and move on to the next
             processingComplete = true;
@@ -143,6 +497,622 @@ class AudienceHitProcessor implements HitProcessing {
         }
 
         connection.close();
+
+        if (processingComplete) {
+            removeMergedHits(batch);
+            retryPolicy.reset();
+        } else {
+            retryPolicy.recordFailure(batch.hitId, responseCode);
+        }
+
         processingResult.complete(processingComplete);
     }
+
+    /**
+     * Passes the response to the {@link AudienceNetworkResponseHandler} for all the request events
+     * of the given {@code batch}.
+     *
+     * @param response the response payload, may be null
+     * @param batch the {@link HitBatch} which was sent
+     */
+    private void notifyResponseHandler(final String response, final HitBatch batch) {
+        if (batch.pairedEntities.isEmpty()) {
+            networkResponseHandler.complete(response, batch.entity.getEvent());
+        } else {
+            networkResponseHandler.complete(
+                    response, batch.entity.getEvent(), batch.getPairedEvents());
+        }
+    }
+
+    /**
+     * Passes the response stream to the {@link AudienceNetworkResponseHandler} for all the request
+     * events of the given {@code batch}.
+     *
+     * @param responseStream the response body stream, may be null
+     * @param batch the {@link HitBatch} which was sent
+     */
+    private void streamResponseToHandler(final InputStream responseStream, final HitBatch batch) {
+        networkResponseHandler.completeWithStream(
+                responseStream,
+                batch.entity.getEvent(),
+                batch.pairedEntities.isEmpty() ? null : batch.getPairedEvents());
+    }
+
+    /**
+     * Builds the {@link HitBatch} to be sent for the hit at the head of the queue.
+     *
+     * <p>If batching is enabled, the hits following the head of the queue are merged into the same
+     * request for as long as they target the same server with the same identities and timeout, and
+     * their traits do not conflict with the traits already merged.
+     *
+     * @param dataEntity the {@link DataEntity} at the head of the queue
+     * @param entity the deserialized {@link AudienceDataEntity} for {@code dataEntity}
+     * @return the {@code HitBatch} to be sent, containing at least the given hit
+     */
+    private HitBatch collectBatch(final DataEntity dataEntity, final AudienceDataEntity entity) {
+        final HitBatch batch = new HitBatch(dataEntity.getUniqueIdentifier(), entity);
+        final int limit = batchLimit;
+        if (limit <= 1 || dataQueue == null || entity.getUrl() == null) {
+            return batch;
+        }
+
+        final List<DataEntity> queuedEntities = dataQueue.peek(limit);
+        if (queuedEntities == null
+                || queuedEntities.isEmpty()
+                || !isSameHit(queuedEntities.get(0), dataEntity)) {
+            return batch;
+        }
+
+        final String baseUrl = removeTraits(entity.getUrl());
+        final Map<String, String> mergedTraits = getTraits(entity.getUrl());
+        final StringBuilder mergedUrl = new StringBuilder(entity.getUrl());
+
+        for (int i = 1; i < queuedEntities.size(); i++) {
+            final AudienceDataEntity nextEntity =
+                    AudienceDataEntity.fromDataEntity(queuedEntities.get(i));
+            if (nextEntity == null
+                    || nextEntity.getUrl() == null
+                    || isExpired(nextEntity)
+                    || nextEntity.getTimeoutSec() != entity.getTimeoutSec()
+                    || !baseUrl.equals(removeTraits(nextEntity.getUrl()))) {
+                break;
+            }
+
+            final Map<String, String> nextTraits = getTraits(nextEntity.getUrl());
+            if (hasConflictingTraits(mergedTraits, nextTraits)) {
+                break;
+            }
+
+            for (Map.Entry<String, String> trait : nextTraits.entrySet()) {
+                if (!mergedTraits.containsKey(trait.getKey())) {
+                    mergedTraits.put(trait.getKey(), trait.getValue());
+                    mergedUrl
+                            .append('&')
+                            .append(trait.getKey())
+                            .append('=')
+                            .append(trait.getValue());
+                }
+            }
+
+            batch.pairedHitIds.add(queuedEntities.get(i).getUniqueIdentifier());
+            batch.pairedEntities.add(nextEntity);
+        }
+
+        if (!batch.pairedEntities.isEmpty()) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Merged %d queued hits into a single signal request.",
+                    batch.size());
+            batch.url = mergedUrl.toString();
+        }
+
+        return batch;
+    }
+
+    /**
+     * Removes the merged hits of a completed {@code batch} from the {@link DataQueue}.
+     *
+     * @param batch the {@link HitBatch} which completed processing
+     */
+    private void removeMergedHits(final HitBatch batch) {
+        if (!batch.pairedEntities.isEmpty() && !removeFollowingHits(batch.pairedHitIds)) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Hit queue changed while processing merged hits, merged hits will be"
+                            + " processed again.");
+        }
+    }
+
+    /**
+     * Removes the given hits, which follow the head of the queue, from the {@link DataQueue}.
+     *
+     * <p>The hit queue removes the head of the queue once processing completes, so only the
+     * {@code hitIds.size()} hits following it are removed here. As the queue only allows removing
+     * hits from its head, the hits are removed only if they are still the first ones in the queue.
+     *
+     * @param hitIds the unique identifiers of the hits following the head of the queue
+     * @return true if the hits were removed, false if the queue changed in the meantime
+     */
+    private boolean removeFollowingHits(final List<String> hitIds) {
+        if (hitIds.isEmpty()) {
+            return true;
+        }
+
+        if (dataQueue == null) {
+            return false;
+        }
+
+        final List<DataEntity> queuedEntities = dataQueue.peek(hitIds.size() + 1);
+        if (queuedEntities == null || queuedEntities.size() != hitIds.size() + 1) {
+            return false;
+        }
+
+        for (int i = 1; i < queuedEntities.size(); i++) {
+            final String hitId = hitIds.get(i - 1);
+            if (hitId == null || !hitId.equals(queuedEntities.get(i).getUniqueIdentifier())) {
+                return false;
+            }
+        }
+
+        if (dataQueue.remove(hitIds.size())) {
+            queuedHitCount.addAndGet(-hitIds.size());
+        }
+
+        return true;
+    }
+
+    /**
+     * Collects the hits to be sent in parallel with the hit at the head of the queue.
+     *
+     * <p>If more than one lane is set, the hits following the head of the queue are added for as
+     * long as they, and the head itself, carry a UUID. A hit without a UUID ends the lanes, as its
+     * response may assign the UUID used by the following hits.
+     *
+     * @param dataEntity the {@link DataEntity} at the head of the queue
+     * @param entity the deserialized {@link AudienceDataEntity} for {@code dataEntity}
+     * @return the {@code LaneHit}s to be sent, starting with the given hit
+     */
+    private List<LaneHit> collectLanes(
+            final DataEntity dataEntity, final AudienceDataEntity entity) {
+        final List<LaneHit> laneHits = new ArrayList<>();
+        laneHits.add(new LaneHit(dataEntity.getUniqueIdentifier(), entity, false));
+        final int limit = laneCount;
+        if (limit <= 1 || dataQueue == null || !hasUuid(entity.getUrl())) {
+            return laneHits;
+        }
+
+        final List<DataEntity> queuedEntities = dataQueue.peek(limit);
+        if (queuedEntities == null
+                || queuedEntities.isEmpty()
+                || !isSameHit(queuedEntities.get(0), dataEntity)) {
+            return laneHits;
+        }
+
+        for (int i = 1; i < queuedEntities.size(); i++) {
+            final String hitId = queuedEntities.get(i).getUniqueIdentifier();
+            final AudienceDataEntity nextEntity =
+                    AudienceDataEntity.fromDataEntity(queuedEntities.get(i));
+            if (hitId == null
+                    || nextEntity == null
+                    || isExpired(nextEntity)
+                    || !hasUuid(nextEntity.getUrl())) {
+                break;
+            }
+
+            laneHits.add(new LaneHit(hitId, nextEntity, completedHits.contains(hitId)));
+        }
+
+        return laneHits;
+    }
+
+    /**
+     * Sends the given hits in parallel, skipping those which already completed in a previous lane.
+     *
+     * @param laneHits the {@link LaneHit}s to be sent, starting with the hit at the head of the
+     *     queue
+     * @param processingResult the callback for the hit at the head of the queue
+     */
+    private void sendLanes(
+            final List<LaneHit> laneHits, @NonNull final HitProcessingResult processingResult) {
+        Log.debug(LOG_TAG, LOG_SOURCE, "Sending %d queued hits in parallel.", laneHits.size());
+        final LaneGroup group = new LaneGroup(laneHits, processingResult);
+        for (int i = 0; i < laneHits.size(); i++) {
+            final LaneHit laneHit = laneHits.get(i);
+            final int lane = i;
+            if (laneHit.completed) {
+                group.onLaneComplete(lane, LaneResult.SKIPPED);
+                continue;
+            }
+
+            Log.trace(LOG_TAG, LOG_SOURCE, "Processing hit request: %s", laneHit.entity.getUrl());
+            final NetworkRequest networkRequest =
+                    new NetworkRequest(
+                            laneHit.entity.getUrl(),
+                            HttpMethod.GET,
+                            null,
+                            null,
+                            laneHit.entity.getTimeoutSec(),
+                            laneHit.entity.getTimeoutSec());
+            networkService.connectAsync(
+                    networkRequest,
+                    connection -> group.onLaneComplete(lane, handleLaneResponse(connection)));
+        }
+    }
+
+    /**
+     * Handles the network response of a hit sent in a lane. The response body is read right away,
+     * as it is passed to the {@link AudienceNetworkResponseHandler} only once the responses of the
+     * hits ahead of it are.
+     *
+     * @param connection the connection object returned for the network request
+     * @return the {@link LaneResult} of the hit
+     */
+    private LaneResult handleLaneResponse(final HttpConnecting connection) {
+        if (connection == null) {
+            Log.warning(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "AAM could not process network connection because it was null, Will retry"
+                            + " later.");
+            return new LaneResult(false, true, null, AudienceHitRetryPolicy.NO_RESPONSE);
+        }
+
+        final LaneResult result;
+        final int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            result =
+                    new LaneResult(
+                            true, true, readResponse(connection.getInputStream()), responseCode);
+        } else if (!NetworkingConstants.RECOVERABLE_ERROR_CODES.contains(responseCode)) {
+            Log.warning(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unrecoverable network error code (%d) while processing AAM requests,"
+                            + " discarding hit.",
+                    responseCode);
+            result = new LaneResult(true, true, null, responseCode);
+        } else {
+            result = new LaneResult(false, false, null, responseCode);
+        }
+
+        connection.close();
+        return result;
+    }
+
+    /**
+     * Completes the hits of a {@link LaneGroup} once all of its lanes completed.
+     *
+     * <p>The leading hits which completed are removed from the queue, and the head of the queue is
+     * completed if it is one of them. Hits which completed behind a hit to be retried stay in the
+     * queue, and are recorded in the {@link AudienceCompletedHits} so they are skipped once they
+     * reach its head, even after the application restarts. Recorded hits are forgotten once they
+     * are removed as leading hits.
+     *
+     * @param group the {@code LaneGroup} whose lanes all completed
+     */
+    private void completeLanes(final LaneGroup group) {
+        final List<String> completedLeadingHitIds = new ArrayList<>();
+        int lane = 1;
+        while (lane < group.laneHits.size() && group.results[lane].done) {
+            completedLeadingHitIds.add(group.laneHits.get(lane).hitId);
+            lane++;
+        }
+
+        final List<String> completedTrailingHitIds = new ArrayList<>();
+        for (; lane < group.laneHits.size(); lane++) {
+            if (group.results[lane].done) {
+                completedTrailingHitIds.add(group.laneHits.get(lane).hitId);
+            }
+        }
+
+        if (group.results[0].done && removeFollowingHits(completedLeadingHitIds)) {
+            // skipped lanes were recorded when they completed in a previous group
+            for (final String hitId : completedLeadingHitIds) {
+                completedHits.remove(hitId);
+            }
+        } else {
+            completedTrailingHitIds.addAll(completedLeadingHitIds);
+        }
+
+        completedHits.addAll(completedTrailingHitIds);
+
+        if (!group.results[0].done) {
+            retryPolicy.recordFailure(group.laneHits.get(0).hitId, group.results[0].responseCode);
+            group.processingResult.complete(false);
+            return;
+        }
+
+        retryPolicy.reset();
+        group.processingResult.complete(true);
+    }
+
+    /**
+     * Reads a response body to a string, up to {@link
+     * AudienceConstants#MAX_AAM_RESPONSE_SIZE_BYTES}.
+     *
+     * @param responseStream the response body stream, may be null
+     * @return the response body, or null if it could not be read
+     */
+    private static String readResponse(final InputStream responseStream) {
+        if (responseStream == null) {
+            return null;
+        }
+
+        final StringBuilder response = new StringBuilder();
+        final char[] buffer = new char[1024];
+        try (Reader reader =
+                AudienceResponseParser.newReader(
+                        responseStream, AudienceConstants.MAX_AAM_RESPONSE_SIZE_BYTES)) {
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                response.append(buffer, 0, count);
+            }
+        } catch (final IOException e) {
+            Log.warning(
+                    LOG_TAG, LOG_SOURCE, "Unable to read AAM response body (%s).", e.getMessage());
+            return null;
+        }
+
+        return response.toString();
+    }
+
+    /**
+     * Checks whether the given signal URL carries an Audience Manager UUID.
+     *
+     * @param url the signal URL, may be null
+     * @return true if {@code url} has a {@code d_uuid} query parameter
+     */
+    private static boolean hasUuid(final String url) {
+        if (url == null) {
+            return false;
+        }
+
+        final String parameter = AudienceConstants.AUDIENCE_MANAGER_USER_ID_KEY + "=";
+        return url.contains("?" + parameter) || url.contains("&" + parameter);
+    }
+
+    /**
+     * Checks if two {@link DataEntity} instances represent the same queued hit.
+     *
+     * @param first the first {@code DataEntity}
+     * @param second the second {@code DataEntity}
+     * @return true if both entities have the same unique identifier
+     */
+    private static boolean isSameHit(final DataEntity first, final DataEntity second) {
+        return first != null
+                && first.getUniqueIdentifier() != null
+                && first.getUniqueIdentifier().equals(second.getUniqueIdentifier());
+    }
+
+    /**
+     * Returns the given signal URL without its customer trait ({@code c_}) query parameters.
+     *
+     * @param url the signal URL
+     * @return the URL stripped of its trait query parameters
+     */
+    private static String removeTraits(final String url) {
+        final int queryIndex = url.indexOf('?');
+        if (queryIndex < 0) {
+            return url;
+        }
+
+        final StringBuilder baseUrl = new StringBuilder(url.length());
+        baseUrl.append(url, 0, queryIndex + 1);
+        boolean first = true;
+        for (String parameter : url.substring(queryIndex + 1).split("&")) {
+            if (parameter.isEmpty()
+                    || parameter.startsWith(
+                            AudienceConstants.AUDIENCE_MANAGER_CUSTOMER_DATA_PREFIX)) {
+                continue;
+            }
+
+            if (!first) {
+                baseUrl.append('&');
+            }
+
+            baseUrl.append(parameter);
+            first = false;
+        }
+
+        return baseUrl.toString();
+    }
+
+    /**
+     * Extracts the customer trait ({@code c_}) query parameters of the given signal URL.
+     *
+     * @param url the signal URL
+     * @return {@code Map<String, String>} of encoded parameter names to encoded values, in the
+     *     order they appear in the URL
+     */
+    private static Map<String, String> getTraits(final String url) {
+        final Map<String, String> traits = new LinkedHashMap<>();
+        final int queryIndex = url.indexOf('?');
+        if (queryIndex < 0) {
+            return traits;
+        }
+
+        for (String parameter : url.substring(queryIndex + 1).split("&")) {
+            if (!parameter.startsWith(AudienceConstants.AUDIENCE_MANAGER_CUSTOMER_DATA_PREFIX)) {
+                continue;
+            }
+
+            final int separatorIndex = parameter.indexOf('=');
+            if (separatorIndex < 0) {
+                traits.put(parameter, "");
+            } else {
+                traits.put(
+                        parameter.substring(0, separatorIndex),
+                        parameter.substring(separatorIndex + 1));
+            }
+        }
+
+        return traits;
+    }
+
+    /**
+     * Checks whether any trait in {@code traits} has a different value in {@code mergedTraits}.
+     *
+     * @param mergedTraits the traits merged so far
+     * @param traits the traits to be merged
+     * @return true if at least one trait conflicts with an already merged trait
+     */
+    private static boolean hasConflictingTraits(
+            final Map<String, String> mergedTraits, final Map<String, String> traits) {
+        for (Map.Entry<String, String> trait : traits.entrySet()) {
+            final String mergedValue = mergedTraits.get(trait.getKey());
+            if (mergedValue != null && !mergedValue.equals(trait.getValue())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** The queued hits and URL of one or more hits sent in a single network request. */
+    private static final class HitBatch {
+
+        private final String hitId;
+        private final AudienceDataEntity entity;
+        private final List<AudienceDataEntity> pairedEntities = new ArrayList<>();
+        private final List<String> pairedHitIds = new ArrayList<>();
+        private String url;
+
+        HitBatch(final String hitId, final AudienceDataEntity entity) {
+            this.hitId = hitId;
+            this.entity = entity;
+            this.url = entity.getUrl();
+        }
+
+        int size() {
+            return pairedEntities.size() + 1;
+        }
+
+        List<Event> getPairedEvents() {
+            final List<Event> pairedEvents = new ArrayList<>(pairedEntities.size());
+            for (final AudienceDataEntity pairedEntity : pairedEntities) {
+                pairedEvents.add(pairedEntity.getEvent());
+            }
+
+            return pairedEvents;
+        }
+    }
+
+    /** A queued hit sent in a lane. */
+    private static final class LaneHit {
+
+        private final String hitId;
+        private final AudienceDataEntity entity;
+        private final boolean completed;
+
+        LaneHit(final String hitId, final AudienceDataEntity entity, final boolean completed) {
+            this.hitId = hitId;
+            this.entity = entity;
+            this.completed = completed;
+        }
+    }
+
+    /** The outcome of a hit sent in a lane. */
+    private static final class LaneResult {
+
+        // the hit already completed in a previous lane
+        private static final LaneResult SKIPPED =
+                new LaneResult(true, false, null, HttpURLConnection.HTTP_OK);
+
+        private final boolean done;
+        private final boolean notify;
+        private final String response;
+        private final int responseCode;
+
+        /**
+         * Constructor.
+         *
+         * @param done true if the hit can be removed from the queue, false if it should be retried
+         * @param notify true if the response handler should be notified
+         * @param response the response payload passed to the handler, may be null
+         * @param responseCode the HTTP response code, or {@link AudienceHitRetryPolicy#NO_RESPONSE}
+         */
+        LaneResult(
+                final boolean done,
+                final boolean notify,
+                final String response,
+                final int responseCode) {
+            this.done = done;
+            this.notify = notify;
+            this.response = response;
+            this.responseCode = responseCode;
+        }
+    }
+
+    /**
+     * The hits sent in parallel for the hit at the head of the queue. Responses are passed to the
+     * response handler in queue order, and the group completes once all of its lanes did.
+     *
+     * <p>The handler is not called while holding the lock of the group. A single lane passes the
+     * responses on at a time, including those of the lanes completing meanwhile, so they keep their
+     * order.
+     */
+    private final class LaneGroup {
+
+        private final List<LaneHit> laneHits;
+        private final HitProcessingResult processingResult;
+        private final LaneResult[] results;
+        private int nextNotifiedLane;
+        private int remainingLanes;
+        private boolean notifying;
+
+        LaneGroup(final List<LaneHit> laneHits, final HitProcessingResult processingResult) {
+            this.laneHits = laneHits;
+            this.processingResult = processingResult;
+            this.results = new LaneResult[laneHits.size()];
+            this.remainingLanes = laneHits.size();
+        }
+
+        void onLaneComplete(final int lane, final LaneResult result) {
+            synchronized (this) {
+                results[lane] = result;
+                remainingLanes--;
+                if (notifying) {
+                    // the lane passing the responses on also passes this one
+                    return;
+                }
+
+                notifying = true;
+            }
+
+            while (true) {
+                final List<Integer> readyLanes = new ArrayList<>();
+                final boolean allLanesComplete;
+                synchronized (this) {
+                    while (nextNotifiedLane < results.length && results[nextNotifiedLane] != null) {
+                        readyLanes.add(nextNotifiedLane++);
+                    }
+
+                    if (readyLanes.isEmpty()) {
+                        notifying = false;
+                        allLanesComplete = remainingLanes == 0;
+                    } else {
+                        allLanesComplete = false;
+                    }
+                }
+
+                if (readyLanes.isEmpty()) {
+                    if (allLanesComplete) {
+                        completeLanes(this);
+                    }
+
+                    return;
+                }
+
+                for (final int readyLane : readyLanes) {
+                    final LaneResult readyResult = results[readyLane];
+                    if (readyResult.notify) {
+                        networkResponseHandler.complete(
+                                readyResult.response, laneHits.get(readyLane).entity.getEvent());
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.net.HttpURLConnection;
+import java.util.Random;
+
+/**
+ * Computes the retry interval of the hit at the head of the {@code Audience} hit queue.
+ *
+ * <p>The interval starts from a base which depends on the error class of the last failure, doubles
+ * after each consecutive failure of the same hit up to a configurable maximum, and is randomized
+ * between half and all of its value so devices coming back online together do not retry in sync.
+ *
+ * <p>The hit queue only retries its head, so the failures of a single hit are tracked. They are
+ * persisted under {@link AudienceConstants#AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY} as {@code
+ * attempts:errorCode:hitId}, so the backoff carries over when the application restarts.
+ */
+class AudienceHitRetryPolicy {
+
+    private static final String LOG_SOURCE = "AudienceHitRetryPolicy";
+
+    /** The error code of a failure for which no response was received. */
+    static final int NO_RESPONSE = -1;
+
+    // base retry intervals by error class, in seconds
+    private static final int NO_RESPONSE_BASE_SECONDS = 5;
+    private static final int CLIENT_TIMEOUT_BASE_SECONDS = 10;
+    private static final int GATEWAY_TIMEOUT_BASE_SECONDS = 15;
+    private static final int UNAVAILABLE_BASE_SECONDS = 30;
+
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    private static final char FIELD_SEPARATOR = ':';
+
+    private final NamedCollection localStorage;
+    private final Random random = new Random();
+
+    private boolean loaded;
+    private String hitId;
+    private int attempts;
+    private int errorCode = NO_RESPONSE;
+    private int maxIntervalSeconds = AudienceConstants.DEFAULT_AAM_RETRY_MAX_INTERVAL_SECONDS;
+
+    /**
+     * Constructor.
+     *
+     * @param localStorage the {@link NamedCollection} where the failures are persisted, they are
+     *     only kept in memory if null
+     */
+    AudienceHitRetryPolicy(final NamedCollection localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    /**
+     * Sets the maximum retry interval.
+     *
+     * @param maxIntervalSeconds the maximum retry interval, in seconds; values lower than one are
+     *     treated as one
+     */
+    synchronized void setMaxInterval(final int maxIntervalSeconds) {
+        this.maxIntervalSeconds = Math.max(maxIntervalSeconds, 1);
+    }
+
+    /**
+     * Records a failed attempt to send the given hit, and persists it.
+     *
+     * @param hitId the unique identifier of the hit
+     * @param errorCode the HTTP response code, or {@link #NO_RESPONSE}
+     */
+    synchronized void recordFailure(final String hitId, final int errorCode) {
+        load();
+        if (hitId == null || !hitId.equals(this.hitId)) {
+            this.hitId = hitId;
+            attempts = 0;
+        }
+
+        attempts++;
+        this.errorCode = errorCode;
+        persist();
+    }
+
+    /** Resets the backoff once the hit at the head of the queue completed. */
+    synchronized void reset() {
+        load();
+        if (hitId == null && attempts == 0) {
+            return;
+        }
+
+        hitId = null;
+        attempts = 0;
+        errorCode = NO_RESPONSE;
+        if (localStorage != null) {
+            localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY);
+        }
+    }
+
+    /**
+     * Returns the interval after which the given hit should be retried.
+     *
+     * @param hitId the unique identifier of the hit
+     * @return the randomized retry interval, in seconds
+     */
+    synchronized int retryInterval(final String hitId) {
+        load();
+        final boolean isTrackedHit = hitId != null && hitId.equals(this.hitId);
+        final int failures = isTrackedHit ? attempts : 1;
+        final int shift = Math.min(Math.max(failures - 1, 0), MAX_BACKOFF_SHIFT);
+        final long interval =
+                Math.min(
+                        (long) baseInterval(isTrackedHit ? errorCode : NO_RESPONSE) << shift,
+                        maxIntervalSeconds);
+        final int halfInterval = (int) (interval / 2);
+        return Math.max(halfInterval + random.nextInt(halfInterval + 1), 1);
+    }
+
+    /**
+     * @return the number of failed attempts of the hit being retried
+     */
+    synchronized int getAttempts() {
+        load();
+        return attempts;
+    }
+
+    /**
+     * Returns the base retry interval for an error class.
+     *
+     * @param errorCode the HTTP response code, or {@link #NO_RESPONSE}
+     * @return the base retry interval, in seconds
+     */
+    private static int baseInterval(final int errorCode) {
+        switch (errorCode) {
+            case NO_RESPONSE:
+                // the device is most likely offline, retry quickly once it is back
+                return NO_RESPONSE_BASE_SECONDS;
+            case HttpURLConnection.HTTP_CLIENT_TIMEOUT:
+                return CLIENT_TIMEOUT_BASE_SECONDS;
+            case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+                return GATEWAY_TIMEOUT_BASE_SECONDS;
+            default:
+                // the server is overloaded, back off the most
+                return UNAVAILABLE_BASE_SECONDS;
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        if (localStorage == null) {
+            return;
+        }
+
+        final String persisted =
+                localStorage.getString(
+                        AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY, null);
+        if (persisted == null) {
+            return;
+        }
+
+        final String[] fields = persisted.split(String.valueOf(FIELD_SEPARATOR), 3);
+        if (fields.length != 3 || fields[2].isEmpty()) {
+            Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring invalid persisted hit retry state.");
+            return;
+        }
+
+        try {
+            attempts = Integer.parseInt(fields[0]);
+            errorCode = Integer.parseInt(fields[1]);
+            hitId = fields[2];
+        } catch (final NumberFormatException e) {
+            attempts = 0;
+            errorCode = NO_RESPONSE;
+            Log.debug(LOG_TAG, LOG_SOURCE, "Ignoring invalid persisted hit retry state.");
+        }
+    }
+
+    private void persist() {
+        if (localStorage == null || hitId == null) {
+            return;
+        }
+
+        localStorage.setString(
+                AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY,
+                attempts + String.valueOf(FIELD_SEPARATOR) + errorCode + FIELD_SEPARATOR + hitId);
+    }
+}
@@ -12,6 +12,8 @@
 package com.adobe.marketing.mobile.audience;
 
 import com.adobe.marketing.mobile.Event;
+import java.io.InputStream;
+import java.util.List;
 
 /** Callback for handling the network response from outside of the extension class. */
 interface AudienceNetworkResponseHandler {
@@ -23,4 +25,41 @@ interface AudienceNetworkResponseHandler {
      * @param requestEvent triggering {@link Event} that caused the AAM network request
      */
     void complete(final String responsePayload, final Event requestEvent);
+
+    /**
+     * This method is called after a network request carrying the merged signals of multiple
+     * queued hits has been processed and the connection was returned to the client.
+     *
+     * <p>The response is processed once for the {@code requestEvent}, the resulting profile is then
+     * returned to each of the {@code pairedRequestEvents}.
+     *
+     * @param responsePayload {@link String} representation of the response from the AAM server
+     * @param requestEvent triggering {@link Event} of the first hit merged into the AAM network
+     *     request
+     * @param pairedRequestEvents {@code List<Event>} of the other triggering events whose signals
+     *     were merged into the same AAM network request
+     */
+    void complete(
+            final String responsePayload,
+            final Event requestEvent,
+            final List<Event> pairedRequestEvents);
+
+    /**
+     * This method is called after a network request has been processed successfully, with the
+     * response body stream of the connection.
+     *
+     * <p>The response is parsed as it is read from the stream, up to {@link
+     * AudienceConstants#MAX_AAM_RESPONSE_SIZE_BYTES} bytes. The stream must not be used after this
+     * method returns, as the connection is closed afterwards.
+     *
+     * @param responseStream {@link InputStream} of the response body from the AAM server, may be
+     *     null
+     * @param requestEvent triggering {@link Event} of the first hit sent in the AAM network request
+     * @param pairedRequestEvents {@code List<Event>} of the other triggering events whose signals
+     *     were merged into the same AAM network request, may be null
+     */
+    void completeWithStream(
+            final InputStream responseStream,
+            final Event requestEvent,
+            final List<Event> pairedRequestEvents);
 }
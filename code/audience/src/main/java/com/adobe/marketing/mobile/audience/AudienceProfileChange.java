@@ -0,0 +1,99 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The segments added, removed and changed between two visitor profiles.
+ *
+ * <p>Removed segments are reported with the value they had in the previous profile, added and
+ * changed segments with their value in the current profile.
+ */
+final class AudienceProfileChange {
+
+    private final Map<String, String> added = new HashMap<>();
+    private final Map<String, String> removed = new HashMap<>();
+    private final Map<String, String> changed = new HashMap<>();
+
+    private AudienceProfileChange() {}
+
+    /**
+     * Compares two visitor profiles.
+     *
+     * @param previous the previous visitor profile, may be null
+     * @param current the current visitor profile, may be null
+     * @return the {@link AudienceProfileChange} from {@code previous} to {@code current}, or null
+     *     if both profiles contain the same segments
+     */
+    static AudienceProfileChange between(
+            final Map<String, String> previous, final Map<String, String> current) {
+        final Map<String, String> previousProfile =
+                previous != null ? previous : Collections.<String, String>emptyMap();
+        final Map<String, String> currentProfile =
+                current != null ? current : Collections.<String, String>emptyMap();
+
+        if (previousProfile.equals(currentProfile)) {
+            return null;
+        }
+
+        final AudienceProfileChange change = new AudienceProfileChange();
+
+        for (final Map.Entry<String, String> entry : currentProfile.entrySet()) {
+            final String name = entry.getKey();
+
+            if (!previousProfile.containsKey(name)) {
+                change.added.put(name, entry.getValue());
+            } else if (!equals(previousProfile.get(name), entry.getValue())) {
+                change.changed.put(name, entry.getValue());
+            }
+        }
+
+        for (final Map.Entry<String, String> entry : previousProfile.entrySet()) {
+            if (!currentProfile.containsKey(entry.getKey())) {
+                change.removed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return change;
+    }
+
+    @NonNull Map<String, String> getAdded() {
+        return added;
+    }
+
+    @NonNull Map<String, String> getRemoved() {
+        return removed;
+    }
+
+    @NonNull Map<String, String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return the event data of a profile change event
+     */
+    @NonNull Map<String, Object> toEventData() {
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put(AudienceConstants.EventDataKeys.Audience.PROFILE_ADDED, added);
+        eventData.put(AudienceConstants.EventDataKeys.Audience.PROFILE_REMOVED, removed);
+        eventData.put(AudienceConstants.EventDataKeys.Audience.PROFILE_CHANGED, changed);
+        return eventData;
+    }
+
+    private static boolean equals(final Object first, final Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
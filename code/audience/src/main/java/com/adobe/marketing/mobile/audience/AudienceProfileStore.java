@@ -0,0 +1,304 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.services.Log;
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Persists the visitor profile in a {@link NamedCollection}, writing only the entries that changed
+ * since the profile was last compacted.
+ *
+ * <p>The compacted profile is stored as a single map under {@link
+ * AudienceConstants#AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY}, the key read by previous versions
+ * of the extension. The entries changed since then are stored as a JSON object under {@link
+ * AudienceConstants#AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY}, with a null value for each
+ * removed entry, so a changed profile costs a single write of its changes. The changes also hold
+ * the hash code of the compacted profile they apply to, so they are ignored if the profile was
+ * rewritten by a previous version of the extension in the meantime. Once the changes hold
+ * more than half as many entries as the profile, they cost about as much to write as the profile
+ * itself, and the profile is compacted: written in full under the profile key, and the changes
+ * removed. Saving a profile which did not change writes nothing.
+ */
+class AudienceProfileStore {
+
+    private static final String LOG_SOURCE = "AudienceProfileStore";
+
+    // keys of the stored changes
+    private static final String DELTA_BASE_KEY = "base";
+    private static final String DELTA_CHANGES_KEY = "changes";
+
+    private final NamedCollection localStorage;
+
+    // the profile as stored under the profile key, and with the stored changes applied; both null
+    // until read from the NamedCollection
+    private Map<String, String> compactedProfile;
+    private Map<String, String> persistedProfile;
+    private boolean deltaPersisted;
+    private long writeCount;
+    private long skippedWriteCount;
+    private long compactionCount;
+
+    AudienceProfileStore(@NonNull final NamedCollection localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    /**
+     * Returns the persisted visitor profile, with the changes stored since it was compacted.
+     *
+     * @return a copy of the persisted profile, or null if no profile is persisted
+     */
+    synchronized Map<String, String> load() {
+        final Map<String, String> profile = getPersistedProfile();
+        return profile.isEmpty() ? null : new HashMap<>(profile);
+    }
+
+    /**
+     * Returns whether the given profile matches the persisted one. The {@link NamedCollection} is
+     * not read if no profile was loaded or saved yet.
+     *
+     * @param profile the visitor profile to compare
+     * @return true if {@code profile} is known to be persisted
+     */
+    synchronized boolean isPersisted(final Map<String, String> profile) {
+        return persistedProfile != null && persistedProfile.equals(profile);
+    }
+
+    /**
+     * Persists the given visitor profile in a single write, unless it matches the persisted
+     * profile. Only the entries which differ from the compacted profile are written, unless the
+     * profile is compacted.
+     *
+     * @param profile the non-null visitor profile to persist
+     */
+    synchronized void save(@NonNull final Map<String, String> profile) {
+        final Map<String, String> current = new HashMap<>();
+
+        for (final Map.Entry<String, String> entry : profile.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                current.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (current.equals(getPersistedProfile())) {
+            skippedWriteCount++;
+            return;
+        }
+
+        if (current.isEmpty()) {
+            clear();
+            writeCount++;
+            return;
+        }
+
+        // the profile is written in full if its changes could not be serialized
+        final Map<String, String> delta = getDelta(compactedProfile, current);
+        final String serializedDelta =
+                delta.size() * 2 > current.size() ? null : toJson(compactedProfile, delta);
+        if (serializedDelta == null) {
+            compact(current);
+        } else {
+            localStorage.setString(
+                    AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY,
+                    serializedDelta);
+            deltaPersisted = true;
+        }
+
+        writeCount++;
+        persistedProfile = current;
+    }
+
+    /** Removes the persisted visitor profile and its stored changes. */
+    synchronized void clear() {
+        localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY);
+        localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY);
+        compactedProfile = new HashMap<>();
+        persistedProfile = new HashMap<>();
+        deltaPersisted = false;
+    }
+
+    /**
+     * @return the number of visitor profile writes to the {@link NamedCollection}
+     */
+    synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return the number of visitor profile writes skipped because the profile was unchanged
+     */
+    synchronized long getSkippedWriteCount() {
+        return skippedWriteCount;
+    }
+
+    /**
+     * @return the number of visitor profile writes which wrote the profile in full
+     */
+    synchronized long getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * Writes the given profile in full under the profile key, and removes the stored changes.
+     *
+     * @param profile the non-empty visitor profile to persist
+     */
+    private void compact(final Map<String, String> profile) {
+        localStorage.setMap(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY, profile);
+        if (deltaPersisted) {
+            localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY);
+            deltaPersisted = false;
+        }
+
+        compactionCount++;
+        compactedProfile = profile;
+    }
+
+    /**
+     * Returns the persisted profile, reading it from the {@link NamedCollection} the first time.
+     *
+     * @return the persisted profile, empty if there is none
+     */
+    private Map<String, String> getPersistedProfile() {
+        if (persistedProfile != null) {
+            return persistedProfile;
+        }
+
+        Map<String, String> profile = null;
+        if (localStorage.contains(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY)) {
+            profile =
+                    localStorage.getMap(
+                            AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY);
+        }
+
+        compactedProfile = profile != null ? new HashMap<>(profile) : new HashMap<>();
+        persistedProfile = new HashMap<>(compactedProfile);
+
+        final String delta =
+                localStorage.getString(
+                        AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY, null);
+        if (delta != null) {
+            deltaPersisted = true;
+            applyDelta(delta, compactedProfile, persistedProfile);
+        }
+
+        return persistedProfile;
+    }
+
+    /**
+     * Applies the stored changes to the given profile. Changes which cannot be parsed, or which
+     * were computed against another compacted profile, are ignored and overwritten by the next
+     * save.
+     *
+     * @param delta the stored changes, see {@link #toJson(Map, Map)}
+     * @param compacted the compacted profile read from the profile key
+     * @param profile the profile to update
+     */
+    private static void applyDelta(
+            final String delta,
+            final Map<String, String> compacted,
+            final Map<String, String> profile) {
+        try {
+            final JSONObject storedDelta = new JSONObject(delta);
+            if (storedDelta.getInt(DELTA_BASE_KEY) != compacted.hashCode()) {
+                Log.debug(
+                        LOG_TAG,
+                        LOG_SOURCE,
+                        "Ignoring the stored visitor profile changes, the profile was rewritten.");
+                return;
+            }
+
+            final JSONObject changes = storedDelta.getJSONObject(DELTA_CHANGES_KEY);
+            final Iterator<String> keys = changes.keys();
+            while (keys.hasNext()) {
+                final String key = keys.next();
+                if (changes.isNull(key)) {
+                    profile.remove(key);
+                } else {
+                    profile.put(key, changes.getString(key));
+                }
+            }
+        } catch (final JSONException e) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unable to read the stored visitor profile changes - %s",
+                    e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Serializes the given changes to a JSON object holding the hash code of the compacted profile
+     * under {@link #DELTA_BASE_KEY}, and the changes under {@link #DELTA_CHANGES_KEY}.
+     *
+     * @param compacted the compacted profile the changes apply to
+     * @param delta the changes, with a null value for each removed entry
+     * @return the JSON object, or null if it could not be serialized
+     */
+    private static String toJson(
+            final Map<String, String> compacted, final Map<String, String> delta) {
+        try {
+            final JSONObject changes = new JSONObject();
+            for (final Map.Entry<String, String> entry : delta.entrySet()) {
+                changes.put(
+                        entry.getKey(),
+                        entry.getValue() != null ? entry.getValue() : JSONObject.NULL);
+            }
+
+            final JSONObject storedDelta = new JSONObject();
+            storedDelta.put(DELTA_BASE_KEY, compacted.hashCode());
+            storedDelta.put(DELTA_CHANGES_KEY, changes);
+            return storedDelta.toString();
+        } catch (final JSONException e) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unable to serialize the visitor profile changes - %s",
+                    e.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Computes the changes between two profiles.
+     *
+     * @param previous the compacted profile
+     * @param current the profile to persist
+     * @return the entries of {@code current} which differ from {@code previous}, and a null value
+     *     for each entry of {@code previous} which is not part of {@code current}
+     */
+    private static Map<String, String> getDelta(
+            final Map<String, String> previous, final Map<String, String> current) {
+        final Map<String, String> delta = new HashMap<>();
+        for (final Map.Entry<String, String> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                delta.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (final String key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                delta.put(key, null);
+            }
+        }
+
+        return delta;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.Event;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the signal hits waiting in the hit queue, so a signal identical to a queued one is folded
+ * into it instead of being queued again.
+ *
+ * <p>Signals are identical when their request URLs, which hold the server, identities and traits,
+ * and their timeouts are the same. Hits are looked up by a 64-bit hash of their URL and timeout,
+ * and their URL is compared before a signal is folded, for at most {@link
+ * AudienceConstants#MAX_QUEUED_SIGNAL_INDEX_ENTRIES} hits. The request events of the folded signals
+ * are handed back when the response of the queued hit is handled, so they receive the same
+ * response. A hit stops accepting folded signals once its response was handled, even if it is
+ * retried afterwards.
+ */
+class AudienceQueuedSignalIndex {
+
+    // request URL hashes of the queued hits, to the ids of their request events
+    private final Map<Long, String> eventIdsByHash = new HashMap<>();
+    private final Map<String, QueuedSignal> queuedSignals = new HashMap<>();
+
+    private boolean enabled;
+    private long foldedCount;
+
+    /**
+     * Enables or disables folding identical signals. The hits already indexed keep the signals
+     * folded into them until their response is handled.
+     *
+     * @param enabled true to fold signals identical to a queued one
+     */
+    synchronized void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Folds a signal into an identical queued hit, if any.
+     *
+     * @param url the request URL of the signal
+     * @param timeoutSec the network timeout for the signal, in seconds
+     * @param event the request {@link Event} for the signal
+     * @param pairedEvents the request events already paired with {@code event}, may be null
+     * @return true if the signal was folded and should not be queued
+     */
+    synchronized boolean fold(
+            @NonNull final String url,
+            final int timeoutSec,
+            @NonNull final Event event,
+            final List<Event> pairedEvents) {
+        if (!enabled) {
+            return false;
+        }
+
+        final String queuedEventId = eventIdsByHash.get(AudienceUrlHash.hash(url, timeoutSec));
+        final QueuedSignal queuedSignal =
+                queuedEventId != null ? queuedSignals.get(queuedEventId) : null;
+        // signals with different URLs may have the same hash
+        if (queuedSignal == null
+                || queuedSignal.timeoutSec != timeoutSec
+                || !queuedSignal.url.equals(url)) {
+            return false;
+        }
+
+        queuedSignal.foldedEvents.add(event);
+        if (pairedEvents != null) {
+            queuedSignal.foldedEvents.addAll(pairedEvents);
+        }
+
+        foldedCount++;
+        return true;
+    }
+
+    /**
+     * Indexes a signal hit before it is queued, so its response cannot be handled before it is
+     * indexed.
+     *
+     * @param url the request URL of the hit
+     * @param timeoutSec the network timeout for the hit, in seconds
+     * @param eventId the unique identifier of the request event of the hit
+     */
+    synchronized void add(@NonNull final String url, final int timeoutSec, final String eventId) {
+        if (!enabled
+                || eventId == null
+                || queuedSignals.size() >= AudienceConstants.MAX_QUEUED_SIGNAL_INDEX_ENTRIES) {
+            return;
+        }
+
+        final long hash = AudienceUrlHash.hash(url, timeoutSec);
+        if (eventIdsByHash.containsKey(hash)) {
+            return;
+        }
+
+        eventIdsByHash.put(hash, eventId);
+        queuedSignals.put(eventId, new QueuedSignal(hash, url, timeoutSec));
+    }
+
+    /**
+     * Removes a hit whose response is being handled from the index.
+     *
+     * @param eventId the unique identifier of the request event of the hit
+     * @return the request events of the signals folded into the hit, in the order they were
+     *     submitted
+     */
+    @NonNull synchronized List<Event> release(final String eventId) {
+        final QueuedSignal queuedSignal = eventId != null ? queuedSignals.remove(eventId) : null;
+        if (queuedSignal == null) {
+            return Collections.emptyList();
+        }
+
+        eventIdsByHash.remove(queuedSignal.hash);
+        return queuedSignal.foldedEvents;
+    }
+
+    /** Removes all the hits from the index, once the hit queue is cleared. */
+    synchronized void clear() {
+        eventIdsByHash.clear();
+        queuedSignals.clear();
+    }
+
+    /**
+     * @return the number of signals folded into a queued hit
+     */
+    synchronized long getFoldedCount() {
+        return foldedCount;
+    }
+
+    /** A queued signal hit and the request events of the signals folded into it. */
+    private static final class QueuedSignal {
+
+        private final long hash;
+        private final String url;
+        private final int timeoutSec;
+        private final List<Event> foldedEvents = new ArrayList<>();
+
+        QueuedSignal(final long hash, final String url, final int timeoutSec) {
+            this.hash = hash;
+            this.url = url;
+            this.timeoutSec = timeoutSec;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONException;
+
+/**
+ * Single pass parser for Audience Manager {@code /event} responses.
+ *
+ * <p>Reads the response directly from a {@link Reader} and only keeps the values used by the
+ * {@link AudienceExtension}: the {@code uuid}, the URLs of the {@code dests} array and the segments
+ * of the {@code stuff} array. Every other value is skipped without being materialized. Like the
+ * {@code org.json} parser it replaces, it accepts both single and double quoted strings.
+ */
+final class AudienceResponseParser {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int MAX_DEPTH = 64;
+    private static final int END_OF_INPUT = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder scratch = new StringBuilder();
+    private int position;
+    private int limit;
+
+    private AudienceResponseParser(final Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parses an Audience Manager response.
+     *
+     * @param reader the {@link Reader} for the response payload
+     * @return the parsed {@link Response}
+     * @throws JSONException if the payload is not a valid JSON object
+     * @throws IOException if the payload could not be read
+     */
+    @NonNull static Response parse(@NonNull final Reader reader) throws JSONException, IOException {
+        return new AudienceResponseParser(reader).parseResponse();
+    }
+
+    /**
+     * Creates a {@link Reader} for a UTF-8 encoded response stream. The reader fails with an {@link
+     * IOException} once more than {@code maxBytes} bytes have been read from the stream.
+     *
+     * @param stream the {@link InputStream} of the response
+     * @param maxBytes the maximum number of bytes to read from {@code stream}
+     * @return a {@code Reader} for the response
+     */
+    @NonNull static Reader newReader(@NonNull final InputStream stream, final int maxBytes) {
+        return new InputStreamReader(
+                new LimitedInputStream(stream, maxBytes), StandardCharsets.UTF_8);
+    }
+
+    private Response parseResponse() throws JSONException, IOException {
+        final Response response = new Response();
+        expect('{');
+
+        if (peekToken() == '}') {
+            read();
+            return response;
+        }
+
+        do {
+            final String key = readKey();
+            expect(':');
+
+            if (AudienceConstants.AUDIENCE_MANAGER_JSON_USER_ID_KEY.equals(key)) {
+                response.uuid = readScalar();
+            } else if (AudienceConstants.AUDIENCE_MANAGER_JSON_DESTS_KEY.equals(key)
+                    && peekToken() == '[') {
+                response.destUrls = new ArrayList<>();
+                readDests(response.destUrls);
+            } else if (AudienceConstants.AUDIENCE_MANAGER_JSON_STUFF_KEY.equals(key)
+                    && peekToken() == '[') {
+                response.segments = new HashMap<>();
+                readStuff(response.segments);
+            } else {
+                skipValue(1);
+            }
+        } while (readSeparator('}'));
+
+        return response;
+    }
+
+    /**
+     * Reads the {@code dests} array, collecting the non empty destination URLs.
+     *
+     * @param destUrls the {@code List} to add the destination URLs to
+     */
+    private void readDests(final List<String> destUrls) throws JSONException, IOException {
+        final String[] values = new String[1];
+        expect('[');
+
+        if (peekToken() == ']') {
+            read();
+            return;
+        }
+
+        do {
+            if (peekToken() != '{') {
+                skipValue(2);
+                continue;
+            }
+
+            values[0] = null;
+            readObjectFields(values, AudienceConstants.AUDIENCE_MANAGER_JSON_URL_KEY, null);
+
+            if (values[0] != null && !values[0].isEmpty()) {
+                destUrls.add(values[0]);
+            }
+        } while (readSeparator(']'));
+    }
+
+    /**
+     * Reads the {@code stuff} array, collecting the segments with a non empty cookie name.
+     *
+     * @param segments the {@code Map} to add the segments to
+     */
+    private void readStuff(final Map<String, String> segments) throws JSONException, IOException {
+        final String[] values = new String[2];
+        expect('[');
+
+        if (peekToken() == ']') {
+            read();
+            return;
+        }
+
+        do {
+            if (peekToken() != '{') {
+                skipValue(2);
+                continue;
+            }
+
+            values[0] = null;
+            values[1] = null;
+            readObjectFields(
+                    values,
+                    AudienceConstants.AUDIENCE_MANAGER_JSON_COOKIE_NAME_KEY,
+                    AudienceConstants.AUDIENCE_MANAGER_JSON_COOKIE_VALUE_KEY);
+
+            if (values[0] != null && !values[0].isEmpty()) {
+                segments.put(values[0], values[1] != null ? values[1] : "");
+            }
+        } while (readSeparator(']'));
+    }
+
+    /**
+     * Reads an object nested in one of the arrays of the response, keeping the scalar values of at
+     * most two keys.
+     *
+     * @param values receives the value of {@code firstKey} at index 0 and of {@code secondKey} at
+     *     index 1
+     * @param firstKey the first key to read
+     * @param secondKey the second key to read, may be null
+     */
+    private void readObjectFields(
+            final String[] values, final String firstKey, final String secondKey)
+            throws JSONException, IOException {
+        expect('{');
+
+        if (peekToken() == '}') {
+            read();
+            return;
+        }
+
+        do {
+            final String key = readKey();
+            expect(':');
+
+            if (key.equals(firstKey)) {
+                values[0] = readScalar();
+            } else if (key.equals(secondKey)) {
+                values[1] = readScalar();
+            } else {
+                skipValue(3);
+            }
+        } while (readSeparator('}'));
+    }
+
+    /**
+     * Reads a scalar value as a {@code String}. Numbers and booleans are returned as written in
+     * the payload, {@code null} is returned as null, and objects or arrays are skipped.
+     *
+     * @return the value, or null if it is {@code null}, an object or an array
+     */
+    private String readScalar() throws JSONException, IOException {
+        final int c = peekToken();
+        if (c == '"' || c == '\'') {
+            return readString();
+        }
+
+        if (c == '{' || c == '[') {
+            skipValue(1);
+            return null;
+        }
+
+        final String literal = readLiteral();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private String readKey() throws JSONException, IOException {
+        final int c = peekToken();
+        return c == '"' || c == '\'' ? readString() : readLiteral();
+    }
+
+    /** Reads a quoted string, resolving its escape sequences. */
+    private String readString() throws JSONException, IOException {
+        final int quote = read();
+        scratch.setLength(0);
+
+        while (true) {
+            final int c = read();
+            if (c == quote) {
+                return scratch.toString();
+            }
+
+            if (c == END_OF_INPUT || c == '\n' || c == '\r') {
+                throw syntaxError("Unterminated string");
+            }
+
+            scratch.append(c == '\\' ? readEscapedChar() : (char) c);
+        }
+    }
+
+    private char readEscapedChar() throws JSONException, IOException {
+        final int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+
+                    value = (value << 4) | digit;
+                }
+
+                return (char) value;
+            case END_OF_INPUT:
+                throw syntaxError("Unterminated escape sequence");
+            default:
+                return (char) c;
+        }
+    }
+
+    /** Reads an unquoted literal such as a number, {@code true}, {@code false} or {@code null}. */
+    private String readLiteral() throws JSONException, IOException {
+        scratch.setLength(0);
+
+        while (true) {
+            final int c = peek();
+            if (c == END_OF_INPUT || isDelimiter(c)) {
+                break;
+            }
+
+            scratch.append((char) read());
+        }
+
+        if (scratch.length() == 0) {
+            throw syntaxError("Expected a value");
+        }
+
+        return scratch.toString();
+    }
+
+    /**
+     * Skips the next value, including any nested objects and arrays.
+     *
+     * @param depth the nesting depth of the value
+     */
+    private void skipValue(final int depth) throws JSONException, IOException {
+        if (depth > MAX_DEPTH) {
+            throw syntaxError("Nesting too deep");
+        }
+
+        final int c = peekToken();
+        if (c == '"' || c == '\'') {
+            skipString();
+        } else if (c == '{') {
+            read();
+            if (peekToken() == '}') {
+                read();
+                return;
+            }
+
+            do {
+                readKey();
+                expect(':');
+                skipValue(depth + 1);
+            } while (readSeparator('}'));
+        } else if (c == '[') {
+            read();
+            if (peekToken() == ']') {
+                read();
+                return;
+            }
+
+            do {
+                skipValue(depth + 1);
+            } while (readSeparator(']'));
+        } else {
+            readLiteral();
+        }
+    }
+
+    private void skipString() throws JSONException, IOException {
+        final int quote = read();
+
+        while (true) {
+            final int c = read();
+            if (c == quote) {
+                return;
+            }
+
+            if (c == END_OF_INPUT || c == '\n' || c == '\r') {
+                throw syntaxError("Unterminated string");
+            }
+
+            if (c == '\\' && read() == END_OF_INPUT) {
+                throw syntaxError("Unterminated escape sequence");
+            }
+        }
+    }
+
+    /**
+     * Reads the separator following a member of an object or an element of an array.
+     *
+     * @param end the character closing the current object or array
+     * @return true if another member or element follows, false if the object or array ended
+     */
+    private boolean readSeparator(final char end) throws JSONException, IOException {
+        final int c = readToken();
+        if (c == ',') {
+            return true;
+        }
+
+        if (c == end) {
+            return false;
+        }
+
+        throw syntaxError("Expected ',' or '" + end + "'");
+    }
+
+    private void expect(final char expected) throws JSONException, IOException {
+        if (readToken() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private int readToken() throws IOException {
+        peekToken();
+        return read();
+    }
+
+    /** Skips whitespace and returns the next character without consuming it. */
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            position++;
+            c = peek();
+        }
+
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        final int count = reader.read(buffer, 0, BUFFER_SIZE);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private static boolean isDelimiter(final int c) {
+        switch (c) {
+            case ',':
+            case ':':
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static JSONException syntaxError(final String message) {
+        return new JSONException(message);
+    }
+
+    /** {@link InputStream} which fails once more than a maximum number of bytes have been read. */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remainingBytes;
+
+        LimitedInputStream(final InputStream stream, final int maxBytes) {
+            super(stream);
+            this.remainingBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int c = super.read();
+            if (c != END_OF_INPUT) {
+                consume(1);
+            }
+
+            return c;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length)
+                throws IOException {
+            final int count = super.read(bytes, offset, length);
+            if (count > 0) {
+                consume(count);
+            }
+
+            return count;
+        }
+
+        private void consume(final int count) throws IOException {
+            remainingBytes -= count;
+            if (remainingBytes < 0) {
+                throw new IOException("Response exceeds the maximum allowed size");
+            }
+        }
+    }
+
+    /** The values of an Audience Manager response used by the {@link AudienceExtension}. */
+    static final class Response {
+
+        private String uuid;
+        private List<String> destUrls;
+        private Map<String, String> segments;
+
+        /**
+         * @return the {@code uuid} of the response, or null if the response has no uuid
+         */
+        String getUuid() {
+            return uuid;
+        }
+
+        /**
+         * @return the non empty destination URLs of the {@code dests} array, or null if the
+         *     response has no {@code dests} array
+         */
+        List<String> getDestUrls() {
+            return destUrls;
+        }
+
+        /**
+         * @return the segments of the {@code stuff} array, or null if the response has no {@code
+         *     stuff} array
+         */
+        Map<String, String> getSegments() {
+            return segments;
+        }
+    }
+}
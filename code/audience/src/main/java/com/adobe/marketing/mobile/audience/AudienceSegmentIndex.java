@@ -0,0 +1,118 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index over the segments of a visitor profile.
+ *
+ * <p>The cookie names ({@code cn}) of the profile are kept in a sorted array, so names with a
+ * given prefix are found by binary search. The segment ids listed in the cookie values ({@code
+ * cv}), such as {@code 123} and {@code 456} in {@code segs=123,456}, are kept in a hash set.
+ */
+final class AudienceSegmentIndex {
+
+    private static final char KEY_VALUE_SEPARATOR = '=';
+    private static final char SEGMENT_ID_SEPARATOR = ',';
+
+    private final String[] names;
+    private final Set<String> segmentIds = new HashSet<>();
+
+    /**
+     * Builds the index of a visitor profile.
+     *
+     * @param profile the visitor profile, may be null
+     */
+    AudienceSegmentIndex(final Map<String, String> profile) {
+        if (profile == null) {
+            names = new String[0];
+            return;
+        }
+
+        names = profile.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+
+        for (final String value : profile.values()) {
+            addSegmentIds(value);
+        }
+    }
+
+    /**
+     * Returns whether the visitor belongs to the given segment, either because one of the profile
+     * values lists it as a segment id or because it is the name of a profile entry.
+     *
+     * @param segment the segment id or cookie name to look up
+     * @return true if the visitor belongs to {@code segment}
+     */
+    boolean isInSegment(@NonNull final String segment) {
+        return segmentIds.contains(segment) || Arrays.binarySearch(names, segment) >= 0;
+    }
+
+    /**
+     * Returns the names of the profile entries starting with the given prefix.
+     *
+     * @param prefix the prefix of the names to return, an empty prefix matches every name
+     * @return an unmodifiable, sorted {@code List<String>} backed by this index
+     */
+    @NonNull List<String> getSegments(@NonNull final String prefix) {
+        final int from = lowerBound(prefix);
+        int to = from;
+        while (to < names.length && names[to].startsWith(prefix)) {
+            to++;
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(names).subList(from, to));
+    }
+
+    private int lowerBound(final String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (names[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private void addSegmentIds(final String value) {
+        if (value == null) {
+            return;
+        }
+
+        int start = value.indexOf(KEY_VALUE_SEPARATOR) + 1;
+        while (start <= value.length()) {
+            int end = value.indexOf(SEGMENT_ID_SEPARATOR, start);
+            if (end < 0) {
+                end = value.length();
+            }
+
+            final String segmentId = value.substring(start, end).trim();
+            if (!segmentId.isEmpty()) {
+                segmentIds.add(segmentId);
+            }
+
+            start = end + 1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.SharedStateResolution;
+import com.adobe.marketing.mobile.SharedStateResult;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the shared states needed while processing an event, fetching each of them at most once
+ * per event.
+ *
+ * <p>A context is started for an event by {@link #begin(Event)}, which the extension calls from
+ * {@code readyForEvent} before every processing attempt. Shared states requested for that event
+ * afterwards are returned from the context, while requests for any other event are always
+ * forwarded to the {@link ExtensionApi}. The number of lookups answered from the context is
+ * available from {@link #getSavedLookupCount()}.
+ */
+class AudienceSharedStateContext {
+
+    private final ExtensionApi extensionApi;
+    private final Map<String, SharedStateResult> results = new HashMap<>();
+    private String eventId;
+    private long savedLookupCount;
+
+    AudienceSharedStateContext(@NonNull final ExtensionApi extensionApi) {
+        this.extensionApi = extensionApi;
+    }
+
+    /**
+     * Starts a new context for the given event, discarding the shared states resolved for the
+     * previous one.
+     *
+     * @param event the {@link Event} about to be processed
+     */
+    synchronized void begin(@NonNull final Event event) {
+        results.clear();
+        eventId = event.getUniqueIdentifier();
+    }
+
+    /**
+     * Returns the last set shared state of an extension for the given event.
+     *
+     * @param extensionName the name of the extension owning the shared state
+     * @param event the {@link Event} for which the shared state is requested
+     * @return the {@link SharedStateResult}, or null if the shared state is unavailable
+     */
+    SharedStateResult get(@NonNull final String extensionName, @NonNull final Event event) {
+        final String id = event.getUniqueIdentifier();
+
+        synchronized (this) {
+            if (id.equals(eventId) && results.containsKey(extensionName)) {
+                savedLookupCount++;
+                return results.get(extensionName);
+            }
+        }
+
+        final SharedStateResult result = fetch(extensionName, event);
+
+        synchronized (this) {
+            // only the current event is memoized, and the context may have moved on while fetching
+            if (id.equals(eventId)) {
+                results.put(extensionName, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of shared state lookups answered from a context instead of the {@link
+     *     ExtensionApi}
+     */
+    synchronized long getSavedLookupCount() {
+        return savedLookupCount;
+    }
+
+    private SharedStateResult fetch(final String extensionName, final Event event) {
+        return extensionApi.getSharedState(
+                extensionName, event, false, SharedStateResolution.LAST_SET);
+    }
+}
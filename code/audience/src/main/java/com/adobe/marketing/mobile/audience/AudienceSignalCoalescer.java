@@ -0,0 +1,287 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static com.adobe.marketing.mobile.audience.AudienceConstants.LOG_TAG;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.services.Log;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the traits of signals submitted within a short time window into a single signal.
+ *
+ * <p>The first signal added opens a window of the configured length. Signals added while the
+ * window is open are merged into the pending signal if they share its signal URL prefix, which
+ * holds the server and identities, and their traits do not conflict with the traits already
+ * merged, otherwise the pending signal is released first. The pending signal is released to the
+ * {@link SignalCallback} when {@link #flush()} is called.
+ *
+ * <p>The window timer does not release the signal itself, it notifies the {@link WindowCallback}
+ * on a background thread. The owner is expected to call {@link #flushWindow(long)} from the thread
+ * which adds signals, so the signals are always released in order with the other work of that
+ * thread.
+ */
+class AudienceSignalCoalescer {
+
+    private static final String LOG_SOURCE = "AudienceSignalCoalescer";
+
+    /** Callback notified when a coalesced signal is ready to be queued. */
+    interface SignalCallback {
+        /**
+         * Called when the window of a coalesced signal closed.
+         *
+         * @param signal the {@link CoalescedSignal} to be queued
+         */
+        void onSignalReady(@NonNull final CoalescedSignal signal);
+    }
+
+    /** Callback notified when the window of a pending coalesced signal closed. */
+    interface WindowCallback {
+        /**
+         * Called on the window timer thread when the window of a coalesced signal closed.
+         *
+         * @param windowId the identifier of the window to pass to {@link #flushWindow(long)}
+         */
+        void onWindowClosed(final long windowId);
+    }
+
+    private final SignalCallback callback;
+    private final WindowCallback windowCallback;
+    private long lastWindowId;
+    private ScheduledExecutorService executor;
+    private CoalescedSignal pendingSignal;
+    private ScheduledFuture<?> pendingFlush;
+
+    AudienceSignalCoalescer(
+            @NonNull final SignalCallback callback, @NonNull final WindowCallback windowCallback) {
+        this.callback = callback;
+        this.windowCallback = windowCallback;
+    }
+
+    /**
+     * Adds a signal to the pending coalesced signal, or opens a new window for it.
+     *
+     * @param urlPrefix the signal URL without the customer traits, or null if it is invalid
+     * @param timeoutSec the network timeout for the signal, in seconds
+     * @param traits the customer traits of the signal, may be null
+     * @param event the request {@link Event} for the signal
+     * @param windowMillis the length of the window opened for a new coalesced signal, in
+     *     milliseconds
+     */
+    void add(
+            final String urlPrefix,
+            final int timeoutSec,
+            final Map<String, String> traits,
+            @NonNull final Event event,
+            final long windowMillis) {
+        final Map<String, String> signalTraits =
+                traits != null ? traits : Collections.<String, String>emptyMap();
+        CoalescedSignal readySignal = null;
+
+        synchronized (this) {
+            if (pendingSignal != null
+                    && !pendingSignal.canMerge(urlPrefix, timeoutSec, signalTraits)) {
+                readySignal = takePendingSignal();
+            }
+
+            if (pendingSignal == null) {
+                final long windowId = ++lastWindowId;
+                pendingSignal = new CoalescedSignal(windowId, urlPrefix, timeoutSec);
+                pendingFlush =
+                        getExecutor()
+                                .schedule(
+                                        () -> windowCallback.onWindowClosed(windowId),
+                                        windowMillis,
+                                        TimeUnit.MILLISECONDS);
+            }
+
+            pendingSignal.merge(signalTraits, event);
+        }
+
+        if (readySignal != null) {
+            callback.onSignalReady(readySignal);
+        }
+    }
+
+    /** Releases the pending coalesced signal, if any, without waiting for its window to close. */
+    void flush() {
+        final CoalescedSignal readySignal;
+        synchronized (this) {
+            readySignal = takePendingSignal();
+        }
+
+        if (readySignal != null) {
+            callback.onSignalReady(readySignal);
+        }
+    }
+
+    /**
+     * Releases the pending coalesced signal of the given window, if it is still pending.
+     *
+     * @param windowId the identifier of the window which closed
+     */
+    void flushWindow(final long windowId) {
+        final CoalescedSignal readySignal;
+        synchronized (this) {
+            readySignal =
+                    pendingSignal != null && pendingSignal.windowId == windowId
+                            ? takePendingSignal()
+                            : null;
+        }
+
+        if (readySignal != null) {
+            callback.onSignalReady(readySignal);
+        }
+    }
+
+    /**
+     * Drops the pending coalesced signal, if any, without releasing it.
+     *
+     * @return the request events of the dropped signals, in the order they were added
+     */
+    @NonNull synchronized List<Event> discard() {
+        final CoalescedSignal signal = takePendingSignal();
+        return signal != null ? signal.events : Collections.<Event>emptyList();
+    }
+
+    /** Releases the pending coalesced signal and stops the window timer. */
+    void shutdown() {
+        flush();
+
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Removes the pending coalesced signal and cancels its window timer. Must be called while
+     * holding the lock on this instance.
+     *
+     * @return the pending {@link CoalescedSignal}, or null if there is none
+     */
+    private CoalescedSignal takePendingSignal() {
+        final CoalescedSignal signal = pendingSignal;
+        pendingSignal = null;
+
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        if (signal != null && signal.events.size() > 1) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Coalesced %d signals into a single Audience Manager hit.",
+                    signal.events.size());
+        }
+
+        return signal;
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            // the window timer must not keep the application process alive
+            executor =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                final Thread thread = new Thread(runnable, LOG_SOURCE);
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+        }
+
+        return executor;
+    }
+
+    /** The merged traits and request events of the signals submitted within one window. */
+    static final class CoalescedSignal {
+
+        private final long windowId;
+        private final String urlPrefix;
+        private final int timeoutSec;
+        private final Map<String, String> traits = new LinkedHashMap<>();
+        private final List<Event> events = new ArrayList<>();
+
+        private CoalescedSignal(final long windowId, final String urlPrefix, final int timeoutSec) {
+            this.windowId = windowId;
+            this.urlPrefix = urlPrefix;
+            this.timeoutSec = timeoutSec;
+        }
+
+        /**
+         * @return the signal URL without the customer traits, or null if it is invalid
+         */
+        String getUrlPrefix() {
+            return urlPrefix;
+        }
+
+        /**
+         * @return the network timeout for the signal, in seconds
+         */
+        int getTimeoutSec() {
+            return timeoutSec;
+        }
+
+        /**
+         * @return the merged customer traits of all coalesced signals
+         */
+        Map<String, String> getTraits() {
+            return traits;
+        }
+
+        /**
+         * @return the request events of all coalesced signals, in the order they were added
+         */
+        List<Event> getEvents() {
+            return events;
+        }
+
+        private boolean canMerge(
+                final String urlPrefix, final int timeoutSec, final Map<String, String> traits) {
+            if (!equals(this.urlPrefix, urlPrefix) || this.timeoutSec != timeoutSec) {
+                return false;
+            }
+
+            for (Map.Entry<String, String> trait : traits.entrySet()) {
+                if (this.traits.containsKey(trait.getKey())
+                        && !equals(this.traits.get(trait.getKey()), trait.getValue())) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void merge(final Map<String, String> traits, final Event event) {
+            this.traits.putAll(traits);
+            this.events.add(event);
+        }
+
+        private static boolean equals(final String first, final String second) {
+            return first == null ? second == null : first.equals(second);
+        }
+    }
+}
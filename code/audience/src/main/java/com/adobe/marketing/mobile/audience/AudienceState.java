@@ -20,32 +20,54 @@ import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.StringUtils;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AudienceState class is responsible for the following:
  *
  * <ol>
  *   <li>Keeping the current state of all Audience-related variables.
- *   <li>Persisting variables via {@link NamedCollection}.
+ *   <li>Persisting variables via {@link NamedCollection}. Visitor profile updates are written
+ *       behind on a background thread through an {@link AudienceProfileStore}, while removals are
+ *       written immediately.
  *   <li>Providing getters and setters for all maintained variables.
  * </ol>
+ *
+ * <p>The state variables are held in an immutable {@link StateRecord}. Updates are serialized on
+ * the lock of this {@code AudienceState}, which also orders the matching persistence writes, and
+ * publish a new record. Getters read the current record without locking, so a reader never sees a
+ * partially applied update, whichever thread the update came from.
  */
 class AudienceState {
 
     private static final String LOG_SOURCE = "AudienceState";
 
     private final NamedCollection localStorage;
+    private final AudienceProfileStore profileStore;
+
+    // the current state variables, only replaced while holding the lock of this AudienceState
+    private volatile StateRecord state = StateRecord.INITIAL;
+
+    // shared state data and the record it was built from, reused while that record is current
+    private volatile StateDataSnapshot stateDataSnapshot;
+
+    // guarded by the lock of this AudienceState
+    private long avoidedPersistenceReadCount;
 
-    // configuration settings
-    private String uuid = null;
-    private Map<String, String> visitorProfile = null;
-    private MobilePrivacyStatus privacyStatus = AudienceConstants.DEFAULT_PRIVACY_STATUS;
+    // incremented each time the identifiers are cleared, only written while holding the lock
+    private volatile long resetGeneration;
 
-    private long
-            lastResetTimestampMillis; // Stores the timestamp for most recent resetIdentities API
-    // call
+    // write-behind state of the persisted visitor profile, guarded by persistenceLock
+    private final Object persistenceLock = new Object();
+    private Map<String, String> pendingVisitorProfile;
+    private ScheduledFuture<?> pendingVisitorProfileWrite;
+    private ScheduledExecutorService persistenceExecutor;
 
     /** Constructor. */
     AudienceState() {
@@ -64,13 +86,15 @@ class AudienceState {
         } else {
             this.localStorage = namedCollection;
         }
+
+        this.profileStore = localStorage != null ? new AudienceProfileStore(localStorage) : null;
     }
 
     // ========================================================
     // package-protected methods
     // ========================================================
     /**
-     * Sets the value of this {@link #uuid} property.
+     * Sets the value of this {@code uuid} property.
      *
      * <p>Persists the new value to the data store returned by {@link
      * ServiceProvider#getDataStoreService()}.
@@ -80,10 +104,14 @@ class AudienceState {
      *
      * @param uuid {@link String} containing the new value for {@code uuid}
      */
-    void setUuid(final String uuid) {
+    synchronized void setUuid(final String uuid) {
+        final StateRecord current = state;
+        final MobilePrivacyStatus privacyStatus = current.privacyStatus;
+
         // update uuid locally
-        if (StringUtils.isNullOrEmpty(uuid) || privacyStatus != MobilePrivacyStatus.OPT_OUT) {
-            this.uuid = uuid;
+        if ((StringUtils.isNullOrEmpty(uuid) || privacyStatus != MobilePrivacyStatus.OPT_OUT)
+                && !equals(current.uuid, uuid)) {
+            state = current.withUuid(uuid, current.uuidLoaded);
         }
 
         // update uuid in data store
@@ -105,21 +133,31 @@ class AudienceState {
     }
 
     /**
-     * Sets the value of this {@link #visitorProfile} property.
+     * Sets the value of this {@code visitorProfile} property.
      *
-     * <p>Persists the new value to the {@link NamedCollection} for the Audience extension.
+     * <p>Persists the new value to the {@link NamedCollection} for the Audience extension. A
+     * non-empty profile is written in the background {@link
+     * AudienceConstants#VISITOR_PROFILE_WRITE_DELAY_MILLIS} after the first update not yet
+     * written, and not at all if it matches the persisted profile. Updates made in the meantime
+     * replace the pending profile without delaying the write, and {@link #flushPersistence()}
+     * writes it right away. Clearing the profile drops the pending write and removes the profile
+     * from persistence on the calling thread.
      *
      * <p>Setting the identifier is ignored if the global privacy is set to {@link
      * MobilePrivacyStatus#OPT_OUT}.
      *
      * @param visitorProfile {@code Map<String, String>} containing the new {@code visitorProfile}
      */
-    void setVisitorProfile(final Map<String, String> visitorProfile) {
-        // update visitorProfile locally
-        if (visitorProfile == null
-                || visitorProfile.isEmpty()
-                || privacyStatus != MobilePrivacyStatus.OPT_OUT) {
-            this.visitorProfile = visitorProfile;
+    synchronized void setVisitorProfile(final Map<String, String> visitorProfile) {
+        final StateRecord current = state;
+        final MobilePrivacyStatus privacyStatus = current.privacyStatus;
+
+        // update visitorProfile locally, the record keeps its own copy of the profile
+        if ((visitorProfile == null
+                        || visitorProfile.isEmpty()
+                        || privacyStatus != MobilePrivacyStatus.OPT_OUT)
+                && !equals(current.visitorProfile, visitorProfile)) {
+            state = current.withVisitorProfile(visitorProfile, current.visitorProfileLoaded);
         }
 
         // update the visitor profile in the data store
@@ -133,10 +171,13 @@ class AudienceState {
         }
 
         if (visitorProfile == null || visitorProfile.isEmpty()) {
-            localStorage.remove(AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY);
+            synchronized (persistenceLock) {
+                // a pending write must not restore the profile after it was cleared
+                cancelPendingVisitorProfileWrite();
+                profileStore.clear();
+            }
         } else if (privacyStatus != MobilePrivacyStatus.OPT_OUT) {
-            localStorage.setMap(
-                    AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY, visitorProfile);
+            scheduleVisitorProfileWrite(visitorProfile);
         }
     }
 
@@ -145,70 +186,45 @@ class AudienceState {
      *
      * @param privacyStatus the {@link MobilePrivacyStatus} to set for this {@link AudienceState}
      */
-    void setMobilePrivacyStatus(final MobilePrivacyStatus privacyStatus) {
-        this.privacyStatus = privacyStatus;
+    synchronized void setMobilePrivacyStatus(final MobilePrivacyStatus privacyStatus) {
+        final StateRecord current = state;
+        if (current.privacyStatus != privacyStatus) {
+            state = current.withPrivacyStatus(privacyStatus);
+        }
+
         if (privacyStatus == MobilePrivacyStatus.OPT_OUT) {
             clearIdentifiers();
         }
     }
 
     /**
-     * Returns this {@link #uuid}.
+     * Returns this {@code uuid}.
      *
      * <p>If there is no {@code uuid} value in memory, this method attempts to find one from the
-     * {@link NamedCollection}.
+     * {@link NamedCollection}. The {@code NamedCollection} is read at most once, as every later
+     * change of the persisted value goes through {@link #setUuid(String)}.
      *
      * @return {@link String} containing {@code uuid} value
      */
     String getUuid() {
-        if (StringUtils.isNullOrEmpty(uuid)) {
-            // load uuid from data store if we have one
-            if (localStorage == null) {
-                Log.warning(
-                        LOG_TAG,
-                        LOG_SOURCE,
-                        "Unable to retrieve uuid from persistence - persistence could not be"
-                                + " accessed.");
-                return uuid;
-            }
-
-            uuid =
-                    localStorage.getString(
-                            AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY, uuid);
-        }
-
-        return uuid;
+        final String uuid = state.uuid;
+        return StringUtils.isNullOrEmpty(uuid) ? loadUuid() : uuid;
     }
 
     /**
-     * Returns this {@link #visitorProfile}.
+     * Returns this {@code visitorProfile}.
      *
      * <p>If there is no {@code visitorProfile} value in memory, this method attempts to find one
-     * from the {@link NamedCollection}.
+     * from the {@link NamedCollection}. The {@code NamedCollection} is read at most once, as every
+     * later change of the persisted value goes through {@link #setVisitorProfile(Map)}.
      *
      * @return {@code Map<String, String>} containing visitor profile
      */
     Map<String, String> getVisitorProfile() {
-        if (visitorProfile == null || visitorProfile.isEmpty()) {
-            // load visitor profile from data store if we have one
-            if (localStorage == null) {
-                Log.warning(
-                        LOG_TAG,
-                        LOG_SOURCE,
-                        "Unable to retrieve visitor profile from persistence - persistence could"
-                                + " not be accessed.");
-                return visitorProfile;
-            }
-
-            if (localStorage.contains(
-                    AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY)) {
-                visitorProfile =
-                        localStorage.getMap(
-                                AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY);
-            }
-        }
-
-        return visitorProfile;
+        final Map<String, String> visitorProfile = state.visitorProfile;
+        return visitorProfile == null || visitorProfile.isEmpty()
+                ? loadVisitorProfile()
+                : visitorProfile;
     }
 
     /**
@@ -217,7 +233,15 @@ class AudienceState {
      * @return the {@link MobilePrivacyStatus} for this {@link AudienceState}
      */
     MobilePrivacyStatus getMobilePrivacyStatus() {
-        return privacyStatus;
+        return state.privacyStatus;
+    }
+
+    /**
+     * @return the number of persistence reads skipped because the uuid or visitor profile was
+     *     already known to be absent
+     */
+    synchronized long getAvoidedPersistenceReadCount() {
+        return avoidedPersistenceReadCount;
     }
 
     /**
@@ -225,9 +249,10 @@ class AudienceState {
      *
      * @param timestampMillis the timestamp of the reset event, in milliseconds
      */
-    void setLastResetTimestamp(final long timestampMillis) {
-        if (timestampMillis >= 0) {
-            this.lastResetTimestampMillis = timestampMillis;
+    synchronized void setLastResetTimestamp(final long timestampMillis) {
+        final StateRecord current = state;
+        if (timestampMillis >= 0 && current.lastResetTimestampMillis != timestampMillis) {
+            state = current.withLastResetTimestamp(timestampMillis);
         }
     }
 
@@ -235,16 +260,46 @@ class AudienceState {
      * @return last reset timestamp, in milliseconds
      */
     long getLastResetTimestampMillis() {
-        return this.lastResetTimestampMillis;
+        return state.lastResetTimestampMillis;
     }
 
     /**
      * Get the data for this {@code AudienceState} instance to share with other modules. The state
      * data is only populated if the set privacy status is not {@link MobilePrivacyStatus#OPT_OUT}.
      *
+     * <p>The returned map is an immutable snapshot, which is reused until the state variables
+     * change.
+     *
      * @return {@link Map<String, Object>} map of this {@link AudienceState}
      */
     Map<String, Object> getStateData() {
+        final StateDataSnapshot snapshot = stateDataSnapshot;
+        if (snapshot != null && snapshot.source == state) {
+            return snapshot.data;
+        }
+
+        return rebuildStateData();
+    }
+
+    /**
+     * Builds the shared state data while holding the lock of this {@code AudienceState}, so no
+     * update happens between reading the state variables and recording the record they came from.
+     *
+     * @return the immutable shared state data
+     */
+    private synchronized Map<String, Object> rebuildStateData() {
+        final Map<String, Object> data = Collections.unmodifiableMap(buildStateData());
+        // the persisted values loaded while building the data are part of the current record
+        stateDataSnapshot = new StateDataSnapshot(state, data);
+        return data;
+    }
+
+    /**
+     * Builds the data shared with other modules from the current state variables.
+     *
+     * @return {@link Map<String, Object>} map of this {@link AudienceState}
+     */
+    private Map<String, Object> buildStateData() {
         final Map<String, Object> stateData = new HashMap<>();
 
         if (getMobilePrivacyStatus() == MobilePrivacyStatus.OPT_OUT) {
@@ -261,7 +316,9 @@ class AudienceState {
         Map<String, String> profile = getVisitorProfile();
 
         if (profile != null) {
-            stateData.put(AudienceConstants.EventDataKeys.Audience.VISITOR_PROFILE, profile);
+            stateData.put(
+                    AudienceConstants.EventDataKeys.Audience.VISITOR_PROFILE,
+                    Collections.unmodifiableMap(new HashMap<>(profile)));
         }
 
         return stateData;
@@ -275,8 +332,265 @@ class AudienceState {
      *   <li>Visitor Profiles
      * </ul>
      */
-    void clearIdentifiers() {
+    synchronized void clearIdentifiers() {
         setUuid(null);
         setVisitorProfile(null);
+        resetGeneration++;
+    }
+
+    /**
+     * Returns the number of times the identifiers of this {@code AudienceState} were cleared,
+     * through a reset or an opt-out.
+     *
+     * @return the reset generation of this {@code AudienceState}
+     */
+    long getResetGeneration() {
+        return resetGeneration;
+    }
+
+    /**
+     * Loads the uuid from the {@link NamedCollection} unless it was loaded already.
+     *
+     * @return the current uuid after loading
+     */
+    private synchronized String loadUuid() {
+        final StateRecord current = state;
+        if (!StringUtils.isNullOrEmpty(current.uuid)) {
+            return current.uuid;
+        }
+
+        if (current.uuidLoaded) {
+            avoidedPersistenceReadCount++;
+            return current.uuid;
+        }
+
+        // load uuid from data store if we have one
+        if (localStorage == null) {
+            Log.warning(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unable to retrieve uuid from persistence - persistence could not be"
+                            + " accessed.");
+            return current.uuid;
+        }
+
+        final String uuid =
+                localStorage.getString(
+                        AudienceConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY, current.uuid);
+        state = current.withUuid(uuid, true);
+        return uuid;
+    }
+
+    /**
+     * Loads the visitor profile from the {@link NamedCollection} unless it was loaded already.
+     *
+     * @return the current visitor profile after loading
+     */
+    private synchronized Map<String, String> loadVisitorProfile() {
+        final StateRecord current = state;
+        if (current.visitorProfile != null && !current.visitorProfile.isEmpty()) {
+            return current.visitorProfile;
+        }
+
+        if (current.visitorProfileLoaded) {
+            avoidedPersistenceReadCount++;
+            return current.visitorProfile;
+        }
+
+        // load visitor profile from data store if we have one
+        if (localStorage == null) {
+            Log.warning(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unable to retrieve visitor profile from persistence - persistence could"
+                            + " not be accessed.");
+            return current.visitorProfile;
+        }
+
+        final Map<String, String> persistedProfile = profileStore.load();
+        final StateRecord loaded =
+                current.withVisitorProfile(
+                        persistedProfile != null ? persistedProfile : current.visitorProfile,
+                        true);
+        state = loaded;
+        return loaded.visitorProfile;
+    }
+
+    /**
+     * Writes the pending visitor profile to persistence, if any, without waiting for the write
+     * delay to elapse.
+     */
+    void flushPersistence() {
+        synchronized (persistenceLock) {
+            final Map<String, String> profile = pendingVisitorProfile;
+            cancelPendingVisitorProfileWrite();
+
+            if (profile == null || profileStore == null) {
+                return;
+            }
+
+            profileStore.save(profile);
+        }
+    }
+
+    /** Writes the pending visitor profile to persistence and stops the background writer. */
+    void shutdown() {
+        flushPersistence();
+
+        if (profileStore != null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Wrote the visitor profile %d times, %d of them in full, and skipped %d"
+                            + " unchanged writes.",
+                    profileStore.getWriteCount(),
+                    profileStore.getCompactionCount(),
+                    profileStore.getSkippedWriteCount());
+        }
+
+        synchronized (persistenceLock) {
+            if (persistenceExecutor != null) {
+                persistenceExecutor.shutdown();
+                persistenceExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Schedules a background write of the given visitor profile, replacing the profile of any
+     * pending write. Nothing is written if the profile matches the persisted one.
+     *
+     * @param visitorProfile the non-empty visitor profile to persist
+     */
+    private void scheduleVisitorProfileWrite(final Map<String, String> visitorProfile) {
+        synchronized (persistenceLock) {
+            if (profileStore.isPersisted(visitorProfile)) {
+                cancelPendingVisitorProfileWrite();
+                return;
+            }
+
+            pendingVisitorProfile = new HashMap<>(visitorProfile);
+
+            if (pendingVisitorProfileWrite == null) {
+                if (persistenceExecutor == null) {
+                    // the pending write must not keep the application process alive
+                    persistenceExecutor =
+                            Executors.newSingleThreadScheduledExecutor(
+                                    runnable -> {
+                                        final Thread thread = new Thread(runnable, LOG_SOURCE);
+                                        thread.setDaemon(true);
+                                        return thread;
+                                    });
+                }
+
+                pendingVisitorProfileWrite =
+                        persistenceExecutor.schedule(
+                                this::flushPersistence,
+                                AudienceConstants.VISITOR_PROFILE_WRITE_DELAY_MILLIS,
+                                TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Drops the pending visitor profile write. Must be called while holding persistenceLock. */
+    private void cancelPendingVisitorProfileWrite() {
+        pendingVisitorProfile = null;
+
+        if (pendingVisitorProfileWrite != null) {
+            pendingVisitorProfileWrite.cancel(false);
+            pendingVisitorProfileWrite = null;
+        }
+    }
+
+    private static boolean equals(final Object first, final Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    /** Immutable values of the state variables. */
+    private static final class StateRecord {
+
+        static final StateRecord INITIAL =
+                new StateRecord(
+                        null, null, AudienceConstants.DEFAULT_PRIVACY_STATUS, 0, false, false);
+
+        final String uuid;
+        final Map<String, String> visitorProfile;
+        final MobilePrivacyStatus privacyStatus;
+        // timestamp of the most recent resetIdentities API call
+        final long lastResetTimestampMillis;
+
+        // whether the persisted values were already read, so an absent value is not read again
+        final boolean uuidLoaded;
+        final boolean visitorProfileLoaded;
+
+        private StateRecord(
+                final String uuid,
+                final Map<String, String> visitorProfile,
+                final MobilePrivacyStatus privacyStatus,
+                final long lastResetTimestampMillis,
+                final boolean uuidLoaded,
+                final boolean visitorProfileLoaded) {
+            this.uuid = uuid;
+            this.visitorProfile = visitorProfile;
+            this.privacyStatus = privacyStatus;
+            this.lastResetTimestampMillis = lastResetTimestampMillis;
+            this.uuidLoaded = uuidLoaded;
+            this.visitorProfileLoaded = visitorProfileLoaded;
+        }
+
+        StateRecord withUuid(final String uuid, final boolean uuidLoaded) {
+            return new StateRecord(
+                    uuid,
+                    visitorProfile,
+                    privacyStatus,
+                    lastResetTimestampMillis,
+                    uuidLoaded,
+                    visitorProfileLoaded);
+        }
+
+        StateRecord withVisitorProfile(
+                final Map<String, String> visitorProfile, final boolean visitorProfileLoaded) {
+            return new StateRecord(
+                    uuid,
+                    visitorProfile != null
+                            ? Collections.unmodifiableMap(new HashMap<>(visitorProfile))
+                            : null,
+                    privacyStatus,
+                    lastResetTimestampMillis,
+                    uuidLoaded,
+                    visitorProfileLoaded);
+        }
+
+        StateRecord withPrivacyStatus(final MobilePrivacyStatus privacyStatus) {
+            return new StateRecord(
+                    uuid,
+                    visitorProfile,
+                    privacyStatus,
+                    lastResetTimestampMillis,
+                    uuidLoaded,
+                    visitorProfileLoaded);
+        }
+
+        StateRecord withLastResetTimestamp(final long lastResetTimestampMillis) {
+            return new StateRecord(
+                    uuid,
+                    visitorProfile,
+                    privacyStatus,
+                    lastResetTimestampMillis,
+                    uuidLoaded,
+                    visitorProfileLoaded);
+        }
+    }
+
+    /** Shared state data built from a {@link StateRecord}. */
+    private static final class StateDataSnapshot {
+
+        final StateRecord source;
+        final Map<String, Object> data;
+
+        StateDataSnapshot(final StateRecord source, final Map<String, Object> data) {
+            this.source = source;
+            this.data = data;
+        }
     }
 }
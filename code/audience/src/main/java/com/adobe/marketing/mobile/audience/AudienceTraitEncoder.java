@@ -0,0 +1,148 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+import com.adobe.marketing.mobile.util.StringUtils;
+import java.util.Map;
+
+/**
+ * Encodes customer traits as Audience Manager URL parameters, e.g. {@code c_key=value&c_k_2=v}.
+ *
+ * <p>Keys and values are percent-encoded straight into a buffer reused across calls, with the same
+ * output as {@link com.adobe.marketing.mobile.util.UrlUtils#urlEncode(String)}: unreserved
+ * characters are kept and every other UTF-8 byte is written as {@code %XX}. Dots in keys are
+ * replaced with underscores. Instances are confined to the thread returned by {@link #get()}.
+ */
+final class AudienceTraitEncoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<AudienceTraitEncoder> ENCODERS =
+            new ThreadLocal<AudienceTraitEncoder>() {
+                @Override
+                protected AudienceTraitEncoder initialValue() {
+                    return new AudienceTraitEncoder();
+                }
+            };
+
+    private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+    private AudienceTraitEncoder() {}
+
+    /**
+     * @return the encoder confined to the calling thread
+     */
+    static AudienceTraitEncoder get() {
+        return ENCODERS.get();
+    }
+
+    /**
+     * Encodes the given traits as URL parameters. Traits with a null or empty key or value are
+     * skipped.
+     *
+     * @param traits the customer traits to encode
+     * @return the encoded traits joined with {@code &}, or an empty string if no trait was encoded
+     */
+    @NonNull String encode(@NonNull final Map<String, String> traits) {
+        final StringBuilder urlVars = buffer;
+        urlVars.setLength(0);
+
+        for (Map.Entry<String, String> entry : traits.entrySet()) {
+            final String key = entry.getKey();
+            final String value = entry.getValue();
+
+            // check to make sure neither of our entry values is null or empty
+            if (StringUtils.isNullOrEmpty(key) || StringUtils.isNullOrEmpty(value)) {
+                continue;
+            }
+
+            if (urlVars.length() != 0) {
+                urlVars.append('&');
+            }
+
+            urlVars.append(AudienceConstants.AUDIENCE_MANAGER_CUSTOMER_DATA_PREFIX);
+            appendEncoded(urlVars, key, true);
+            urlVars.append('=');
+            appendEncoded(urlVars, value, false);
+        }
+
+        final String result = urlVars.toString();
+
+        // do not hold on to the buffer grown by an unusually large signal
+        if (urlVars.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+        }
+
+        return result;
+    }
+
+    /**
+     * Appends the percent-encoded UTF-8 representation of {@code text} to {@code out}.
+     *
+     * @param out the buffer to append to
+     * @param text the text to encode
+     * @param replaceDots whether dots are replaced with underscores before encoding
+     */
+    private static void appendEncoded(
+            final StringBuilder out, final String text, final boolean replaceDots) {
+        final int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+
+            if (c == '.' && replaceDots) {
+                out.append('_');
+            } else if (isUnreserved(c)) {
+                out.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(out, c);
+            } else if (c < 0x800) {
+                appendEscaped(out, 0xC0 | (c >> 6));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                appendEscaped(out, 0xF0 | (codePoint >> 18));
+                appendEscaped(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscaped(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates are replaced with '?' by the UTF-8 encoder
+                appendEscaped(out, '?');
+            } else {
+                appendEscaped(out, 0xE0 | (c >> 12));
+                appendEscaped(out, 0x80 | ((c >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void appendEscaped(final StringBuilder out, final int utf8Byte) {
+        out.append('%')
+                .append(HEX_DIGITS[(utf8Byte >> 4) & 0xF])
+                .append(HEX_DIGITS[utf8Byte & 0xF]);
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '-'
+                || c == '.'
+                || c == '_'
+                || c == '~';
+    }
+}
@@ -0,0 +1,57 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Computes the 64-bit FNV-1a hash of request URLs, used to index and cache URLs without keeping
+ * them. Different URLs may have the same hash.
+ */
+final class AudienceUrlHash {
+
+    // FNV-1a 64-bit hash parameters
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private AudienceUrlHash() {}
+
+    /**
+     * Computes the hash of the given URL.
+     *
+     * @param url the request URL
+     * @return the hash of {@code url}
+     */
+    static long hash(@NonNull final String url) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Computes the hash of the given URL followed by an integer, such as a timeout.
+     *
+     * @param url the request URL
+     * @param value the integer hashed after {@code url}
+     * @return the hash of {@code url} and {@code value}
+     */
+    static long hash(@NonNull final String url, final int value) {
+        long hash = hash(url);
+        hash ^= value;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
@@ -13,11 +13,17 @@ package com.adobe.marketing.mobile;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import com.adobe.marketing.mobile.audience.AudienceExtension;
 import com.adobe.marketing.mobile.services.Log;
 import com.adobe.marketing.mobile.util.DataReader;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class Audience {
 
@@ -27,6 +33,12 @@ public final class Audience {
     private static final String EXTENSION_VERSION = "3.0.1";
     private static final int CALLBACK_TIMEOUT_MILLIS = 5000;
 
+    // listeners of the visitor profile changes, called by a single MobileCore event listener
+    // registered with the first of them, as MobileCore event listeners cannot be unregistered
+    private static final Set<AudienceProfileChangeListener> profileChangeListeners =
+            new CopyOnWriteArraySet<>();
+    private static final AtomicBoolean profileChangeEventListenerRegistered = new AtomicBoolean();
+
     @NonNull public static final Class<? extends Extension> EXTENSION = AudienceExtension.class;
 
     private Audience() {}
@@ -46,6 +58,11 @@ public final class Audience {
      * <p>Visitor profile is saved persistently for easy access across multiple launches of your
      * app. If no audience signal has been submitted yet, null is returned.
      *
+     * <p>Once the Audience extension is registered, the callback is invoked with the profile the
+     * extension last shared, without waiting for the event hub. Before that, the profile is
+     * requested from the extension through the event hub. The callback is always invoked
+     * asynchronously, on a background thread.
+     *
      * @param adobeCallback {@link AdobeCallback} instance which is invoked with the visitor's
      *     profile as a parameter; when an {@link AdobeCallbackWithError} is provided, an {@link
      *     AdobeError} can be returned in the eventuality of an unexpected error.
@@ -62,6 +79,10 @@ public final class Audience {
             return;
         }
 
+        if (AudienceExtension.readVisitorProfile(adobeCallback)) {
+            return;
+        }
+
         final Event event =
                 new Event.Builder(
                                 "AudienceRequestIdentity",
@@ -100,6 +121,86 @@ public final class Audience {
                 });
     }
 
+    /**
+     * Checks whether the visitor belongs to a segment of the most recently obtained visitor
+     * profile.
+     *
+     * <p>The segment is either a segment id listed in a visitor profile value, such as {@code 123}
+     * for a value {@code segs=123,456}, or the name of a visitor profile entry. The callback is
+     * invoked asynchronously, on a background thread.
+     *
+     * @param segment the segment id or name to look up
+     * @param adobeCallback {@link AdobeCallback} instance which is invoked with true if the visitor
+     *     belongs to the segment; when an {@link AdobeCallbackWithError} is provided, an {@link
+     *     AdobeError} can be returned in the eventuality of an unexpected error.
+     * @see #getVisitorProfile(AdobeCallback)
+     */
+    public static void isInSegment(
+            @NonNull final String segment, @NonNull final AdobeCallback<Boolean> adobeCallback) {
+        if (segment == null || adobeCallback == null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unexpected null segment or callback, provide both to check segment"
+                            + " membership.");
+            return;
+        }
+
+        if (AudienceExtension.readSegmentMembership(segment, adobeCallback)) {
+            return;
+        }
+
+        // the extension is queried again once it answered the visitor profile request
+        getVisitorProfile(
+                new ProfileQueryCallback(adobeCallback) {
+                    @Override
+                    void query() {
+                        if (!AudienceExtension.readSegmentMembership(segment, adobeCallback)) {
+                            adobeCallback.call(false);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns the names of the visitor profile entries starting with the given prefix, from the
+     * most recently obtained visitor profile.
+     *
+     * <p>The callback is invoked asynchronously, on a background thread.
+     *
+     * @param prefix the prefix of the names to return, an empty prefix returns every name
+     * @param adobeCallback {@link AdobeCallback} instance which is invoked with the unmodifiable,
+     *     sorted list of names; when an {@link AdobeCallbackWithError} is provided, an {@link
+     *     AdobeError} can be returned in the eventuality of an unexpected error.
+     * @see #getVisitorProfile(AdobeCallback)
+     */
+    public static void getSegments(
+            @NonNull final String prefix,
+            @NonNull final AdobeCallback<List<String>> adobeCallback) {
+        if (prefix == null || adobeCallback == null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unexpected null prefix or callback, provide both to retrieve segments.");
+            return;
+        }
+
+        if (AudienceExtension.readSegments(prefix, adobeCallback)) {
+            return;
+        }
+
+        // the extension is queried again once it answered the visitor profile request
+        getVisitorProfile(
+                new ProfileQueryCallback(adobeCallback) {
+                    @Override
+                    void query() {
+                        if (!AudienceExtension.readSegments(prefix, adobeCallback)) {
+                            adobeCallback.call(Collections.<String>emptyList());
+                        }
+                    }
+                });
+    }
+
     /**
      * Sends Audience Manager a signal with traits and gets the matching segments for the visitor.
      *
@@ -172,6 +273,83 @@ public final class Audience {
                 });
     }
 
+    /**
+     * Registers a listener which is called whenever segments are added to, removed from or changed
+     * in the visitor profile. Registering a listener which is already registered has no effect.
+     *
+     * <p>Profile change events are only dispatched when enabled by the {@code
+     * audience.profileChangeEvents} configuration setting. The listener is called on a background
+     * thread, until it is unregistered.
+     *
+     * @param listener {@link AudienceProfileChangeListener} instance to register
+     * @see #unregisterProfileChangeListener(AudienceProfileChangeListener)
+     */
+    public static void registerProfileChangeListener(
+            @NonNull final AudienceProfileChangeListener listener) {
+        if (listener == null) {
+            Log.debug(
+                    LOG_TAG,
+                    LOG_SOURCE,
+                    "Unexpected null listener, provide a listener to receive visitor profile"
+                            + " changes.");
+            return;
+        }
+
+        profileChangeListeners.add(listener);
+        if (profileChangeEventListenerRegistered.compareAndSet(false, true)) {
+            MobileCore.registerEventListener(
+                    EventType.AUDIENCEMANAGER,
+                    AudienceExtension.PROFILE_CHANGE_EVENT_SOURCE,
+                    Audience::notifyProfileChangeListeners);
+        }
+    }
+
+    /**
+     * Unregisters a listener registered with {@link
+     * #registerProfileChangeListener(AudienceProfileChangeListener)}, so it is no longer called
+     * when the visitor profile changes.
+     *
+     * @param listener {@link AudienceProfileChangeListener} instance to unregister
+     */
+    public static void unregisterProfileChangeListener(
+            @NonNull final AudienceProfileChangeListener listener) {
+        if (listener == null) {
+            Log.debug(LOG_TAG, LOG_SOURCE, "Unexpected null listener, nothing to unregister.");
+            return;
+        }
+
+        profileChangeListeners.remove(listener);
+    }
+
+    /**
+     * Unregisters all the visitor profile change listeners, so the next registration registers a
+     * new MobileCore event listener.
+     */
+    @VisibleForTesting
+    static void clearProfileChangeListeners() {
+        profileChangeListeners.clear();
+        profileChangeEventListenerRegistered.set(false);
+    }
+
+    /**
+     * Calls the registered {@link AudienceProfileChangeListener}s with the changes carried by a
+     * profile change event.
+     *
+     * @param event the profile change {@link Event} dispatched by the Audience extension
+     */
+    private static void notifyProfileChangeListeners(@NonNull final Event event) {
+        final Map<String, Object> eventData = event.getEventData();
+        for (final AudienceProfileChangeListener listener : profileChangeListeners) {
+            listener.onProfileChanged(
+                    DataReader.optStringMap(
+                            eventData, EventDataKeys.PROFILE_ADDED, new HashMap<>()),
+                    DataReader.optStringMap(
+                            eventData, EventDataKeys.PROFILE_REMOVED, new HashMap<>()),
+                    DataReader.optStringMap(
+                            eventData, EventDataKeys.PROFILE_CHANGED, new HashMap<>()));
+        }
+    }
+
     /** Resets the Audience Manager UUID and purges the current visitor profile from persistence. */
     public static void reset() {
         final Event event =
@@ -180,6 +358,8 @@ public final class Audience {
                                 EventType.AUDIENCEMANAGER,
                                 EventSource.REQUEST_RESET)
                         .build();
+        // visitor profile requests made after this call must return the reset profile
+        AudienceExtension.onResetRequested();
         MobileCore.dispatchEvent(event);
         Log.debug(
                 LOG_TAG,
@@ -187,6 +367,34 @@ public final class Audience {
                 "Request to reset Audience Manager values for this device has been dispatched.");
     }
 
+    /**
+     * Visitor profile callback which runs a segment query once the profile request was answered,
+     * and forwards errors to the query callback.
+     */
+    private abstract static class ProfileQueryCallback
+            implements AdobeCallbackWithError<Map<String, String>> {
+
+        private final AdobeCallback<?> queryCallback;
+
+        ProfileQueryCallback(final AdobeCallback<?> queryCallback) {
+            this.queryCallback = queryCallback;
+        }
+
+        abstract void query();
+
+        @Override
+        public void call(final Map<String, String> visitorProfile) {
+            query();
+        }
+
+        @Override
+        public void fail(final AdobeError adobeError) {
+            if (queryCallback instanceof AdobeCallbackWithError) {
+                ((AdobeCallbackWithError<?>) queryCallback).fail(adobeError);
+            }
+        }
+    }
+
     private static final class EventDataKeys {
 
         private EventDataKeys() {}
@@ -196,5 +404,10 @@ public final class Audience {
 
         // response keys
         static final String VISITOR_PROFILE = "aamprofile";
+
+        // profile change keys
+        static final String PROFILE_ADDED = "aamprofileadded";
+        static final String PROFILE_REMOVED = "aamprofileremoved";
+        static final String PROFILE_CHANGED = "aamprofilechanged";
     }
 }
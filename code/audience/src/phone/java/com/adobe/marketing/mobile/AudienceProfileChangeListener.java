@@ -0,0 +1,35 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile;
+
+import androidx.annotation.NonNull;
+import java.util.Map;
+
+/**
+ * Listener notified when the segments of the visitor profile change.
+ *
+ * @see Audience#registerProfileChangeListener(AudienceProfileChangeListener)
+ */
+public interface AudienceProfileChangeListener {
+
+    /**
+     * Called with the segments that changed since the previous visitor profile.
+     *
+     * @param added the segments added to the profile, with their values
+     * @param removed the segments removed from the profile, with their previous values
+     * @param changed the segments whose value changed, with their new values
+     */
+    void onProfileChanged(
+            @NonNull Map<String, String> added,
+            @NonNull Map<String, String> removed,
+            @NonNull Map<String, String> changed);
+}
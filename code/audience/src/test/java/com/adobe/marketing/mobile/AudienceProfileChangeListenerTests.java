@@ -0,0 +1,131 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AudienceProfileChangeListenerTests {
+
+    private static final String PROFILE_CHANGE_EVENT_SOURCE = "com.adobe.eventSource.notification";
+
+    private MockedStatic<MobileCore> mockCore;
+
+    @Before
+    public void setup() {
+        mockCore = mockStatic(MobileCore.class);
+    }
+
+    @After
+    public void tearDown() {
+        mockCore.close();
+        Audience.clearProfileChangeListeners();
+    }
+
+    @Test
+    public void testRegisterProfileChangeListener_callsListenerWithProfileChanges() {
+        final Map<String, Map<String, String>> changes = new HashMap<>();
+        Audience.registerProfileChangeListener(
+                (added, removed, changed) -> {
+                    changes.put("added", added);
+                    changes.put("removed", removed);
+                    changes.put("changed", changed);
+                });
+
+        final Map<String, String> added = new HashMap<>();
+        added.put("segment", "value");
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("aamprofileadded", added);
+        captureProfileChangeEventListener().call(getProfileChangeEvent(eventData));
+
+        assertEquals(added, changes.get("added"));
+        assertTrue(changes.get("removed").isEmpty());
+        assertTrue(changes.get("changed").isEmpty());
+    }
+
+    @Test
+    public void testRegisterProfileChangeListener_registersSingleEventListener() {
+        final List<String> calls = new ArrayList<>();
+        Audience.registerProfileChangeListener((added, removed, changed) -> calls.add("first"));
+        Audience.registerProfileChangeListener((added, removed, changed) -> calls.add("second"));
+
+        captureProfileChangeEventListener().call(getProfileChangeEvent(new HashMap<>()));
+
+        assertEquals(2, calls.size());
+        assertTrue(calls.contains("first"));
+        assertTrue(calls.contains("second"));
+    }
+
+    @Test
+    public void testUnregisterProfileChangeListener_stopsCallingListener() {
+        final List<String> calls = new ArrayList<>();
+        final AudienceProfileChangeListener unregistered =
+                (added, removed, changed) -> calls.add("unregistered");
+        Audience.registerProfileChangeListener(unregistered);
+        Audience.registerProfileChangeListener((added, removed, changed) -> calls.add("kept"));
+
+        Audience.unregisterProfileChangeListener(unregistered);
+        captureProfileChangeEventListener().call(getProfileChangeEvent(new HashMap<>()));
+
+        assertEquals(1, calls.size());
+        assertEquals("kept", calls.get(0));
+    }
+
+    @Test
+    public void testRegisterProfileChangeListener_whenNullListener_doesNotRegister() {
+        Audience.registerProfileChangeListener(null);
+
+        mockCore.verify(
+                () -> MobileCore.registerEventListener(any(), any(), any(AdobeCallback.class)),
+                never());
+    }
+
+    private AdobeCallback<Event> captureProfileChangeEventListener() {
+        final ArgumentCaptor<AdobeCallback<Event>> callbackCaptor =
+                ArgumentCaptor.forClass(AdobeCallback.class);
+        mockCore.verify(
+                () ->
+                        MobileCore.registerEventListener(
+                                eq(EventType.AUDIENCEMANAGER),
+                                eq(PROFILE_CHANGE_EVENT_SOURCE),
+                                callbackCaptor.capture()),
+                times(1));
+        return callbackCaptor.getValue();
+    }
+
+    private Event getProfileChangeEvent(final Map<String, Object> eventData) {
+        return new Event.Builder(
+                        "Audience Manager Profile Change",
+                        EventType.AUDIENCEMANAGER,
+                        PROFILE_CHANGE_EVENT_SOURCE)
+                .setEventData(eventData)
+                .build();
+    }
+}
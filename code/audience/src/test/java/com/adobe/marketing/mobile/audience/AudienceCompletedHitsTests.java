@@ -0,0 +1,102 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AudienceCompletedHitsTests {
+
+    private static final String COMPLETED_HITS_KEY =
+            AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY;
+
+    private final Map<String, String> persistedValues = new HashMap<>();
+    private NamedCollection namedCollection;
+
+    @Before
+    public void setup() {
+        // a NamedCollection backed by persistedValues
+        namedCollection = mock(NamedCollection.class);
+        doAnswer(
+                        invocation -> {
+                            persistedValues.put(
+                                    invocation.getArgument(0), invocation.getArgument(1));
+                            return null;
+                        })
+                .when(namedCollection)
+                .setString(anyString(), anyString());
+        doAnswer(invocation -> persistedValues.remove(invocation.getArgument(0)))
+                .when(namedCollection)
+                .remove(anyString());
+        when(namedCollection.getString(anyString(), any()))
+                .thenAnswer(invocation -> persistedValues.get(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void testAddAll_persistsHitsForNextLaunch() {
+        new AudienceCompletedHits(namedCollection).addAll(Arrays.asList("hit1", "hit2"));
+
+        final AudienceCompletedHits nextLaunchHits = new AudienceCompletedHits(namedCollection);
+
+        assertTrue(nextLaunchHits.contains("hit1"));
+        assertTrue(nextLaunchHits.contains("hit2"));
+        assertFalse(nextLaunchHits.contains("hit3"));
+    }
+
+    @Test
+    public void testRemove_whenLastHitRemoved_removesPersistedHits() {
+        final AudienceCompletedHits completedHits = new AudienceCompletedHits(namedCollection);
+        completedHits.addAll(Arrays.asList("hit1", "hit2"));
+
+        assertTrue(completedHits.remove("hit1"));
+        assertFalse(new AudienceCompletedHits(namedCollection).contains("hit1"));
+        assertTrue(completedHits.remove("hit2"));
+
+        assertFalse(completedHits.remove("hit2"));
+        assertNull(persistedValues.get(COMPLETED_HITS_KEY));
+    }
+
+    @Test
+    public void testClear_removesPersistedHits() {
+        final AudienceCompletedHits completedHits = new AudienceCompletedHits(namedCollection);
+        completedHits.addAll(Arrays.asList("hit1", "hit2"));
+
+        completedHits.clear();
+
+        assertFalse(completedHits.contains("hit1"));
+        assertNull(persistedValues.get(COMPLETED_HITS_KEY));
+    }
+
+    @Test
+    public void testCompletedHits_whenNoNamedCollection_keepsHitsInMemory() {
+        final AudienceCompletedHits completedHits = new AudienceCompletedHits(null);
+
+        completedHits.addAll(Collections.singletonList("hit1"));
+
+        assertTrue(completedHits.contains("hit1"));
+        assertTrue(completedHits.remove("hit1"));
+    }
+}
@@ -14,10 +14,16 @@ package com.adobe.marketing.mobile.audience;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventCoder;
 import com.adobe.marketing.mobile.services.DataEntity;
+import java.util.Date;
 import java.util.HashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Test;
 
 public class AudienceDataEntityTests {
@@ -76,6 +82,64 @@ public class AudienceDataEntityTests {
         assertEquals(event.getSource(), deserializedEvent.getSource());
         assertEquals(event.getUniqueIdentifier(), deserializedEvent.getUniqueIdentifier());
         assertEquals(event.getTimestamp(), deserializedEvent.getTimestamp());
+
+        // event data is not persisted, the traits are already part of the url
+        assertNull(deserializedEvent.getEventData());
+    }
+
+    @Test
+    public void testToDataEntity_usesVersionedFormat() {
+        AudienceDataEntity entity = new AudienceDataEntity(TEST_EVENT, TEST_URL, 5);
+        DataEntity serializedEntity = entity.toDataEntity();
+        assertNotNull(serializedEntity);
+
+        assertEquals(TEST_EVENT.getUniqueIdentifier(), serializedEntity.getUniqueIdentifier());
+        assertTrue(
+                serializedEntity
+                        .getData()
+                        .startsWith(
+                                "AAM2\n"
+                                        + TEST_EVENT.getUniqueIdentifier()
+                                        + "\n"
+                                        + TEST_EVENT.getTimestamp()
+                                        + "\n5\n"));
+        assertTrue(serializedEntity.getData().endsWith("\n" + TEST_URL));
+    }
+
+    @Test
+    public void testFromDataEntity_whenLegacyJsonEntity() throws JSONException {
+        Event event =
+                new Event.Builder("name", "type", "source")
+                        .setEventData(
+                                new HashMap<String, Object>() {
+                                    {
+                                        put("key", "value");
+                                    }
+                                })
+                        .build();
+        JSONObject legacyEntity = new JSONObject();
+        legacyEntity.put("event", new JSONObject(EventCoder.encode(event)));
+        legacyEntity.put("url", TEST_URL);
+        legacyEntity.put("timeoutSec", 5);
+
+        // legacy entities were queued with the identifier and timestamp of their request event
+        AudienceDataEntity deserializedEntity =
+                AudienceDataEntity.fromDataEntity(
+                        new DataEntity(
+                                event.getUniqueIdentifier(),
+                                new Date(event.getTimestamp()),
+                                legacyEntity.toString()));
+        assertNotNull(deserializedEntity);
+
+        assertEquals(event.getUniqueIdentifier(), deserializedEntity.getEventId());
+        assertEquals(event.getTimestamp(), deserializedEntity.getEventTimestamp());
+        assertEquals(TEST_URL, deserializedEntity.getUrl());
+        assertEquals(5, deserializedEntity.getTimeoutSec());
+
+        Event deserializedEvent = deserializedEntity.getEvent();
+        assertNotNull(deserializedEvent);
+        assertEquals(event.getUniqueIdentifier(), deserializedEvent.getUniqueIdentifier());
+        assertEquals(event.getTimestamp(), deserializedEvent.getTimestamp());
         assertEquals(event.getEventData(), deserializedEvent.getEventData());
     }
 
@@ -116,4 +180,59 @@ public class AudienceDataEntityTests {
     public void testFromDataEntity_whenInvalidDataEntity_returnsNull() {
         assertNull(AudienceDataEntity.fromDataEntity(new DataEntity("abc")));
     }
+
+    @Test
+    public void testFromDataEntity_whenInvalidEvent_decodesPlainFields() {
+        AudienceDataEntity deserializedEntity =
+                AudienceDataEntity.fromDataEntity(
+                        new DataEntity("AAM2\nid\n123\n5\nabc\n" + TEST_URL));
+        assertNotNull(deserializedEntity);
+
+        // the event is decoded only when requested
+        assertEquals("id", deserializedEntity.getEventId());
+        assertEquals(123, deserializedEntity.getEventTimestamp());
+        assertEquals(TEST_URL, deserializedEntity.getUrl());
+        assertEquals(5, deserializedEntity.getTimeoutSec());
+        assertNull(deserializedEntity.getEvent());
+        assertNull(deserializedEntity.toDataEntity());
+    }
+
+    @Test
+    public void testGetEvent_returnsSameDecodedEvent() {
+        DataEntity serializedEntity =
+                new AudienceDataEntity(TEST_EVENT, TEST_URL, 5).toDataEntity();
+        assertNotNull(serializedEntity);
+
+        AudienceDataEntity deserializedEntity = AudienceDataEntity.fromDataEntity(serializedEntity);
+        assertNotNull(deserializedEntity);
+        assertEquals(TEST_EVENT.getUniqueIdentifier(), deserializedEntity.getEventId());
+        assertEquals(TEST_EVENT.getTimestamp(), deserializedEntity.getEventTimestamp());
+        assertSame(deserializedEntity.getEvent(), deserializedEntity.getEvent());
+    }
+
+    @Test
+    public void testFromDataEntity_whenMissingFields_returnsNull() {
+        assertNull(AudienceDataEntity.fromDataEntity(new DataEntity("AAM2\nid\n123\n5\n{}")));
+    }
+
+    @Test
+    public void testFromDataEntity_whenMissingEventId_returnsNull() {
+        assertNull(
+                AudienceDataEntity.fromDataEntity(
+                        new DataEntity("AAM2\n\n123\n5\n{}\n" + TEST_URL)));
+    }
+
+    @Test
+    public void testFromDataEntity_whenInvalidTimeout_returnsNull() {
+        assertNull(
+                AudienceDataEntity.fromDataEntity(
+                        new DataEntity("AAM2\nid\n123\nabc\n{}\n" + TEST_URL)));
+    }
+
+    @Test
+    public void testFromDataEntity_whenInvalidTimestamp_returnsNull() {
+        assertNull(
+                AudienceDataEntity.fromDataEntity(
+                        new DataEntity("AAM2\nid\nabc\n5\n{}\n" + TEST_URL)));
+    }
 }
@@ -0,0 +1,198 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AudienceDestCacheTests {
+
+    private static final String CACHE_KEY =
+            AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY;
+    private static final long TTL_MILLIS = 60000;
+
+    private final Map<String, String> persistedValues = new HashMap<>();
+    private NamedCollection namedCollection;
+
+    @Before
+    public void setup() {
+        // a NamedCollection backed by persistedValues
+        namedCollection = mock(NamedCollection.class);
+        doAnswer(
+                        invocation -> {
+                            persistedValues.put(
+                                    invocation.getArgument(0), invocation.getArgument(1));
+                            return null;
+                        })
+                .when(namedCollection)
+                .setString(anyString(), anyString());
+        doAnswer(invocation -> persistedValues.remove(invocation.getArgument(0)))
+                .when(namedCollection)
+                .remove(anyString());
+        when(namedCollection.getString(anyString(), any()))
+                .thenAnswer(invocation -> persistedValues.get(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void testContains_whenRecordedWithinTtl_returnsTrue() {
+        final AudienceDestCache cache = cache();
+
+        cache.recordSent("https://a.com/1");
+
+        assertTrue(cache.contains("https://a.com/1"));
+        assertFalse(cache.contains("https://a.com/2"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testContains_whenDisabled_returnsFalseAndDoesNotPersist() {
+        final AudienceDestCache cache = new AudienceDestCache(namedCollection);
+
+        cache.recordSent("https://a.com/1");
+
+        assertFalse(cache.contains("https://a.com/1"));
+        assertNull(persistedValues.get(CACHE_KEY));
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testRecordSent_persistsCacheForNextLaunch() {
+        final AudienceDestCache cache = cache();
+        cache.recordSent("https://a.com/1");
+        cache.shutdown();
+
+        final AudienceDestCache nextLaunchCache = cache();
+
+        assertTrue(nextLaunchCache.contains("https://a.com/1"));
+        assertFalse(nextLaunchCache.contains("https://a.com/2"));
+    }
+
+    @Test
+    public void testRecordSent_persistsHashesInsteadOfUrls() {
+        final AudienceDestCache cache = cache();
+        cache.recordSent("https://partner.com/sync?id=123");
+        cache.flush();
+
+        final String persisted = persistedValues.get(CACHE_KEY);
+        assertFalse(persisted.contains("partner"));
+        assertEquals(1, persisted.split(",").length);
+    }
+
+    @Test
+    public void testRecordSent_whenFull_evictsLeastRecentlyUsedUrl() {
+        final AudienceDestCache cache = cache();
+        for (int i = 0; i < AudienceConstants.MAX_DEST_CACHE_ENTRIES; i++) {
+            cache.recordSent("https://a.com/" + i);
+        }
+
+        // makes the first URL the most recently used
+        assertTrue(cache.contains("https://a.com/0"));
+        cache.recordSent("https://a.com/new");
+
+        assertTrue(cache.contains("https://a.com/0"));
+        assertFalse(cache.contains("https://a.com/1"));
+        assertTrue(cache.contains("https://a.com/new"));
+        cache.flush();
+        assertEquals(
+                AudienceConstants.MAX_DEST_CACHE_ENTRIES,
+                persistedValues.get(CACHE_KEY).split(",").length);
+    }
+
+    @Test
+    public void testLoad_whenPersistedEntryInvalid_ignoresEntry() {
+        recordAndFlush("https://a.com/1");
+        persistedValues.put(CACHE_KEY, persistedValues.get(CACHE_KEY) + ",invalid,zz:!!");
+
+        assertTrue(cache().contains("https://a.com/1"));
+    }
+
+    @Test
+    public void testLoad_whenPersistedEntryExpired_returnsFalse() {
+        recordAndFlush("https://a.com/1");
+        final String entry = persistedValues.get(CACHE_KEY);
+        final String hash = entry.substring(0, entry.indexOf(':'));
+        final long expiredTimestamp = System.currentTimeMillis() - TTL_MILLIS - 1000;
+        persistedValues.put(CACHE_KEY, hash + ":" + Long.toString(expiredTimestamp, 36));
+
+        assertFalse(cache().contains("https://a.com/1"));
+    }
+
+    @Test
+    public void testClear_removesPersistedCache() {
+        final AudienceDestCache cache = cache();
+        cache.recordSent("https://a.com/1");
+
+        cache.clear();
+        cache.flush();
+
+        // the pending write was dropped as well
+        assertFalse(cache.contains("https://a.com/1"));
+        assertNull(persistedValues.get(CACHE_KEY));
+    }
+
+    @Test
+    public void testRecordSent_writesCacheOnceForUrlsRecordedBeforeFlush() {
+        final AudienceDestCache cache = cache();
+
+        cache.recordSent("https://a.com/1");
+        cache.recordSent("https://a.com/2");
+        cache.recordSent("https://a.com/3");
+
+        verify(namedCollection, never()).setString(anyString(), anyString());
+
+        cache.flush();
+        cache.flush();
+
+        verify(namedCollection, times(1)).setString(eq(CACHE_KEY), anyString());
+        assertEquals(3, persistedValues.get(CACHE_KEY).split(",").length);
+    }
+
+    @Test
+    public void testCache_whenNoNamedCollection_keepsUrlsInMemory() {
+        final AudienceDestCache cache = new AudienceDestCache(null);
+        cache.setTtl(TTL_MILLIS);
+
+        cache.recordSent("https://a.com/1");
+
+        assertTrue(cache.contains("https://a.com/1"));
+    }
+
+    private void recordAndFlush(final String url) {
+        final AudienceDestCache cache = cache();
+        cache.recordSent(url);
+        cache.flush();
+    }
+
+    private AudienceDestCache cache() {
+        final AudienceDestCache cache = new AudienceDestCache(namedCollection);
+        cache.setTtl(TTL_MILLIS);
+        return cache;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.HttpConnecting;
+import com.adobe.marketing.mobile.services.NetworkCallback;
+import com.adobe.marketing.mobile.services.NetworkRequest;
+import com.adobe.marketing.mobile.services.Networking;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AudienceDestForwarderTests {
+
+    @Mock private Networking mockNetworkService;
+
+    @Mock private ServiceProvider mockServiceProvider;
+
+    @Mock private HttpConnecting mockConnection;
+
+    private final MockedStatic<ServiceProvider> mockedStaticServiceProvider =
+            Mockito.mockStatic(ServiceProvider.class);
+
+    private final List<NetworkRequest> requests = new ArrayList<>();
+    private final List<NetworkCallback> callbacks = new ArrayList<>();
+    private final AudienceDestForwarder forwarder = new AudienceDestForwarder();
+
+    @Before
+    public void setup() {
+        mockedStaticServiceProvider
+                .when(ServiceProvider::getInstance)
+                .thenReturn(mockServiceProvider);
+        when(mockServiceProvider.getNetworkService()).thenReturn(mockNetworkService);
+        doAnswer(
+                        invocation -> {
+                            requests.add(invocation.getArgument(0));
+                            callbacks.add(invocation.getArgument(1));
+                            return null;
+                        })
+                .when(mockNetworkService)
+                .connectAsync(any(NetworkRequest.class), any(NetworkCallback.class));
+    }
+
+    @After
+    public void tearDown() {
+        forwarder.shutdown();
+        reset(mockNetworkService);
+        mockedStaticServiceProvider.close();
+        reset(mockServiceProvider);
+    }
+
+    @Test
+    public void testForward_whenUnderLimits_sendsAllRequests() {
+        forwarder.forward(Arrays.asList("https://a.com/1", "https://b.com/1"), 5);
+
+        assertEquals(2, requests.size());
+        assertEquals("https://a.com/1", requests.get(0).getUrl());
+        assertEquals("https://b.com/1", requests.get(1).getUrl());
+        assertEquals(5, requests.get(0).getConnectTimeout());
+        assertEquals(5, requests.get(0).getReadTimeout());
+    }
+
+    @Test
+    public void testForward_whenConcurrencyLimitReached_queuesRequests() {
+        forwarder.configure(2, 2, 0);
+
+        forwarder.forward(
+                Arrays.asList("https://a.com/1", "https://b.com/1", "https://c.com/1"), 5);
+
+        assertEquals(2, requests.size());
+
+        complete(0, HttpURLConnection.HTTP_OK);
+
+        assertEquals(3, requests.size());
+        assertEquals("https://c.com/1", requests.get(2).getUrl());
+        assertEquals(1, forwarder.getSentCount());
+    }
+
+    @Test
+    public void testForward_whenHostLimitReached_sendsRequestsToOtherHosts() {
+        forwarder.configure(4, 1, 0);
+
+        forwarder.forward(
+                Arrays.asList("https://a.com/1", "https://a.com/2", "https://b.com/1"), 5);
+
+        assertEquals(2, requests.size());
+        assertEquals("https://a.com/1", requests.get(0).getUrl());
+        assertEquals("https://b.com/1", requests.get(1).getUrl());
+
+        complete(0, HttpURLConnection.HTTP_NOT_FOUND);
+
+        assertEquals(3, requests.size());
+        assertEquals("https://a.com/2", requests.get(2).getUrl());
+        assertEquals(1, forwarder.getFailedCount());
+    }
+
+    @Test
+    public void testForward_whenSameUrlWithinDedupeWindow_sendsOnce() {
+        forwarder.configure(4, 2, 60000);
+
+        forwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/1"), 5);
+        forwarder.forward(Collections.singletonList("https://a.com/1"), 5);
+
+        assertEquals(1, requests.size());
+        assertEquals(2, forwarder.getDedupedCount());
+    }
+
+    @Test
+    public void testForward_whenDedupeDisabled_sendsEveryUrl() {
+        forwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/1"), 5);
+
+        assertEquals(2, requests.size());
+        assertEquals(0, forwarder.getDedupedCount());
+    }
+
+    @Test
+    public void testForward_whenQueueFull_dropsOldestRequests() {
+        forwarder.configure(1, 1, 0);
+        final List<String> urls = new ArrayList<>();
+        for (int i = 0; i <= AudienceConstants.MAX_PENDING_DESTS; i++) {
+            urls.add("https://a.com/" + i);
+        }
+
+        forwarder.forward(urls, 5);
+
+        // the first URL was dropped to make room for the last one
+        assertEquals(1, requests.size());
+        assertEquals("https://a.com/1", requests.get(0).getUrl());
+        assertEquals(1, forwarder.getDroppedCount());
+    }
+
+    @Test
+    public void testForward_whenConnectionNull_countsFailure() {
+        forwarder.forward(Collections.singletonList("https://a.com/1"), 5);
+
+        callbacks.get(0).call(null);
+
+        assertEquals(1, forwarder.getFailedCount());
+        assertEquals(0, forwarder.getSentCount());
+    }
+
+    @Test
+    public void testForward_whenNetworkServiceNull_countsFailure() {
+        forwarder.configure(1, 1, 0);
+        forwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/2"), 5);
+        when(mockServiceProvider.getNetworkService()).thenReturn(null);
+
+        complete(0, HttpURLConnection.HTTP_OK);
+
+        verify(mockNetworkService, times(1))
+                .connectAsync(any(NetworkRequest.class), any(NetworkCallback.class));
+        assertEquals(1, forwarder.getSentCount());
+        assertEquals(1, forwarder.getFailedCount());
+    }
+
+    @Test
+    public void testShutdown_dropsPendingRequests() {
+        forwarder.configure(1, 1, 0);
+        forwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/2"), 5);
+
+        forwarder.shutdown();
+        complete(0, HttpURLConnection.HTTP_OK);
+
+        verify(mockNetworkService, times(1))
+                .connectAsync(any(NetworkRequest.class), any(NetworkCallback.class));
+        assertEquals(1, forwarder.getDroppedCount());
+        assertEquals(1, forwarder.getSentCount());
+    }
+
+    @Test
+    public void testForward_whenRetryableFailure_passesRequestToRetryCallback() {
+        final List<String> retriedUrls = new ArrayList<>();
+        final AudienceDestForwarder retryingForwarder =
+                new AudienceDestForwarder((url, timeoutSec) -> retriedUrls.add(url), null);
+
+        retryingForwarder.forward(
+                Arrays.asList("https://a.com/1", "https://b.com/1", "https://c.com/1"), 5);
+        callbacks.get(0).call(null);
+        complete(1, HttpURLConnection.HTTP_UNAVAILABLE);
+        complete(2, HttpURLConnection.HTTP_NOT_FOUND);
+
+        assertEquals(Arrays.asList("https://a.com/1", "https://b.com/1"), retriedUrls);
+        assertEquals(2, retryingForwarder.getDeferredCount());
+        assertEquals(3, retryingForwarder.getFailedCount());
+        assertEquals(0, retryingForwarder.getDroppedCount());
+    }
+
+    @Test
+    public void testShutdown_whenRetryCallback_passesPendingRequestsToRetryCallback() {
+        final List<String> retriedUrls = new ArrayList<>();
+        final AudienceDestForwarder retryingForwarder =
+                new AudienceDestForwarder((url, timeoutSec) -> retriedUrls.add(url), null);
+        retryingForwarder.configure(1, 1, 0);
+        final List<String> urls = new ArrayList<>();
+        for (int i = 0; i <= AudienceConstants.MAX_PENDING_DESTS; i++) {
+            urls.add("https://a.com/" + i);
+        }
+
+        retryingForwarder.forward(urls, 5);
+
+        // the first URL did not fit in the queue
+        assertEquals(Collections.singletonList("https://a.com/0"), retriedUrls);
+
+        retryingForwarder.shutdown();
+
+        assertEquals(1, requests.size());
+        assertEquals(AudienceConstants.MAX_PENDING_DESTS, retriedUrls.size());
+        assertEquals(0, retryingForwarder.getDroppedCount());
+    }
+
+    @Test
+    public void testClear_dropsPendingAndInFlightRequestsWithoutRetrying() {
+        final List<String> retriedUrls = new ArrayList<>();
+        final AudienceDestForwarder retryingForwarder =
+                new AudienceDestForwarder((url, timeoutSec) -> retriedUrls.add(url), null);
+        retryingForwarder.configure(1, 1, 60000);
+
+        retryingForwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/2"), 5);
+        retryingForwarder.clear();
+        callbacks.get(0).call(null);
+
+        // the pending request was dropped, and the failed one is not retried
+        assertEquals(1, requests.size());
+        assertEquals(Collections.emptyList(), retriedUrls);
+
+        // the recently forwarded URLs were forgotten as well
+        retryingForwarder.forward(Collections.singletonList("https://a.com/1"), 5);
+        complete(1, HttpURLConnection.HTTP_UNAVAILABLE);
+
+        assertEquals(2, requests.size());
+        assertEquals(Collections.singletonList("https://a.com/1"), retriedUrls);
+        assertEquals(0, retryingForwarder.getDedupedCount());
+    }
+
+    @Test
+    public void testForward_whenUrlInSentCache_skipsUrl() {
+        final AudienceDestCache sentCache = new AudienceDestCache(null);
+        sentCache.setTtl(60000);
+        final AudienceDestForwarder cachingForwarder = new AudienceDestForwarder(null, sentCache);
+
+        cachingForwarder.forward(Collections.singletonList("https://a.com/1"), 5);
+        complete(0, HttpURLConnection.HTTP_OK);
+        cachingForwarder.forward(Arrays.asList("https://a.com/1", "https://a.com/2"), 5);
+
+        assertEquals(2, requests.size());
+        assertEquals("https://a.com/2", requests.get(1).getUrl());
+        assertEquals(1, sentCache.getHitCount());
+    }
+
+    private void complete(final int index, final int responseCode) {
+        when(mockConnection.getResponseCode()).thenReturn(responseCode);
+        callbacks.get(index).call(mockConnection);
+        verify(mockConnection, Mockito.atLeastOnce()).close();
+    }
+}
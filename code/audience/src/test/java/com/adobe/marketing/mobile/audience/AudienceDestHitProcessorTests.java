@@ -0,0 +1,173 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.DataEntity;
+import com.adobe.marketing.mobile.services.HttpConnecting;
+import com.adobe.marketing.mobile.services.HttpMethod;
+import com.adobe.marketing.mobile.services.NetworkCallback;
+import com.adobe.marketing.mobile.services.NetworkRequest;
+import com.adobe.marketing.mobile.services.Networking;
+import com.adobe.marketing.mobile.services.ServiceProvider;
+import java.net.HttpURLConnection;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AudienceDestHitProcessorTests {
+
+    private static final String DEST_URL = "https://partner.com/sync?id=123";
+
+    private final AudienceDestHitProcessor processor = new AudienceDestHitProcessor(null);
+
+    @Mock private Networking mockNetworkService;
+
+    @Mock private HttpConnecting mockConnection;
+
+    @Before
+    public void setup() {
+        ServiceProvider.getInstance().setNetworkService(mockNetworkService);
+    }
+
+    @After
+    public void tearDown() {
+        reset(mockConnection);
+        reset(mockNetworkService);
+    }
+
+    @Test
+    public void testProcessHit_whenResponseIsValid_doesNotRetry() {
+        when(mockConnection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+
+        processor.processHit(
+                AudienceDestHitProcessor.toDataEntity(DEST_URL, 4), Assert::assertTrue);
+
+        final NetworkRequest request = sendResponse(mockConnection);
+        assertEquals(DEST_URL, request.getUrl());
+        assertEquals(HttpMethod.GET, request.getMethod());
+        assertEquals(4, request.getConnectTimeout());
+        assertEquals(4, request.getReadTimeout());
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testProcessHit_whenConnectionNull_retries() {
+        processor.processHit(
+                AudienceDestHitProcessor.toDataEntity(DEST_URL, 4), Assert::assertFalse);
+
+        sendResponse(null);
+    }
+
+    @Test
+    public void testProcessHit_whenRecoverableError_retries() {
+        when(mockConnection.getResponseCode())
+                .thenReturn(HttpURLConnection.HTTP_UNAVAILABLE);
+
+        processor.processHit(
+                AudienceDestHitProcessor.toDataEntity(DEST_URL, 4), Assert::assertFalse);
+
+        sendResponse(mockConnection);
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testProcessHit_whenUnrecoverableError_doesNotRetry() {
+        when(mockConnection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
+
+        processor.processHit(
+                AudienceDestHitProcessor.toDataEntity(DEST_URL, 4), Assert::assertTrue);
+
+        sendResponse(mockConnection);
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testProcessHit_whenExpired_discardsHitWithoutSending() {
+        final DataEntity entity = AudienceDestHitProcessor.toDataEntity(DEST_URL, 4);
+        final DataEntity expiredEntity =
+                new DataEntity(
+                        UUID.randomUUID().toString(),
+                        new Date(
+                                System.currentTimeMillis()
+                                        - AudienceConstants.DEST_HIT_TTL_MILLIS
+                                        - 1000),
+                        entity.getData());
+
+        processor.processHit(expiredEntity, Assert::assertTrue);
+
+        verify(mockNetworkService, never()).connectAsync(any(), any());
+        assertEquals(1, processor.getExpiredCount());
+    }
+
+    @Test
+    public void testProcessHit_whenInvalidDataEntity_discardsHit() {
+        processor.processHit(new DataEntity("invalid dest hit"), Assert::assertTrue);
+        processor.processHit(new DataEntity("DEST1\nabc\n" + DEST_URL), Assert::assertTrue);
+
+        verify(mockNetworkService, never()).connectAsync(any(), any());
+    }
+
+    @Test
+    public void testRetryInterval_growsExponentiallyAndResetsOnSuccess() {
+        final DataEntity entity = AudienceDestHitProcessor.toDataEntity(DEST_URL, 4);
+        final int baseInterval = AudienceConstants.DEST_RETRY_BASE_SECONDS;
+        assertEquals(baseInterval, processor.retryInterval(entity));
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            reset(mockNetworkService);
+            processor.processHit(entity, Assert::assertFalse);
+            sendResponse(null);
+        }
+
+        assertEquals(baseInterval * 4, processor.retryInterval(entity));
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            reset(mockNetworkService);
+            processor.processHit(entity, Assert::assertFalse);
+            sendResponse(null);
+        }
+
+        assertEquals(AudienceConstants.DEST_RETRY_MAX_SECONDS, processor.retryInterval(entity));
+
+        when(mockConnection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+        reset(mockNetworkService);
+        processor.processHit(entity, Assert::assertTrue);
+        sendResponse(mockConnection);
+
+        assertEquals(baseInterval, processor.retryInterval(entity));
+    }
+
+    private NetworkRequest sendResponse(final HttpConnecting connection) {
+        final ArgumentCaptor<NetworkRequest> requestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        final ArgumentCaptor<NetworkCallback> callbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService).connectAsync(requestCaptor.capture(), callbackCaptor.capture());
+        callbackCaptor.getValue().call(connection);
+        return requestCaptor.getValue();
+    }
+}
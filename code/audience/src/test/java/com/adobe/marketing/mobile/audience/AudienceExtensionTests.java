@@ -14,9 +14,11 @@ package com.adobe.marketing.mobile.audience;
 import static com.adobe.marketing.mobile.audience.AudienceTestConstants.EventDataKeys.Analytics.ANALYTICS_SERVER_RESPONSE_KEY;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -24,11 +26,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.adobe.marketing.mobile.AdobeCallbackWithError;
+import com.adobe.marketing.mobile.Audience;
 import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.ExtensionApi;
 import com.adobe.marketing.mobile.ExtensionEventListener;
+import com.adobe.marketing.mobile.MobileCore;
 import com.adobe.marketing.mobile.MobilePrivacyStatus;
 import com.adobe.marketing.mobile.SharedStateResolution;
 import com.adobe.marketing.mobile.SharedStateResult;
@@ -44,11 +49,16 @@ import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.DataReader;
 import com.adobe.marketing.mobile.util.DataReaderException;
 import com.adobe.marketing.mobile.util.SQLiteUtils;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -94,6 +104,9 @@ public class AudienceExtensionTests {
 
     @After
     public void tearDown() {
+        // clears the visitor profile published by this extension
+        audience.onUnregistered();
+        AudienceExtension.clearPendingReset();
         reset(mockExtensionApi);
         reset(mockState);
         reset(mockDataQueue);
@@ -151,6 +164,187 @@ public class AudienceExtensionTests {
         assertEquals(0, aamSharedState.size());
     }
 
+    @Test
+    public void testReadVisitorProfile_whenRegistered_returnsSharedProfile() throws Exception {
+        // setup
+        final HashMap<String, String> visitorProfile = new HashMap<>();
+        visitorProfile.put("someKey", "someValue");
+        when(mockState.getVisitorProfile()).thenReturn(visitorProfile);
+        when(mockState.getStateData()).thenCallRealMethod(); // allows calls to the mocked getters
+        final CompletableFuture<Map<String, String>> profile = new CompletableFuture<>();
+
+        // test
+        audience.onRegistered();
+
+        // verify
+        assertTrue(AudienceExtension.readVisitorProfile(profile::complete));
+        assertEquals(visitorProfile, profile.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReadVisitorProfile_callsCallbackOnAnotherThread() throws Exception {
+        // setup
+        when(mockState.getStateData()).thenCallRealMethod(); // allows calls to the mocked getters
+        final CompletableFuture<Thread> callbackThread = new CompletableFuture<>();
+
+        // test
+        audience.onRegistered();
+
+        // verify
+        assertTrue(
+                AudienceExtension.readVisitorProfile(
+                        profile -> callbackThread.complete(Thread.currentThread())));
+        assertNotEquals(Thread.currentThread(), callbackThread.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReadSegments_whenRegistered_queriesSharedProfile() throws Exception {
+        // setup
+        final HashMap<String, String> visitorProfile = new HashMap<>();
+        visitorProfile.put("aam_segments", "segs=123,456");
+        visitorProfile.put("other", "789");
+        when(mockState.getVisitorProfile()).thenReturn(visitorProfile);
+        when(mockState.getStateData()).thenCallRealMethod(); // allows calls to the mocked getters
+        final CompletableFuture<Boolean> inSegment = new CompletableFuture<>();
+        final CompletableFuture<Boolean> notInSegment = new CompletableFuture<>();
+        final CompletableFuture<List<String>> segments = new CompletableFuture<>();
+
+        // test
+        audience.onRegistered();
+
+        // verify
+        assertTrue(AudienceExtension.readSegmentMembership("456", inSegment::complete));
+        assertTrue(AudienceExtension.readSegmentMembership("1000", notInSegment::complete));
+        assertTrue(AudienceExtension.readSegments("aam_", segments::complete));
+        assertTrue(inSegment.get(1, TimeUnit.SECONDS));
+        assertFalse(notInSegment.get(1, TimeUnit.SECONDS));
+        assertEquals(
+                Collections.singletonList("aam_segments"), segments.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReadVisitorProfile_whenUnregistered_returnsFalse() {
+        // setup
+        audience.onRegistered();
+
+        // test
+        audience.onUnregistered();
+
+        // verify
+        assertFalse(AudienceExtension.readVisitorProfile(profile -> fail()));
+    }
+
+    @Test
+    public void testGetVisitorProfile_afterReset_waitsForResetToBeHandled() throws Exception {
+        // setup
+        final Map<String, Object> stateData = getVisitorProfileStateData("someKey", "someValue");
+        final AtomicLong resetGeneration = new AtomicLong();
+        when(mockState.getStateData()).thenAnswer(invocation -> new HashMap<>(stateData));
+        when(mockState.getResetGeneration()).thenAnswer(invocation -> resetGeneration.get());
+        doAnswer(
+                        invocation -> {
+                            stateData.clear();
+                            resetGeneration.incrementAndGet();
+                            return null;
+                        })
+                .when(mockState)
+                .clearIdentifiers();
+        audience.onRegistered();
+        final List<Map<String, String>> profiles = new ArrayList<>();
+
+        // test
+        try (MockedStatic<MobileCore> mockCore = Mockito.mockStatic(MobileCore.class)) {
+            Audience.reset();
+            Audience.getVisitorProfile(profiles::add);
+
+            // verify the profile request is answered by the extension, after the reset
+            mockCore.verify(
+                    () ->
+                            MobileCore.dispatchEventWithResponseCallback(
+                                    any(Event.class), anyLong(), any(AdobeCallbackWithError.class)),
+                    times(1));
+        }
+        assertTrue(profiles.isEmpty());
+
+        audience.handleResetIdentities(
+                new Event.Builder(
+                                "TestAAMReset",
+                                EventType.AUDIENCEMANAGER,
+                                EventSource.REQUEST_RESET)
+                        .build());
+
+        // verify
+        final CompletableFuture<Map<String, String>> profile = new CompletableFuture<>();
+        assertTrue(AudienceExtension.readVisitorProfile(profile::complete));
+        assertNull(profile.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testGetVisitorProfile_afterResetFromAnotherSource_readsSharedProfile()
+            throws Exception {
+        // setup
+        final Map<String, Object> stateData = getVisitorProfileStateData("someKey", "someValue");
+        final AtomicLong resetGeneration = new AtomicLong();
+        when(mockState.getStateData()).thenAnswer(invocation -> new HashMap<>(stateData));
+        when(mockState.getResetGeneration()).thenAnswer(invocation -> resetGeneration.get());
+        doAnswer(
+                        invocation -> {
+                            stateData.clear();
+                            resetGeneration.incrementAndGet();
+                            return null;
+                        })
+                .when(mockState)
+                .clearIdentifiers();
+        audience.onRegistered();
+        AudienceExtension.onResetRequested();
+        assertFalse(AudienceExtension.readVisitorProfile(profile -> fail()));
+
+        // test
+        audience.handleResetIdentities(
+                new Event.Builder(
+                                "TestGenericReset",
+                                EventType.GENERIC_IDENTITY,
+                                EventSource.REQUEST_RESET)
+                        .build());
+
+        // verify
+        final CompletableFuture<Map<String, String>> profile = new CompletableFuture<>();
+        assertTrue(AudienceExtension.readVisitorProfile(profile::complete));
+        assertNull(profile.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReadVisitorProfile_afterOptOut_returnsClearedProfile() throws Exception {
+        // setup
+        final Map<String, Object> stateData = getVisitorProfileStateData("someKey", "someValue");
+        final AtomicLong resetGeneration = new AtomicLong();
+        when(mockState.getStateData()).thenAnswer(invocation -> new HashMap<>(stateData));
+        when(mockState.getResetGeneration()).thenAnswer(invocation -> resetGeneration.get());
+        doAnswer(
+                        invocation -> {
+                            stateData.clear();
+                            resetGeneration.incrementAndGet();
+                            return null;
+                        })
+                .when(mockState)
+                .setMobilePrivacyStatus(MobilePrivacyStatus.OPT_OUT);
+        audience.onRegistered();
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("global.privacy", "optedout");
+        final CompletableFuture<Map<String, String>> profile = new CompletableFuture<>();
+
+        // test
+        audience.handleConfigurationResponse(
+                new Event.Builder(
+                                "TestConfig", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+                        .setEventData(configuration)
+                        .build());
+
+        // verify
+        assertTrue(AudienceExtension.readVisitorProfile(profile::complete));
+        assertNull(profile.get(1, TimeUnit.SECONDS));
+    }
+
     @Test
     public void testOnRegistered_registersCorrectListeners() {
         audience.onRegistered();
@@ -160,7 +354,7 @@ public class AudienceExtensionTests {
         final ArgumentCaptor<String> eventSourceCaptor = ArgumentCaptor.forClass(String.class);
         final ArgumentCaptor<ExtensionEventListener> listenerCaptor =
                 ArgumentCaptor.forClass(ExtensionEventListener.class);
-        verify(mockExtensionApi, times(7))
+        verify(mockExtensionApi, times(9))
                 .registerEventListener(
                         eventTypeCaptor.capture(),
                         eventSourceCaptor.capture(),
@@ -173,12 +367,18 @@ public class AudienceExtensionTests {
         assertEquals(EventSource.REQUEST_IDENTITY, eventSourceCaptor.getAllValues().get(2));
         assertEquals(EventType.AUDIENCEMANAGER, eventTypeCaptor.getAllValues().get(3));
         assertEquals(EventSource.REQUEST_RESET, eventSourceCaptor.getAllValues().get(3));
-        assertEquals(EventType.CONFIGURATION, eventTypeCaptor.getAllValues().get(4));
-        assertEquals(EventSource.RESPONSE_CONTENT, eventSourceCaptor.getAllValues().get(4));
-        assertEquals(EventType.GENERIC_IDENTITY, eventTypeCaptor.getAllValues().get(5));
-        assertEquals(EventSource.REQUEST_RESET, eventSourceCaptor.getAllValues().get(5));
-        assertEquals(EventType.LIFECYCLE, eventTypeCaptor.getAllValues().get(6));
-        assertEquals(EventSource.RESPONSE_CONTENT, eventSourceCaptor.getAllValues().get(6));
+        assertEquals(EventType.AUDIENCEMANAGER, eventTypeCaptor.getAllValues().get(4));
+        assertEquals(
+                "com.adobe.eventSource.audienceCoalescingWindow",
+                eventSourceCaptor.getAllValues().get(4));
+        assertEquals(EventType.CONFIGURATION, eventTypeCaptor.getAllValues().get(5));
+        assertEquals(EventSource.RESPONSE_CONTENT, eventSourceCaptor.getAllValues().get(5));
+        assertEquals(EventType.GENERIC_IDENTITY, eventTypeCaptor.getAllValues().get(6));
+        assertEquals(EventSource.REQUEST_RESET, eventSourceCaptor.getAllValues().get(6));
+        assertEquals(EventType.GENERIC_LIFECYCLE, eventTypeCaptor.getAllValues().get(7));
+        assertEquals(EventSource.REQUEST_CONTENT, eventSourceCaptor.getAllValues().get(7));
+        assertEquals(EventType.LIFECYCLE, eventTypeCaptor.getAllValues().get(8));
+        assertEquals(EventSource.RESPONSE_CONTENT, eventSourceCaptor.getAllValues().get(8));
     }
 
     @Test
@@ -460,6 +660,58 @@ public class AudienceExtensionTests {
         assertEquals(testEvent.getUniqueIdentifier(), eventCaptor.getValue().getUniqueIdentifier());
     }
 
+    @Test
+    public void
+            testHandleResetIdentities_whenProfileChangeEventsEnabled_dispatchesRemovedSegments() {
+        // setup
+        final Map<String, String> visitorProfile = new HashMap<>();
+        visitorProfile.put("segment", "value");
+        when(mockState.getVisitorProfile()).thenReturn(visitorProfile, (Map<String, String>) null);
+        audience.handleConfigurationResponse(getProfileChangeConfigurationEvent(true));
+        final Event testEvent =
+                new Event.Builder(
+                                "TestAAMReset",
+                                EventType.AUDIENCEMANAGER,
+                                EventSource.REQUEST_RESET)
+                        .build();
+
+        // test
+        audience.handleResetIdentities(testEvent);
+
+        // verify
+        final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi).dispatch(eventCaptor.capture());
+        final Event profileChangeEvent = eventCaptor.getValue();
+        assertEquals(EventType.AUDIENCEMANAGER, profileChangeEvent.getType());
+        assertEquals("com.adobe.eventSource.notification", profileChangeEvent.getSource());
+        assertEquals(
+                visitorProfile,
+                DataReader.optStringMap(
+                        profileChangeEvent.getEventData(), "aamprofileremoved", null));
+        assertTrue(
+                DataReader.optStringMap(profileChangeEvent.getEventData(), "aamprofileadded", null)
+                        .isEmpty());
+    }
+
+    @Test
+    public void testHandleResetIdentities_whenProfileChangeEventsDisabled_doesNotDispatchEvent() {
+        // setup
+        audience.handleConfigurationResponse(getProfileChangeConfigurationEvent(false));
+        final Event testEvent =
+                new Event.Builder(
+                                "TestAAMReset",
+                                EventType.AUDIENCEMANAGER,
+                                EventSource.REQUEST_RESET)
+                        .build();
+
+        // test
+        audience.handleResetIdentities(testEvent);
+
+        // verify
+        verify(mockState).clearIdentifiers();
+        verify(mockExtensionApi, never()).dispatch(any(Event.class));
+    }
+
     @Test
     public void testHandleAnalyticsResponse_whenAAMForwardingEnabled_updatesLocalAndSharedState() {
         Map<String, Object> eventData = new HashMap<>();
@@ -710,6 +962,24 @@ public class AudienceExtensionTests {
         assertTrue(audienceEntity.getUrl().contains("c_a_Launches=2&c_a_AppID=someAppID"));
     }
 
+    @Test
+    public void testHandleLifecycleRequest_whenPause_flushesPersistence() {
+        // test
+        audience.handleLifecycleRequest(getLifecycleRequestEvent("pause"));
+
+        // verify
+        verify(mockState).flushPersistence();
+    }
+
+    @Test
+    public void testHandleLifecycleRequest_whenStart_doesNotFlushPersistence() {
+        // test
+        audience.handleLifecycleRequest(getLifecycleRequestEvent("start"));
+
+        // verify
+        verify(mockState, never()).flushPersistence();
+    }
+
     @Test
     public void
             testHandleAudienceRequestContent_whenAudienceNotConfigured_dispatchesResponseWithNullProfile()
@@ -939,6 +1209,93 @@ public class AudienceExtensionTests {
         assertEquals(4, audienceEntity.getTimeoutSec());
     }
 
+    @Test
+    public void testHandleAudienceRequestContent_whenStateUnchanged_reusesUrlPrefix() {
+        // setup
+        when(mockDeviceInfoService.getCanonicalPlatformName()).thenReturn("mockPlatform");
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+        mockIdentitySharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeIdentityEventData()));
+        setAudienceManagerStateProperties();
+
+        final Map<String, String> secondTraits = new HashMap<>();
+        secondTraits.put("otherKey", "otherValue");
+
+        // test
+        audience.handleAudienceRequestContent(getSubmitSignalEvent(getFakeAamTraitsEventData()));
+        audience.handleAudienceRequestContent(
+                getSubmitSignalEvent(getFakeAamTraitsEventData(secondTraits)));
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue, times(2)).queue(entityCaptor.capture());
+        final String firstUrl =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(0)).getUrl();
+        final String secondUrl =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(1)).getUrl();
+        assertEquals("c_traitKey=traitValue", firstUrl.substring(firstUrl.indexOf("c_")));
+        assertTrue(secondUrl.startsWith(firstUrl.substring(0, firstUrl.indexOf("c_"))));
+        assertTrue(secondUrl.contains("c_otherKey=otherValue"));
+        assertTrue(secondUrl.contains("d_uuid=testuuid"));
+        verify(mockDeviceInfoService, times(1)).getCanonicalPlatformName();
+    }
+
+    @Test
+    public void testHandleAudienceRequestContent_whenUuidChanged_rebuildsUrlPrefix() {
+        // setup
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+        mockIdentitySharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeIdentityEventData()));
+        when(mockState.getUuid()).thenReturn("firstuuid", "seconduuid");
+
+        // test
+        audience.handleAudienceRequestContent(getSubmitSignalEvent(getFakeAamTraitsEventData()));
+        audience.handleAudienceRequestContent(getSubmitSignalEvent(getFakeAamTraitsEventData()));
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue, times(2)).queue(entityCaptor.capture());
+        final String firstUrl =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(0)).getUrl();
+        final String secondUrl =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(1)).getUrl();
+        assertTrue(firstUrl.contains("d_uuid=firstuuid"));
+        assertTrue(secondUrl.contains("d_uuid=seconduuid"));
+        assertFalse(secondUrl.contains("d_uuid=firstuuid"));
+    }
+
+    @Test
+    public void testHandleAudienceRequestContent_afterReadyForEvent_fetchesSharedStatesOnce() {
+        // setup
+        final Event event = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+        mockIdentitySharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeIdentityEventData()));
+        setAudienceManagerStateProperties();
+
+        // test
+        assertTrue(audience.readyForEvent(event));
+        audience.handleAudienceRequestContent(event);
+
+        // verify
+        verify(mockDataQueue).queue(any(DataEntity.class));
+        verify(mockExtensionApi, times(1))
+                .getSharedState(
+                        eq(AudienceTestConstants.EventDataKeys.Configuration.MODULE_NAME),
+                        eq(event),
+                        eq(false),
+                        any(SharedStateResolution.class));
+        verify(mockExtensionApi, times(1))
+                .getSharedState(
+                        eq(AudienceTestConstants.EventDataKeys.Identity.MODULE_NAME),
+                        eq(event),
+                        eq(false),
+                        any(SharedStateResolution.class));
+    }
+
     @Test
     public void testHandleAudienceRequestContent_whenNoTraitsNoCustomIds_packagesAllOtherParams() {
         // setup
@@ -1077,6 +1434,246 @@ public class AudienceExtensionTests {
         assertTrue(audienceEntity.getUrl().contains("c_trait_key=trait.value"));
     }
 
+    @Test
+    public void testHandleAudienceRequestContent_whenCoalescingWindowSet_mergesSignalsIntoOneHit() {
+        // setup
+        final HashMap<String, String> firstTraits = new HashMap<>();
+        firstTraits.put("first", "1");
+        final Event firstEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(firstTraits));
+        final HashMap<String, String> secondTraits = new HashMap<>();
+        secondTraits.put("second", "2");
+        final Event secondEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(secondTraits));
+
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                60000L);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+
+        // test
+        audience.handleAudienceRequestContent(firstEvent);
+        audience.handleAudienceRequestContent(secondEvent);
+
+        // verify
+        verify(mockExtensionApi, times(2)).createPendingSharedState(any(Event.class));
+        verifyNoInteractions(mockDataQueue);
+
+        // test
+        audience.onUnregistered();
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue).queue(entityCaptor.capture());
+        AudienceDataEntity audienceEntity =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getValue());
+        assertNotNull(audienceEntity);
+        assertEquals(
+                firstEvent.getUniqueIdentifier(), audienceEntity.getEvent().getUniqueIdentifier());
+        assertTrue(audienceEntity.getUrl().contains("c_first=1"));
+        assertTrue(audienceEntity.getUrl().contains("c_second=2"));
+        assertEquals(4, audienceEntity.getTimeoutSec());
+
+        // test
+        audience.networkResponseHandler.complete("", audienceEntity.getEvent());
+
+        // verify
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi, times(2)).dispatch(eventCaptor.capture());
+        assertEquals(
+                firstEvent.getUniqueIdentifier(),
+                eventCaptor.getAllValues().get(0).getResponseID());
+        assertEquals(
+                secondEvent.getUniqueIdentifier(),
+                eventCaptor.getAllValues().get(1).getResponseID());
+    }
+
+    @Test
+    public void testHandleAudienceRequestContent_whenCoalescingWindowSet_conflictingTraits() {
+        // setup
+        final HashMap<String, String> firstTraits = new HashMap<>();
+        firstTraits.put("trait", "1");
+        final Event firstEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(firstTraits));
+        final HashMap<String, String> secondTraits = new HashMap<>();
+        secondTraits.put("trait", "2");
+        final Event secondEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(secondTraits));
+
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                60000L);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+
+        // test
+        audience.handleAudienceRequestContent(firstEvent);
+        audience.handleAudienceRequestContent(secondEvent);
+        audience.onUnregistered();
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue, times(2)).queue(entityCaptor.capture());
+        assertTrue(
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(0))
+                        .getUrl()
+                        .contains("c_trait=1"));
+        assertTrue(
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(1))
+                        .getUrl()
+                        .contains("c_trait=2"));
+    }
+
+    @Test
+    public void testHandleCoalescingWindowClosed_queuesPendingSignal() {
+        // setup
+        final Event event = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                60000L);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+        audience.handleAudienceRequestContent(event);
+        verifyNoInteractions(mockDataQueue);
+
+        // test
+        audience.handleCoalescingWindowClosed(getCoalescingWindowClosedEvent(1));
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue).queue(entityCaptor.capture());
+        assertEquals(
+                event.getUniqueIdentifier(),
+                AudienceDataEntity.fromDataEntity(entityCaptor.getValue())
+                        .getEvent()
+                        .getUniqueIdentifier());
+    }
+
+    @Test
+    public void testHandleLifecycleResponse_whenSignalCoalescing_queuesCoalescedSignalFirst() {
+        // setup
+        final Event signalEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final Event lifecycleEvent = getLifecycleEvent(getFakeLifecycleEventData());
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                60000L);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+
+        // test
+        audience.handleAudienceRequestContent(signalEvent);
+        audience.handleLifecycleResponse(lifecycleEvent);
+        audience.handleCoalescingWindowClosed(getCoalescingWindowClosedEvent(1));
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue, times(2)).queue(entityCaptor.capture());
+        assertEquals(
+                signalEvent.getUniqueIdentifier(),
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(0))
+                        .getEvent()
+                        .getUniqueIdentifier());
+        assertEquals(
+                lifecycleEvent.getUniqueIdentifier(),
+                AudienceDataEntity.fromDataEntity(entityCaptor.getAllValues().get(1))
+                        .getEvent()
+                        .getUniqueIdentifier());
+    }
+
+    @Test
+    public void testHandleResetIdentities_whenSignalCoalescing_discardsPendingSignal() {
+        // setup
+        final Event event = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_COALESCING_WINDOW,
+                60000L);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+        audience.handleAudienceRequestContent(event);
+
+        // test
+        audience.handleResetIdentities(
+                new Event.Builder(
+                                "TestAAMReset",
+                                EventType.AUDIENCEMANAGER,
+                                EventSource.REQUEST_RESET)
+                        .build());
+        audience.handleCoalescingWindowClosed(getCoalescingWindowClosedEvent(1));
+
+        // verify
+        verifyNoInteractions(mockDataQueue);
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi).dispatch(eventCaptor.capture());
+        assertEquals(event.getUniqueIdentifier(), eventCaptor.getValue().getResponseID());
+        assertNull(
+                DataReader.optStringMap(
+                        eventCaptor.getValue().getEventData(),
+                        AudienceTestConstants.EventDataKeys.Audience.VISITOR_PROFILE,
+                        null));
+    }
+
+    @Test
+    public void testHandleAudienceRequestContent_whenDedupeEnabled_foldsIdenticalQueuedSignals() {
+        // setup
+        final HashMap<String, String> traits = new HashMap<>();
+        traits.put("trait", "1");
+        final Event firstEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(traits));
+        final Event secondEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(traits));
+
+        final Map<String, Object> fakeConfigData = getFakeConfigEventData();
+        fakeConfigData.put(
+                AudienceTestConstants.EventDataKeys.Configuration.AAM_CONFIG_DEDUPE_QUEUED_SIGNALS,
+                true);
+        mockConfigSharedState(new SharedStateResult(SharedStateStatus.SET, fakeConfigData));
+        audience.handleConfigurationResponse(
+                new Event.Builder(
+                                "TestConfig", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+                        .setEventData(fakeConfigData)
+                        .build());
+        when(mockDataQueue.queue(any(DataEntity.class))).thenReturn(true);
+
+        // test
+        audience.handleAudienceRequestContent(firstEvent);
+        audience.handleAudienceRequestContent(secondEvent);
+
+        // verify
+        ArgumentCaptor<DataEntity> entityCaptor = ArgumentCaptor.forClass(DataEntity.class);
+        verify(mockDataQueue).queue(entityCaptor.capture());
+        AudienceDataEntity audienceEntity =
+                AudienceDataEntity.fromDataEntity(entityCaptor.getValue());
+        assertNotNull(audienceEntity);
+        assertEquals(
+                firstEvent.getUniqueIdentifier(), audienceEntity.getEvent().getUniqueIdentifier());
+
+        // test
+        audience.networkResponseHandler.complete("", audienceEntity.getEvent());
+
+        // verify
+        ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi, times(2)).dispatch(eventCaptor.capture());
+        assertEquals(
+                firstEvent.getUniqueIdentifier(),
+                eventCaptor.getAllValues().get(0).getResponseID());
+        assertEquals(
+                secondEvent.getUniqueIdentifier(),
+                eventCaptor.getAllValues().get(1).getResponseID());
+    }
+
+    @Test
+    public void testHandleAudienceRequestContent_whenDedupeDisabled_queuesIdenticalSignals() {
+        // setup
+        final HashMap<String, String> traits = new HashMap<>();
+        traits.put("trait", "1");
+        final Event firstEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(traits));
+        final Event secondEvent = getSubmitSignalEvent(getFakeAamTraitsEventData(traits));
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+
+        // test
+        audience.handleAudienceRequestContent(firstEvent);
+        audience.handleAudienceRequestContent(secondEvent);
+
+        // verify
+        verify(mockDataQueue, times(2)).queue(any(DataEntity.class));
+    }
+
     @Test
     public void testHandleAudienceRequestContent_whenEmptyTraitKeys_skipsTheseKeys() {
         // setup
@@ -1260,6 +1857,39 @@ public class AudienceExtensionTests {
         assertEquals(HttpMethod.GET, networkRequestCaptor.getValue().getMethod());
     }
 
+    @Test
+    public void testNetworkResponseHandler_whenPairedRequestEvents_dispatchesProfileToEachEvent()
+            throws Exception {
+        // setup
+        final String mockResponse = "{'stuff':" + prepareStuffArray().toString() + "}";
+        final Event event = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final Event pairedEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+
+        // test
+        audience.networkResponseHandler.complete(
+                mockResponse, event, Collections.singletonList(pairedEvent));
+
+        // verify
+        verify(mockState).setVisitorProfile(any());
+        final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        // expect 3 events to be dispatched, one generic and one paired for each request event
+        verify(mockExtensionApi, times(3)).dispatch(eventCaptor.capture());
+        assertNull(eventCaptor.getAllValues().get(0).getResponseID());
+        assertEquals(
+                event.getUniqueIdentifier(), eventCaptor.getAllValues().get(1).getResponseID());
+        final Event pairedResponseEvent = eventCaptor.getAllValues().get(2);
+        assertEquals(pairedEvent.getUniqueIdentifier(), pairedResponseEvent.getResponseID());
+        Map<String, String> dispatchedVisitorProfile =
+                DataReader.optStringMap(
+                        pairedResponseEvent.getEventData(),
+                        AudienceTestConstants.EventDataKeys.Audience.VISITOR_PROFILE,
+                        null);
+        assertEquals(2, dispatchedVisitorProfile.size());
+        assertEquals("cookieValue", dispatchedVisitorProfile.get("cookieKey"));
+    }
+
     // =================================================================================================================
     // protected HashMap<String, String> processResponse(final String response, final Event event)
     // =================================================================================================================
@@ -1373,6 +2003,112 @@ public class AudienceExtensionTests {
                 .dispatch(any(Event.class)); // dispatches response content with empty data
     }
 
+    @Test
+    public void testNetworkResponseHandler_whenResponseStream_responseIsProperlyProcessed() {
+        // setup
+        final Event testEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final String jsonResponse =
+                "{"
+                        + "'uuid':'12345', "
+                        + "'stuff':[{'cn':'cookieName', 'cv':'key1=value1'}], "
+                        + "'dests':[{'c':'https://www.adobe.com'}]}";
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+
+        // test
+        audience.networkResponseHandler.completeWithStream(
+                new ByteArrayInputStream(jsonResponse.getBytes(StandardCharsets.UTF_8)),
+                testEvent,
+                null);
+
+        // verify
+        verify(mockState).setUuid(eq("12345"));
+        ArgumentCaptor<Map<String, String>> visitorProfileCaptor =
+                ArgumentCaptor.forClass(Map.class);
+        verify(mockState).setVisitorProfile(visitorProfileCaptor.capture());
+        assertEquals(1, visitorProfileCaptor.getValue().size());
+        assertEquals("key1=value1", visitorProfileCaptor.getValue().get("cookieName"));
+        verify(mockNetworkService)
+                .connectAsync(any(NetworkRequest.class), any(NetworkCallback.class));
+        verify(mockExtensionApi, times(2)).dispatch(any(Event.class));
+    }
+
+    @Test
+    public void testNetworkResponseHandler_whenEmptyResponseStream_dispatchesEmptyProfile() {
+        // setup
+        final Event testEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+
+        // test
+        audience.networkResponseHandler.completeWithStream(
+                new ByteArrayInputStream(new byte[0]), testEvent, null);
+
+        // verify
+        verify(mockState, never()).setUuid(any(String.class));
+        verify(mockState, never()).setVisitorProfile(any());
+        verifyNoInteractions(mockNetworkService);
+        final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi).dispatch(eventCaptor.capture());
+        assertEquals(testEvent.getUniqueIdentifier(), eventCaptor.getValue().getResponseID());
+        assertTrue(
+                DataReader.optStringMap(
+                                eventCaptor.getValue().getEventData(),
+                                AudienceTestConstants.EventDataKeys.Audience.VISITOR_PROFILE,
+                                null)
+                        .isEmpty());
+    }
+
+    @Test
+    public void testNetworkResponseHandler_whenWhitespaceResponseStream_dispatchesNoProfile() {
+        // setup
+        final Event testEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+
+        // test
+        audience.networkResponseHandler.completeWithStream(
+                new ByteArrayInputStream(" \n".getBytes(StandardCharsets.UTF_8)), testEvent, null);
+
+        // verify the response is handled like a malformed response
+        verify(mockState, never()).setUuid(any(String.class));
+        verify(mockState, never()).setVisitorProfile(any());
+        verifyNoInteractions(mockNetworkService);
+        final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockExtensionApi).dispatch(eventCaptor.capture());
+        assertEquals(testEvent.getUniqueIdentifier(), eventCaptor.getValue().getResponseID());
+        assertNull(
+                DataReader.optStringMap(
+                        eventCaptor.getValue().getEventData(),
+                        AudienceTestConstants.EventDataKeys.Audience.VISITOR_PROFILE,
+                        null));
+    }
+
+    @Test
+    public void testNetworkResponseHandler_whenResponseStreamTooLarge_doesNothing() {
+        // setup
+        final Event testEvent = getSubmitSignalEvent(getFakeAamTraitsEventData());
+        final StringBuilder jsonResponse = new StringBuilder("{'uuid':'12345', 'other':'");
+        for (int i = 0; i < AudienceConstants.MAX_AAM_RESPONSE_SIZE_BYTES; i++) {
+            jsonResponse.append('a');
+        }
+
+        jsonResponse.append("'}");
+        mockConfigSharedState(
+                new SharedStateResult(SharedStateStatus.SET, getFakeConfigEventData()));
+
+        // test
+        audience.networkResponseHandler.completeWithStream(
+                new ByteArrayInputStream(jsonResponse.toString().getBytes(StandardCharsets.UTF_8)),
+                testEvent,
+                null);
+
+        // verify
+        verify(mockState, never()).setUuid(any(String.class));
+        verify(mockState, never()).setVisitorProfile(any());
+        verifyNoInteractions(mockNetworkService);
+        verify(mockExtensionApi)
+                .dispatch(any(Event.class)); // dispatches response content with empty data
+    }
+
     private Map<String, Object> getFakeAamTraitsEventData() {
         return getFakeAamTraitsEventData(null);
     }
@@ -1475,6 +2211,34 @@ public class AudienceExtensionTests {
                 .build();
     }
 
+    private Map<String, Object> getVisitorProfileStateData(final String key, final String value) {
+        final Map<String, String> visitorProfile = new HashMap<>();
+        visitorProfile.put(key, value);
+        final Map<String, Object> stateData = new HashMap<>();
+        stateData.put(
+                AudienceTestConstants.EventDataKeys.Audience.VISITOR_PROFILE, visitorProfile);
+        return stateData;
+    }
+
+    private Event getCoalescingWindowClosedEvent(final long windowId) {
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("coalescingwindowid", windowId);
+        return new Event.Builder(
+                        "TEST",
+                        EventType.AUDIENCEMANAGER,
+                        "com.adobe.eventSource.audienceCoalescingWindow")
+                .setEventData(eventData)
+                .build();
+    }
+
+    private Event getLifecycleRequestEvent(final String action) {
+        final Map<String, Object> eventData = new HashMap<>();
+        eventData.put("action", action);
+        return new Event.Builder("TEST", EventType.GENERIC_LIFECYCLE, EventSource.REQUEST_CONTENT)
+                .setEventData(eventData)
+                .build();
+    }
+
     private Event getAnalyticsResponseEvent(final Map<String, Object> eventData) {
         return new Event.Builder(
                         "TestAnalyticsResponse", EventType.ANALYTICS, EventSource.RESPONSE_CONTENT)
@@ -1565,4 +2329,14 @@ public class AudienceExtensionTests {
                         any()))
                 .thenReturn(sharedStateResult);
     }
+
+    private Event getProfileChangeConfigurationEvent(final boolean enabled) {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("global.privacy", "optedin");
+        configuration.put("audience.profileChangeEvents", enabled);
+        return new Event.Builder(
+                        "TestConfig", EventType.CONFIGURATION, EventSource.RESPONSE_CONTENT)
+                .setEventData(configuration)
+                .build();
+    }
 }
@@ -0,0 +1,150 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AudienceHitRetryPolicyTests {
+
+    private static final String RETRY_KEY =
+            AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY;
+
+    private final Map<String, String> persistedValues = new HashMap<>();
+    private NamedCollection namedCollection;
+
+    @Before
+    public void setup() {
+        // a NamedCollection backed by persistedValues
+        namedCollection = mock(NamedCollection.class);
+        doAnswer(
+                        invocation -> {
+                            persistedValues.put(
+                                    invocation.getArgument(0), invocation.getArgument(1));
+                            return null;
+                        })
+                .when(namedCollection)
+                .setString(anyString(), anyString());
+        doAnswer(invocation -> persistedValues.remove(invocation.getArgument(0)))
+                .when(namedCollection)
+                .remove(anyString());
+        when(namedCollection.getString(anyString(), any()))
+                .thenAnswer(invocation -> persistedValues.get(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void testRetryInterval_dependsOnErrorClass() {
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+
+        policy.recordFailure("hit1", AudienceHitRetryPolicy.NO_RESPONSE);
+        assertInRange(2, 5, policy.retryInterval("hit1"));
+
+        policy.reset();
+        policy.recordFailure("hit1", HttpURLConnection.HTTP_CLIENT_TIMEOUT);
+        assertInRange(5, 10, policy.retryInterval("hit1"));
+
+        policy.reset();
+        policy.recordFailure("hit1", HttpURLConnection.HTTP_GATEWAY_TIMEOUT);
+        assertInRange(7, 15, policy.retryInterval("hit1"));
+
+        policy.reset();
+        policy.recordFailure("hit1", HttpURLConnection.HTTP_UNAVAILABLE);
+        assertInRange(15, 30, policy.retryInterval("hit1"));
+    }
+
+    @Test
+    public void testRetryInterval_growsExponentiallyUpToMaxInterval() {
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+        policy.setMaxInterval(100);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            policy.recordFailure("hit1", AudienceHitRetryPolicy.NO_RESPONSE);
+        }
+
+        assertInRange(10, 20, policy.retryInterval("hit1"));
+
+        for (int attempt = 0; attempt < 40; attempt++) {
+            policy.recordFailure("hit1", AudienceHitRetryPolicy.NO_RESPONSE);
+        }
+
+        assertInRange(50, 100, policy.retryInterval("hit1"));
+    }
+
+    @Test
+    public void testRecordFailure_whenOtherHit_restartsBackoff() {
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            policy.recordFailure("hit1", AudienceHitRetryPolicy.NO_RESPONSE);
+        }
+
+        policy.recordFailure("hit2", AudienceHitRetryPolicy.NO_RESPONSE);
+
+        assertEquals(1, policy.getAttempts());
+        assertInRange(2, 5, policy.retryInterval("hit2"));
+    }
+
+    @Test
+    public void testReset_restartsBackoffAndRemovesPersistedState() {
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            policy.recordFailure("hit1", HttpURLConnection.HTTP_UNAVAILABLE);
+        }
+
+        policy.reset();
+
+        assertEquals(0, policy.getAttempts());
+        assertNull(persistedValues.get(RETRY_KEY));
+        assertInRange(2, 5, policy.retryInterval("hit1"));
+    }
+
+    @Test
+    public void testRecordFailure_persistsAttemptsForNextLaunch() {
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            policy.recordFailure("hit1", HttpURLConnection.HTTP_UNAVAILABLE);
+        }
+
+        final AudienceHitRetryPolicy nextLaunchPolicy = new AudienceHitRetryPolicy(namedCollection);
+
+        assertEquals(3, nextLaunchPolicy.getAttempts());
+        assertInRange(60, 120, nextLaunchPolicy.retryInterval("hit1"));
+    }
+
+    @Test
+    public void testLoad_whenPersistedStateInvalid_ignoresState() {
+        persistedValues.put(RETRY_KEY, "abc:503:hit1");
+
+        final AudienceHitRetryPolicy policy = new AudienceHitRetryPolicy(namedCollection);
+
+        assertEquals(0, policy.getAttempts());
+        assertInRange(2, 5, policy.retryInterval("hit1"));
+    }
+
+    private static void assertInRange(final int min, final int max, final int actual) {
+        assertTrue(
+                "Expected " + actual + " to be in [" + min + ", " + max + "]",
+                actual >= min && actual <= max);
+    }
+}
@@ -12,12 +12,18 @@
 package com.adobe.marketing.mobile.audience;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,20 +31,27 @@ import com.adobe.marketing.mobile.Event;
 import com.adobe.marketing.mobile.EventSource;
 import com.adobe.marketing.mobile.EventType;
 import com.adobe.marketing.mobile.services.DataEntity;
+import com.adobe.marketing.mobile.services.DataQueue;
 import com.adobe.marketing.mobile.services.HttpConnecting;
 import com.adobe.marketing.mobile.services.NetworkCallback;
 import com.adobe.marketing.mobile.services.NetworkRequest;
 import com.adobe.marketing.mobile.services.Networking;
 import com.adobe.marketing.mobile.services.ServiceProvider;
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -61,6 +74,8 @@ public class AudienceHitsProcessorTest {
 
     @Mock private HttpConnecting mockConnection;
 
+    @Mock private DataQueue mockDataQueue;
+
     @Before
     public void setup() {
         ServiceProvider.getInstance().setNetworkService(mockNetworkService);
@@ -73,6 +88,7 @@ public class AudienceHitsProcessorTest {
         reset(mockNetworkResponseHandler);
         reset(mockNetworkService);
         reset(mockServiceProvider);
+        reset(mockDataQueue);
     }
 
     @Test
@@ -107,9 +123,15 @@ public class AudienceHitsProcessorTest {
                 .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
         networkCallbackCaptor.getValue().call(mockConnection);
 
+        ArgumentCaptor<InputStream> responseStreamCaptor =
+                ArgumentCaptor.forClass(InputStream.class);
         ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
-        verify(mockNetworkResponseHandler).complete(eq(""), requestEventCaptor.capture());
+        verify(mockNetworkResponseHandler)
+                .completeWithStream(
+                        responseStreamCaptor.capture(), requestEventCaptor.capture(), isNull());
+        assertNotNull(responseStreamCaptor.getValue());
         assertEqualEvents(mockAAMEvent, requestEventCaptor.getValue());
+        verify(mockNetworkResponseHandler, never()).complete(any(), any());
         verify(mockConnection).close();
     }
 
@@ -220,9 +242,534 @@ public class AudienceHitsProcessorTest {
     }
 
     @Test
-    public void testRetryAfter_returns30sec() {
+    public void testProcessHit_whenEventCannotBeDecoded_sendsHitWithoutDecodingEvent() {
+        audienceHitProcessor.processHit(
+                new DataEntity(
+                        "AAM2\nhitId\n"
+                                + System.currentTimeMillis()
+                                + "\n3\ninvalid event\nhttps://server/event?c_a=1"),
+                Assert::assertTrue);
+
+        // the request event is only decoded once the response is handled
+        verify(mockNetworkService).connectAsync(any(NetworkRequest.class), any());
+        verify(mockNetworkResponseHandler, never()).complete(any(), any());
+    }
+
+    @Test
+    public void testRetryInterval_whenRecoverableError_backsOffForErrorClass() {
+        when(mockConnection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_UNAVAILABLE);
+        AudienceDataEntity dataEntity = new AudienceDataEntity(mockAAMEvent, "serverName2.com", 3);
+        final DataEntity hit = dataEntity.toDataEntity();
+
+        audienceHitProcessor.processHit(hit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService)
+                .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
+        networkCallbackCaptor.getValue().call(mockConnection);
+
+        final int retryInterval = audienceHitProcessor.retryInterval(hit);
+        assertTrue(retryInterval >= 15 && retryInterval <= 30);
+    }
+
+    @Test
+    public void testRetryInterval_whenConnectionNull_retriesSoonerThanServerError() {
         AudienceDataEntity dataEntity = new AudienceDataEntity(mockAAMEvent, "serverName2.com", 3);
-        assertEquals(30, audienceHitProcessor.retryInterval(dataEntity.toDataEntity()));
+        final DataEntity hit = dataEntity.toDataEntity();
+
+        audienceHitProcessor.processHit(hit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService)
+                .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
+        networkCallbackCaptor.getValue().call(null);
+
+        final int retryInterval = audienceHitProcessor.retryInterval(hit);
+        assertTrue(retryInterval >= 2 && retryInterval <= 5);
+    }
+
+    @Test
+    public void testProcessHit_whenBatchLimitSet_mergesQueuedHitsWithSameIdentities() {
+        when(mockConnection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+        when(mockConnection.getInputStream())
+                .thenReturn(new ByteArrayInputStream("".getBytes(StandardCharsets.UTF_8)));
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(
+                                mockAAMEvent, "https://server/event?c_a=1&d_uuid=123&d_dst=1", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(
+                                secondEvent, "https://server/event?c_b=2&d_uuid=123&d_dst=1", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setBatchLimit(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertTrue);
+
+        ArgumentCaptor<NetworkRequest> networkRequestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService)
+                .connectAsync(networkRequestCaptor.capture(), networkCallbackCaptor.capture());
+        assertEquals(
+                "https://server/event?c_a=1&d_uuid=123&d_dst=1&c_b=2",
+                networkRequestCaptor.getValue().getUrl());
+        networkCallbackCaptor.getValue().call(mockConnection);
+
+        ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
+        ArgumentCaptor<List<Event>> pairedEventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockNetworkResponseHandler)
+                .completeWithStream(
+                        notNull(), requestEventCaptor.capture(), pairedEventsCaptor.capture());
+        assertEqualEvents(mockAAMEvent, requestEventCaptor.getValue());
+        assertEquals(1, pairedEventsCaptor.getValue().size());
+        assertEqualEvents(secondEvent, pairedEventsCaptor.getValue().get(0));
+        verify(mockDataQueue).remove(1); // the hit queue removes the first hit
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testProcessHit_whenBatchLimitSet_doesNotMergeHitsWithDifferentIdentities() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_b=2&d_uuid=456", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setBatchLimit(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkRequest> networkRequestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService)
+                .connectAsync(networkRequestCaptor.capture(), networkCallbackCaptor.capture());
+        assertEquals(
+                "https://server/event?c_a=1&d_uuid=123", networkRequestCaptor.getValue().getUrl());
+        networkCallbackCaptor.getValue().call(null);
+
+        ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockNetworkResponseHandler).complete(isNull(), requestEventCaptor.capture());
+        assertEqualEvents(mockAAMEvent, requestEventCaptor.getValue());
+        verify(mockDataQueue, never()).remove(anyInt());
+    }
+
+    @Test
+    public void testProcessHit_whenBatchLimitSet_doesNotMergeHitsWithConflictingTraits() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2&d_uuid=123", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setBatchLimit(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkRequest> networkRequestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        verify(mockNetworkService).connectAsync(networkRequestCaptor.capture(), any());
+        assertEquals(
+                "https://server/event?c_a=1&d_uuid=123", networkRequestCaptor.getValue().getUrl());
+    }
+
+    @Test
+    public void testProcessHit_whenLaneCountSet_sendsHitsWithUuidInParallel() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2&d_uuid=123", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setLaneCount(2);
+        final List<Boolean> results = new ArrayList<>();
+
+        audienceHitProcessor.processHit(firstHit, results::add);
+
+        ArgumentCaptor<NetworkRequest> networkRequestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService, times(2))
+                .connectAsync(networkRequestCaptor.capture(), networkCallbackCaptor.capture());
+        assertEquals(
+                "https://server/event?c_a=1&d_uuid=123",
+                networkRequestCaptor.getAllValues().get(0).getUrl());
+        assertEquals(
+                "https://server/event?c_a=2&d_uuid=123",
+                networkRequestCaptor.getAllValues().get(1).getUrl());
+
+        // the second response arrives first, but is handled after the first one
+        networkCallbackCaptor.getAllValues().get(1).call(okConnection("second"));
+        verify(mockNetworkResponseHandler, never()).complete(any(), any());
+        networkCallbackCaptor.getAllValues().get(0).call(okConnection("first"));
+
+        ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
+        final InOrder inOrder = inOrder(mockNetworkResponseHandler);
+        inOrder.verify(mockNetworkResponseHandler)
+                .complete(Mockito.eq("first"), requestEventCaptor.capture());
+        inOrder.verify(mockNetworkResponseHandler)
+                .complete(Mockito.eq("second"), requestEventCaptor.capture());
+        assertEqualEvents(mockAAMEvent, requestEventCaptor.getAllValues().get(0));
+        assertEqualEvents(secondEvent, requestEventCaptor.getAllValues().get(1));
+        verify(mockDataQueue).remove(1); // the hit queue removes the first hit
+        assertEquals(Arrays.asList(true), results);
+    }
+
+    @Test
+    public void testProcessHit_whenLaneCountSet_sendsHitWithoutUuidAlone() {
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setLaneCount(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        verify(mockNetworkService).connectAsync(any(NetworkRequest.class), any());
+        verify(mockDataQueue, never()).peek(anyInt());
+    }
+
+    @Test
+    public void testProcessHit_whenLaneCountSet_stopsLanesAtHitWithoutUuid() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setLaneCount(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkRequest> networkRequestCaptor =
+                ArgumentCaptor.forClass(NetworkRequest.class);
+        verify(mockNetworkService).connectAsync(networkRequestCaptor.capture(), any());
+        assertEquals(
+                "https://server/event?c_a=1&d_uuid=123", networkRequestCaptor.getValue().getUrl());
+    }
+
+    @Test
+    public void testProcessHit_whenLaneCountSetAndHeadRetried_skipsCompletedHitLater() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2&d_uuid=123", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setLaneCount(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService, times(2))
+                .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
+        networkCallbackCaptor.getAllValues().get(0).call(null);
+        networkCallbackCaptor.getAllValues().get(1).call(okConnection("second"));
+
+        verify(mockNetworkResponseHandler).complete(isNull(), any(Event.class));
+        verify(mockNetworkResponseHandler).complete(Mockito.eq("second"), any(Event.class));
+        verify(mockDataQueue, never()).remove(anyInt());
+
+        // the second hit already completed, it is removed without being sent again
+        audienceHitProcessor.processHit(secondHit, Assert::assertTrue);
+
+        verify(mockNetworkService, times(2)).connectAsync(any(NetworkRequest.class), any());
+    }
+
+    @Test
+    public void testProcessHit_whenHeadRetriedAndProcessorRestartedWithOneLane_skipsCompletedHit() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2&d_uuid=123", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        final AudienceCompletedHits completedHits = new AudienceCompletedHits(null);
+        audienceHitProcessor =
+                new AudienceHitProcessor(
+                        mockNetworkResponseHandler,
+                        mockDataQueue,
+                        new AudienceHitRetryPolicy(null),
+                        completedHits);
+        audienceHitProcessor.setLaneCount(2);
+
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService, times(2))
+                .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
+        networkCallbackCaptor.getAllValues().get(1).call(okConnection("second"));
+        networkCallbackCaptor.getAllValues().get(0).call(null);
+
+        // the responses are passed on in queue order
+        final InOrder inOrder = inOrder(mockNetworkResponseHandler);
+        inOrder.verify(mockNetworkResponseHandler).complete(isNull(), any(Event.class));
+        inOrder.verify(mockNetworkResponseHandler)
+                .complete(Mockito.eq("second"), any(Event.class));
+
+        // a restarted processor without lanes still skips the completed hit
+        audienceHitProcessor =
+                new AudienceHitProcessor(
+                        mockNetworkResponseHandler,
+                        mockDataQueue,
+                        new AudienceHitRetryPolicy(null),
+                        completedHits);
+        audienceHitProcessor.processHit(secondHit, Assert::assertTrue);
+
+        verify(mockNetworkService, times(2)).connectAsync(any(NetworkRequest.class), any());
+        assertFalse(completedHits.contains(secondHit.getUniqueIdentifier()));
+    }
+
+    @Test
+    public void testProcessHit_whenSkippedLaneBecomesLeading_forgetsCompletedHit() {
+        final Event secondEvent =
+                new Event.Builder("test2", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                        .build();
+        final DataEntity firstHit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1&d_uuid=123", 3)
+                        .toDataEntity();
+        final DataEntity secondHit =
+                new AudienceDataEntity(secondEvent, "https://server/event?c_a=2&d_uuid=123", 3)
+                        .toDataEntity();
+        when(mockDataQueue.peek(2)).thenReturn(Arrays.asList(firstHit, secondHit));
+        final AudienceCompletedHits completedHits = new AudienceCompletedHits(null);
+        audienceHitProcessor =
+                new AudienceHitProcessor(
+                        mockNetworkResponseHandler,
+                        mockDataQueue,
+                        new AudienceHitRetryPolicy(null),
+                        completedHits);
+        audienceHitProcessor.setLaneCount(2);
+
+        // the second hit completes while the head is retried
+        audienceHitProcessor.processHit(firstHit, Assert::assertFalse);
+        ArgumentCaptor<NetworkCallback> networkCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService, times(2))
+                .connectAsync(any(NetworkRequest.class), networkCallbackCaptor.capture());
+        networkCallbackCaptor.getAllValues().get(1).call(okConnection("second"));
+        networkCallbackCaptor.getAllValues().get(0).call(null);
+        assertTrue(completedHits.contains(secondHit.getUniqueIdentifier()));
+
+        // the retried head completes, the skipped second hit is removed as a leading hit
+        audienceHitProcessor.processHit(firstHit, Assert::assertTrue);
+        final ArgumentCaptor<NetworkCallback> retryCallbackCaptor =
+                ArgumentCaptor.forClass(NetworkCallback.class);
+        verify(mockNetworkService, times(3))
+                .connectAsync(any(NetworkRequest.class), retryCallbackCaptor.capture());
+        retryCallbackCaptor.getAllValues().get(2).call(okConnection("first"));
+
+        verify(mockDataQueue).remove(1);
+        assertFalse(completedHits.contains(secondHit.getUniqueIdentifier()));
+    }
+
+    @Test
+    public void testProcessHit_whenHitOlderThanMaxAge_discardsHitWithEmptyResponse() {
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        // the age of a hit is read from the plain request event timestamp field
+        final long expiredTimestamp = System.currentTimeMillis() - 120000;
+        final DataEntity expiredHit =
+                new DataEntity(
+                        hit.getUniqueIdentifier(),
+                        new Date(expiredTimestamp),
+                        hit.getData()
+                                .replace(
+                                        "\n" + mockAAMEvent.getTimestamp() + "\n",
+                                        "\n" + expiredTimestamp + "\n"));
+        audienceHitProcessor.setMaxHitAge(60);
+
+        audienceHitProcessor.processHit(expiredHit, Assert::assertTrue);
+
+        verify(mockNetworkService, never()).connectAsync(any(), any());
+        ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockNetworkResponseHandler).complete(isNull(), requestEventCaptor.capture());
+        assertEqualEvents(mockAAMEvent, requestEventCaptor.getValue());
+        assertEquals(1, audienceHitProcessor.getExpiredCount());
+    }
+
+    @Test
+    public void testProcessHit_whenHitYoungerThanMaxAge_sendsHit() {
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        audienceHitProcessor.setMaxHitAge(60);
+
+        audienceHitProcessor.processHit(hit, Assert::assertTrue);
+
+        verify(mockNetworkService).connectAsync(any(NetworkRequest.class), any());
+        assertEquals(0, audienceHitProcessor.getExpiredCount());
+    }
+
+    @Test
+    public void testProcessHit_whenQueueAboveMaxCount_discardsOldestHitWithEmptyResponse() {
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        when(mockDataQueue.count()).thenReturn(3);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxQueuedHits(2);
+
+        audienceHitProcessor.processHit(hit, Assert::assertTrue);
+
+        verify(mockNetworkService, never()).connectAsync(any(), any());
+        verify(mockNetworkResponseHandler).complete(isNull(), any(Event.class));
+        assertEquals(1, audienceHitProcessor.getEvictedCount());
+    }
+
+    @Test
+    public void testProcessHit_whenQueueWithinMaxCount_sendsHit() {
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        when(mockDataQueue.count()).thenReturn(2);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxQueuedHits(2);
+
+        audienceHitProcessor.processHit(hit, Assert::assertTrue);
+
+        verify(mockNetworkService).connectAsync(any(NetworkRequest.class), any());
+        assertEquals(0, audienceHitProcessor.getEvictedCount());
+    }
+
+    @Test
+    public void testProcessHit_whenHitQueuedAboveMaxCount_countsQueueOnlyOnce() {
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        when(mockDataQueue.count()).thenReturn(2);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxQueuedHits(2);
+
+        audienceHitProcessor.onHitQueued();
+        audienceHitProcessor.processHit(hit, Assert::assertTrue);
+
+        // the discarded hit was removed, the queue is back within the limit
+        audienceHitProcessor.processHit(hit, Assert::assertTrue);
+
+        verify(mockNetworkService, times(1)).connectAsync(any(NetworkRequest.class), any());
+        assertEquals(1, audienceHitProcessor.getEvictedCount());
+        verify(mockDataQueue, times(1)).count();
+    }
+
+    @Test
+    public void testAcceptHit_whenQueueHoldsMaxCount_refusesHitAndCountsEviction() {
+        when(mockDataQueue.count()).thenReturn(1);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxQueuedHits(2);
+
+        assertTrue(audienceHitProcessor.acceptHit(false));
+        audienceHitProcessor.onHitQueued();
+
+        assertFalse(audienceHitProcessor.acceptHit(false));
+        assertEquals(1, audienceHitProcessor.getEvictedCount());
+    }
+
+    @Test
+    public void testAcceptHit_whenQueueSuspended_removesExpiredHitsWithEmptyResponse() {
+        final long expiredTimestamp = System.currentTimeMillis() - 120000;
+        final DataEntity hit =
+                new AudienceDataEntity(mockAAMEvent, "https://server/event?c_a=1", 3)
+                        .toDataEntity();
+        final DataEntity expiredHit =
+                new DataEntity(
+                        hit.getUniqueIdentifier(),
+                        new Date(expiredTimestamp),
+                        hit.getData()
+                                .replace(
+                                        "\n" + mockAAMEvent.getTimestamp() + "\n",
+                                        "\n" + expiredTimestamp + "\n"));
+        final DataEntity nextHit =
+                new AudienceDataEntity(
+                                new Event.Builder(
+                                                "test2",
+                                                EventType.AUDIENCEMANAGER,
+                                                EventSource.REQUEST_CONTENT)
+                                        .build(),
+                                "https://server/event?c_a=2",
+                                3)
+                        .toDataEntity();
+        when(mockDataQueue.count()).thenReturn(2);
+        when(mockDataQueue.peek()).thenReturn(expiredHit, nextHit);
+        when(mockDataQueue.remove()).thenReturn(true);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxHitAge(60);
+        audienceHitProcessor.setMaxQueuedHits(2);
+
+        // the expired hit is removed, which makes room for the new hit
+        assertTrue(audienceHitProcessor.acceptHit(true));
+
+        verify(mockDataQueue, times(1)).remove();
+        ArgumentCaptor<Event> requestEventCaptor = ArgumentCaptor.forClass(Event.class);
+        verify(mockNetworkResponseHandler).complete(isNull(), requestEventCaptor.capture());
+        assertEqualEvents(mockAAMEvent, requestEventCaptor.getValue());
+        assertEquals(1, audienceHitProcessor.getExpiredCount());
+
+        // the removed hit is not sent once the hit queue resumes with the hit it peeked earlier
+        audienceHitProcessor.processHit(expiredHit, Assert::assertFalse);
+        verify(mockNetworkService, never()).connectAsync(any(), any());
+    }
+
+    @Test
+    public void testAcceptHit_whenQueueNotSuspended_keepsExpiredHits() {
+        when(mockDataQueue.count()).thenReturn(1);
+        audienceHitProcessor = new AudienceHitProcessor(mockNetworkResponseHandler, mockDataQueue);
+        audienceHitProcessor.setMaxHitAge(60);
+
+        assertTrue(audienceHitProcessor.acceptHit(false));
+
+        verify(mockDataQueue, never()).peek();
+        verify(mockDataQueue, never()).remove();
+    }
+
+    private HttpConnecting okConnection(final String response) {
+        final HttpConnecting connection = mock(HttpConnecting.class);
+        when(connection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+        when(connection.getInputStream())
+                .thenReturn(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+        return connection;
     }
 
     private void assertEqualEvents(final Event expectedEvent, final Event actualEvent) {
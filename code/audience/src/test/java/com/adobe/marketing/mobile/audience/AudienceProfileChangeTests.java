@@ -0,0 +1,84 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class AudienceProfileChangeTests {
+
+    @Test
+    public void testBetween_whenSameSegments_returnsNull() {
+        assertNull(AudienceProfileChange.between(profile("a", "1"), profile("a", "1")));
+        assertNull(AudienceProfileChange.between(null, null));
+        assertNull(AudienceProfileChange.between(null, Collections.emptyMap()));
+    }
+
+    @Test
+    public void testBetween_reportsAddedRemovedAndChangedSegments() {
+        final Map<String, String> previous = profile("kept", "1");
+        previous.put("removed", "2");
+        previous.put("changed", "3");
+        final Map<String, String> current = profile("kept", "1");
+        current.put("changed", "4");
+        current.put("added", "5");
+
+        final AudienceProfileChange change = AudienceProfileChange.between(previous, current);
+
+        assertNotNull(change);
+        assertEquals(profile("added", "5"), change.getAdded());
+        assertEquals(profile("removed", "2"), change.getRemoved());
+        assertEquals(profile("changed", "4"), change.getChanged());
+    }
+
+    @Test
+    public void testBetween_whenProfileCleared_reportsAllSegmentsRemoved() {
+        final AudienceProfileChange change =
+                AudienceProfileChange.between(profile("segment", "1"), null);
+
+        assertNotNull(change);
+        assertTrue(change.getAdded().isEmpty());
+        assertEquals(profile("segment", "1"), change.getRemoved());
+        assertTrue(change.getChanged().isEmpty());
+    }
+
+    @Test
+    public void testToEventData_containsChanges() {
+        final AudienceProfileChange change =
+                AudienceProfileChange.between(profile("removed", "1"), profile("added", "2"));
+
+        final Map<String, Object> eventData = change.toEventData();
+
+        assertEquals(
+                profile("added", "2"),
+                eventData.get(AudienceTestConstants.EventDataKeys.Audience.PROFILE_ADDED));
+        assertEquals(
+                profile("removed", "1"),
+                eventData.get(AudienceTestConstants.EventDataKeys.Audience.PROFILE_REMOVED));
+        assertEquals(
+                Collections.emptyMap(),
+                eventData.get(AudienceTestConstants.EventDataKeys.Audience.PROFILE_CHANGED));
+    }
+
+    private static Map<String, String> profile(final String name, final String value) {
+        final Map<String, String> profile = new HashMap<>();
+        profile.put(name, value);
+        return profile;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.services.NamedCollection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AudienceProfileStoreTests {
+
+    private static final String PROFILE_KEY =
+            AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY;
+    private static final String PROFILE_DELTA_KEY =
+            AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY;
+
+    private final Map<String, Object> persistedValues = new HashMap<>();
+    private NamedCollection namedCollection;
+    private AudienceProfileStore profileStore;
+
+    @Before
+    public void setup() {
+        // a NamedCollection backed by persistedValues
+        namedCollection = mock(NamedCollection.class);
+        doAnswer(
+                        invocation -> {
+                            persistedValues.put(
+                                    invocation.getArgument(0),
+                                    new HashMap<>(invocation.<Map<String, String>>getArgument(1)));
+                            return null;
+                        })
+                .when(namedCollection)
+                .setMap(anyString(), anyMap());
+        doAnswer(
+                        invocation -> {
+                            persistedValues.put(
+                                    invocation.getArgument(0), invocation.getArgument(1));
+                            return null;
+                        })
+                .when(namedCollection)
+                .setString(anyString(), anyString());
+        doAnswer(invocation -> persistedValues.remove(invocation.getArgument(0)))
+                .when(namedCollection)
+                .remove(anyString());
+        when(namedCollection.getMap(anyString()))
+                .thenAnswer(invocation -> persistedValues.get(invocation.getArgument(0)));
+        when(namedCollection.getString(anyString(), any()))
+                .thenAnswer(invocation -> persistedValues.get(invocation.getArgument(0)));
+        when(namedCollection.contains(anyString()))
+                .thenAnswer(invocation -> persistedValues.containsKey(invocation.getArgument(0)));
+
+        profileStore = new AudienceProfileStore(namedCollection);
+    }
+
+    @Test
+    public void testLoad_whenNothingPersisted_returnsNull() {
+        assertNull(profileStore.load());
+    }
+
+    @Test
+    public void testSave_persistsProfileForNextLoad() {
+        final Map<String, String> profile = profile(3);
+
+        profileStore.save(profile);
+
+        assertEquals(profile, new AudienceProfileStore(namedCollection).load());
+        assertEquals(profile, persistedValues.get(PROFILE_KEY));
+    }
+
+    @Test
+    public void testSave_whenFewEntriesChanged_writesOnlyChanges() {
+        final Map<String, String> profile = profile(100);
+        profileStore.save(profile);
+        clearInvocations(namedCollection);
+
+        profile.put("segment42", "changed");
+        profile.remove("segment0");
+        profile.put("segment100", "value100");
+        profileStore.save(profile);
+
+        verify(namedCollection, times(1)).setString(eq(PROFILE_DELTA_KEY), anyString());
+        verify(namedCollection, never()).setMap(anyString(), anyMap());
+        verify(namedCollection, never()).remove(anyString());
+        assertEquals(profile(100), persistedValues.get(PROFILE_KEY));
+        assertEquals(profile, new AudienceProfileStore(namedCollection).load());
+        assertEquals(2, profileStore.getWriteCount());
+        assertEquals(1, profileStore.getCompactionCount());
+    }
+
+    @Test
+    public void testSave_whenChangesExceedHalfTheProfile_compactsProfile() {
+        final Map<String, String> profile = profile(4);
+        profileStore.save(profile);
+        profile.put("segment0", "changed");
+        profileStore.save(profile);
+        assertTrue(persistedValues.containsKey(PROFILE_DELTA_KEY));
+        clearInvocations(namedCollection);
+
+        profile.put("segment1", "changed");
+        profile.put("segment2", "changed");
+        profileStore.save(profile);
+
+        verify(namedCollection, times(1)).setMap(eq(PROFILE_KEY), eq(profile));
+        verify(namedCollection, never()).setString(anyString(), anyString());
+        assertFalse(persistedValues.containsKey(PROFILE_DELTA_KEY));
+        assertEquals(profile, new AudienceProfileStore(namedCollection).load());
+        assertEquals(2, profileStore.getCompactionCount());
+    }
+
+    @Test
+    public void testLoad_whenProfileRewrittenAfterChanges_ignoresStoredChanges() {
+        final Map<String, String> profile = profile(100);
+        profileStore.save(profile);
+        profile.put("segment42", "changed");
+        profileStore.save(profile);
+
+        // a previous version of the extension rewrites the profile, keeping the stored changes
+        persistedValues.put(PROFILE_KEY, profile(2));
+
+        assertEquals(profile(2), new AudienceProfileStore(namedCollection).load());
+    }
+
+    @Test
+    public void testSave_whenProfileUnchanged_writesNothing() {
+        profileStore.save(profile(3));
+        clearInvocations(namedCollection);
+
+        profileStore.save(profile(3));
+
+        verify(namedCollection, never()).setMap(anyString(), anyMap());
+        verify(namedCollection, never()).remove(anyString());
+        assertTrue(profileStore.isPersisted(profile(3)));
+        assertEquals(1, profileStore.getSkippedWriteCount());
+    }
+
+    @Test
+    public void testSave_whenProfileMatchesPreviouslyPersisted_writesNothing() {
+        persistedValues.put(PROFILE_KEY, profile(2));
+
+        profileStore.save(profile(2));
+
+        verify(namedCollection, never()).setMap(anyString(), anyMap());
+        assertTrue(persistedValues.containsKey(PROFILE_KEY));
+    }
+
+    @Test
+    public void testLoad_whenPreviouslyPersisted_keepsProfileKey() {
+        final Map<String, String> persistedProfile = profile(2);
+        persistedValues.put(PROFILE_KEY, persistedProfile);
+
+        assertEquals(persistedProfile, profileStore.load());
+
+        verify(namedCollection, never()).remove(anyString());
+        verify(namedCollection, never()).setMap(anyString(), anyMap());
+        assertEquals(persistedProfile, persistedValues.get(PROFILE_KEY));
+    }
+
+    @Test
+    public void testClear_removesPersistedProfile() {
+        final Map<String, String> profile = profile(3);
+        profileStore.save(profile);
+        profile.put("segment0", "changed");
+        profileStore.save(profile);
+        assertTrue(persistedValues.containsKey(PROFILE_DELTA_KEY));
+
+        new AudienceProfileStore(namedCollection).clear();
+
+        assertTrue(persistedValues.isEmpty());
+        assertNull(new AudienceProfileStore(namedCollection).load());
+    }
+
+    @Test
+    public void testIsPersisted_whenNotLoaded_returnsFalseWithoutReading() {
+        assertFalse(profileStore.isPersisted(profile(1)));
+
+        verify(namedCollection, never()).contains(anyString());
+    }
+
+    private static Map<String, String> profile(final int size) {
+        final Map<String, String> profile = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            profile.put("segment" + i, "value" + i);
+        }
+
+        return profile;
+    }
+}
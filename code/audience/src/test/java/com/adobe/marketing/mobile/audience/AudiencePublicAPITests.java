@@ -22,6 +22,7 @@ import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 
+import com.adobe.marketing.mobile.AdobeCallback;
 import com.adobe.marketing.mobile.AdobeCallbackWithError;
 import com.adobe.marketing.mobile.AdobeError;
 import com.adobe.marketing.mobile.Audience;
@@ -60,6 +61,7 @@ public class AudiencePublicAPITests {
     @After
     public void tearDown() {
         mockCore.close();
+        AudienceExtension.clearPendingReset();
     }
 
     @Test
@@ -190,6 +192,32 @@ public class AudiencePublicAPITests {
         assertNull(eventCaptor.getValue().getEventData());
     }
 
+    @Test
+    public void testIsInSegment_beforeRegistration_dispatchesAudienceIdentityRequest() {
+        Audience.isInSegment("123", inSegment -> {});
+
+        final ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
+        mockCore.verify(
+                () ->
+                        MobileCore.dispatchEventWithResponseCallback(
+                                eventCaptor.capture(),
+                                eq(5000L),
+                                any(AdobeCallbackWithError.class)),
+                times(1));
+        assertEquals(EventSource.REQUEST_IDENTITY, eventCaptor.getValue().getSource());
+    }
+
+    @Test
+    public void testGetSegments_whenNullPrefix_doesNotDispatchRequest() {
+        Audience.getSegments(null, segments -> {});
+
+        mockCore.verify(
+                () ->
+                        MobileCore.dispatchEventWithResponseCallback(
+                                any(Event.class), anyLong(), any(AdobeCallbackWithError.class)),
+                never());
+    }
+
     private Properties loadProperties(final String filepath) {
         Properties properties = new Properties();
         InputStream input = null;
@@ -0,0 +1,119 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.EventSource;
+import com.adobe.marketing.mobile.EventType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AudienceQueuedSignalIndexTests {
+
+    private static final String URL = "https://server/event?c_trait=1&d_uuid=123";
+
+    private final AudienceQueuedSignalIndex index = new AudienceQueuedSignalIndex();
+
+    @Before
+    public void setup() {
+        index.setEnabled(true);
+    }
+
+    @Test
+    public void testFold_whenIdenticalHitQueued_returnsEventsOnRelease() {
+        final Event queuedEvent = newEvent();
+        final Event firstEvent = newEvent();
+        final Event secondEvent = newEvent();
+        final Event pairedEvent = newEvent();
+        index.add(URL, 2, queuedEvent.getUniqueIdentifier());
+
+        assertTrue(index.fold(URL, 2, firstEvent, null));
+        assertTrue(index.fold(URL, 2, secondEvent, Collections.singletonList(pairedEvent)));
+
+        final List<Event> foldedEvents = index.release(queuedEvent.getUniqueIdentifier());
+        assertEquals(Arrays.asList(firstEvent, secondEvent, pairedEvent), foldedEvents);
+        assertEquals(2, index.getFoldedCount());
+    }
+
+    @Test
+    public void testFold_whenDifferentUrlOrTimeout_returnsFalse() {
+        index.add(URL, 2, newEvent().getUniqueIdentifier());
+
+        assertFalse(index.fold("https://server/event?c_trait=2&d_uuid=123", 2, newEvent(), null));
+        assertFalse(index.fold(URL, 5, newEvent(), null));
+    }
+
+    @Test
+    public void testFold_whenHitReleased_returnsFalse() {
+        final Event queuedEvent = newEvent();
+        index.add(URL, 2, queuedEvent.getUniqueIdentifier());
+
+        index.release(queuedEvent.getUniqueIdentifier());
+
+        assertFalse(index.fold(URL, 2, newEvent(), null));
+        assertTrue(index.release(queuedEvent.getUniqueIdentifier()).isEmpty());
+    }
+
+    @Test
+    public void testFold_whenDisabled_returnsFalse() {
+        index.setEnabled(false);
+        index.add(URL, 2, newEvent().getUniqueIdentifier());
+
+        assertFalse(index.fold(URL, 2, newEvent(), null));
+    }
+
+    @Test
+    public void testSetEnabled_whenDisabled_keepsFoldedEventsUntilRelease() {
+        final Event queuedEvent = newEvent();
+        final Event foldedEvent = newEvent();
+        index.add(URL, 2, queuedEvent.getUniqueIdentifier());
+        index.fold(URL, 2, foldedEvent, null);
+
+        index.setEnabled(false);
+
+        assertEquals(
+                Collections.singletonList(foldedEvent),
+                index.release(queuedEvent.getUniqueIdentifier()));
+    }
+
+    @Test
+    public void testAdd_whenFull_doesNotIndexHit() {
+        for (int i = 0; i < AudienceConstants.MAX_QUEUED_SIGNAL_INDEX_ENTRIES; i++) {
+            index.add(URL + "&c_i=" + i, 2, newEvent().getUniqueIdentifier());
+        }
+
+        index.add(URL, 2, newEvent().getUniqueIdentifier());
+
+        assertFalse(index.fold(URL, 2, newEvent(), null));
+    }
+
+    @Test
+    public void testClear_removesAllHits() {
+        index.add(URL, 2, newEvent().getUniqueIdentifier());
+
+        index.clear();
+
+        assertFalse(index.fold(URL, 2, newEvent(), null));
+    }
+
+    private static Event newEvent() {
+        return new Event.Builder("signal", EventType.AUDIENCEMANAGER, EventSource.REQUEST_CONTENT)
+                .build();
+    }
+}
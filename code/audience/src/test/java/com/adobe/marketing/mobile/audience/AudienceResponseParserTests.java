@@ -0,0 +1,201 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import org.json.JSONException;
+import org.junit.Test;
+
+public class AudienceResponseParserTests {
+
+    @Test
+    public void testParse_whenFullResponse_readsAllValues() throws Exception {
+        final AudienceResponseParser.Response response =
+                parse(
+                        "{\"uuid\":\"12345\","
+                                + "\"dests\":[{\"c\":\"https://dest1\"},{\"c\":\"https://dest2\"}],"
+                                + "\"stuff\":[{\"cn\":\"aud\",\"cv\":\"seg=1\",\"ttl\":30,\"dmn\":"
+                                + "\"demdex.net\"},{\"cn\":\"cookieKey\",\"cv\":\"cookieValue\"}],"
+                                + "\"dcs_region\":9,\"tid\":\"abc\"}");
+
+        assertEquals("12345", response.getUuid());
+        assertEquals(Arrays.asList("https://dest1", "https://dest2"), response.getDestUrls());
+        final Map<String, String> segments = response.getSegments();
+        assertEquals(2, segments.size());
+        assertEquals("seg=1", segments.get("aud"));
+        assertEquals("cookieValue", segments.get("cookieKey"));
+    }
+
+    @Test
+    public void testParse_whenSingleQuotes_readsAllValues() throws Exception {
+        final AudienceResponseParser.Response response =
+                parse(
+                        "{'uuid':'12345', 'stuff':[{'cn':'cookieName', 'cv':'key1=value1'}], "
+                                + "'dests':[{'c':'https://www.adobe.com'}]}");
+
+        assertEquals("12345", response.getUuid());
+        assertEquals(Arrays.asList("https://www.adobe.com"), response.getDestUrls());
+        assertEquals("key1=value1", response.getSegments().get("cookieName"));
+    }
+
+    @Test
+    public void testParse_whenMissingArrays_returnsNullValues() throws Exception {
+        final AudienceResponseParser.Response response = parse("{\"other\":{\"uuid\":\"1\"}}");
+
+        assertNull(response.getUuid());
+        assertNull(response.getDestUrls());
+        assertNull(response.getSegments());
+    }
+
+    @Test
+    public void testParse_whenEmptyObject_returnsNullValues() throws Exception {
+        final AudienceResponseParser.Response response = parse(" { } ");
+
+        assertNull(response.getUuid());
+        assertNull(response.getDestUrls());
+        assertNull(response.getSegments());
+    }
+
+    @Test
+    public void testParse_whenEmptyArrays_returnsEmptyValues() throws Exception {
+        final AudienceResponseParser.Response response = parse("{\"dests\":[],\"stuff\":[]}");
+
+        assertTrue(response.getDestUrls().isEmpty());
+        assertTrue(response.getSegments().isEmpty());
+    }
+
+    @Test
+    public void testParse_whenEscapedStrings_resolvesEscapes() throws Exception {
+        final AudienceResponseParser.Response response =
+                parse(
+                        "{\"stuff\":[{\"cn\":\"a\\\"b\",\"cv\":\"x\\u0041\\/\\\\y\"}],"
+                                + "\"dests\":[{\"c\":\"https:\\/\\/dest\"}]}");
+
+        assertEquals("xA/\\y", response.getSegments().get("a\"b"));
+        assertEquals(Arrays.asList("https://dest"), response.getDestUrls());
+    }
+
+    @Test
+    public void testParse_whenLiteralValues_returnsLiteralText() throws Exception {
+        final AudienceResponseParser.Response response =
+                parse("{\"uuid\":12345,\"stuff\":[{\"cn\":\"a\",\"cv\":true},{\"cn\":\"b\"}]}");
+
+        assertEquals("12345", response.getUuid());
+        assertEquals("true", response.getSegments().get("a"));
+        assertEquals("", response.getSegments().get("b"));
+    }
+
+    @Test
+    public void testParse_whenNullUuid_returnsNullUuid() throws Exception {
+        assertNull(parse("{\"uuid\":null}").getUuid());
+    }
+
+    @Test
+    public void testParse_skipsInvalidArrayElements() throws Exception {
+        final AudienceResponseParser.Response response =
+                parse(
+                        "{\"dests\":[null,{},{\"c\":\"\"},\"x\",{\"c\":\"https://dest\"}],"
+                                + "\"stuff\":[{\"cn\":\"\",\"cv\":\"1\"},[1,2],{\"cn\":\"a\","
+                                + "\"cv\":\"2\"}]}");
+
+        assertEquals(Arrays.asList("https://dest"), response.getDestUrls());
+        assertEquals(1, response.getSegments().size());
+        assertEquals("2", response.getSegments().get("a"));
+    }
+
+    @Test
+    public void testParse_whenLargeResponse_readsAllSegments() throws Exception {
+        final StringBuilder payload = new StringBuilder("{\"stuff\":[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+
+            payload.append("{\"cn\":\"segment").append(i).append("\",\"cv\":\"").append(i);
+            payload.append("\"}");
+        }
+
+        payload.append("],\"uuid\":\"12345\"}");
+
+        final AudienceResponseParser.Response response = parse(payload.toString());
+        assertEquals(500, response.getSegments().size());
+        assertEquals("499", response.getSegments().get("segment499"));
+        assertEquals("12345", response.getUuid());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParse_whenMalformedJson_throws() throws Exception {
+        parse(
+                "{'uuid':'12345', 'stuff':{'cn':'cookieName', 'cv':'key1=value1'}], "
+                        + "'dests':[{'c':'https://www.adobe.com']");
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParse_whenTruncatedJson_throws() throws Exception {
+        parse("{\"uuid\":\"12345\",\"stuff\":[{\"cn\":\"a\"");
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParse_whenNotAnObject_throws() throws Exception {
+        parse("[{\"uuid\":\"12345\"}]");
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParse_whenEmptyPayload_throws() throws Exception {
+        parse("");
+    }
+
+    @Test(expected = JSONException.class)
+    public void testParse_whenNestingTooDeep_throws() throws Exception {
+        final StringBuilder payload = new StringBuilder("{\"other\":");
+        for (int i = 0; i < 100; i++) {
+            payload.append('[');
+        }
+
+        parse(payload.toString());
+    }
+
+    @Test
+    public void testNewReader_whenWithinMaxSize_readsResponse() throws Exception {
+        final byte[] payload = "{\"uuid\":\"\u00e9t\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+
+        final AudienceResponseParser.Response response =
+                AudienceResponseParser.parse(
+                        AudienceResponseParser.newReader(
+                                new ByteArrayInputStream(payload), payload.length));
+
+        assertEquals("\u00e9t\u00e9", response.getUuid());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNewReader_whenExceedingMaxSize_throws() throws Exception {
+        final byte[] payload = "{\"uuid\":\"12345\"}".getBytes(StandardCharsets.UTF_8);
+
+        AudienceResponseParser.parse(
+                AudienceResponseParser.newReader(
+                        new ByteArrayInputStream(payload), payload.length - 1));
+    }
+
+    private static AudienceResponseParser.Response parse(final String payload)
+            throws JSONException, IOException {
+        return AudienceResponseParser.parse(new StringReader(payload));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class AudienceSegmentIndexTests {
+
+    @Test
+    public void testIsInSegment_whenSegmentIdInValue_returnsTrue() {
+        final Map<String, String> profile = new HashMap<>();
+        profile.put("aam_segments", "segs=123, 456,789");
+        profile.put("other", "1000");
+
+        final AudienceSegmentIndex index = new AudienceSegmentIndex(profile);
+
+        assertTrue(index.isInSegment("123"));
+        assertTrue(index.isInSegment("456"));
+        assertTrue(index.isInSegment("789"));
+        assertTrue(index.isInSegment("1000"));
+        assertFalse(index.isInSegment("segs"));
+        assertFalse(index.isInSegment("12"));
+    }
+
+    @Test
+    public void testIsInSegment_whenName_returnsTrue() {
+        final AudienceSegmentIndex index =
+                new AudienceSegmentIndex(Collections.singletonMap("aam_segment", ""));
+
+        assertTrue(index.isInSegment("aam_segment"));
+        assertFalse(index.isInSegment("aam"));
+    }
+
+    @Test
+    public void testGetSegments_returnsSortedNamesWithPrefix() {
+        final Map<String, String> profile = new HashMap<>();
+        profile.put("aam_b", "1");
+        profile.put("other", "2");
+        profile.put("aam_a", "3");
+        profile.put("aa", "4");
+        profile.put("aam_c", "5");
+
+        final AudienceSegmentIndex index = new AudienceSegmentIndex(profile);
+
+        assertEquals(Arrays.asList("aam_a", "aam_b", "aam_c"), index.getSegments("aam_"));
+        assertEquals(Arrays.asList("other"), index.getSegments("o"));
+        assertEquals(5, index.getSegments("").size());
+        assertTrue(index.getSegments("z").isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetSegments_returnsUnmodifiableList() {
+        final AudienceSegmentIndex index =
+                new AudienceSegmentIndex(Collections.singletonMap("aam", "1"));
+
+        index.getSegments("").clear();
+    }
+
+    @Test
+    public void testIndex_whenNullProfile_isEmpty() {
+        final AudienceSegmentIndex index = new AudienceSegmentIndex(null);
+
+        assertFalse(index.isInSegment("123"));
+        assertTrue(index.getSegments("").isEmpty());
+    }
+}
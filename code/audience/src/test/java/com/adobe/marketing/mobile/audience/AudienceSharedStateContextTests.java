@@ -0,0 +1,136 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.marketing.mobile.Event;
+import com.adobe.marketing.mobile.ExtensionApi;
+import com.adobe.marketing.mobile.SharedStateResolution;
+import com.adobe.marketing.mobile.SharedStateResult;
+import com.adobe.marketing.mobile.SharedStateStatus;
+import java.util.HashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AudienceSharedStateContextTests {
+
+    private static final String CONFIGURATION = "com.adobe.module.configuration";
+    private static final String IDENTITY = "com.adobe.module.identity";
+
+    @Mock private ExtensionApi mockExtensionApi;
+
+    private AudienceSharedStateContext context;
+
+    @Before
+    public void setup() {
+        context = new AudienceSharedStateContext(mockExtensionApi);
+    }
+
+    @Test
+    public void testGet_whenEventHasContext_fetchesEachSharedStateOnce() {
+        final Event event = event();
+        final SharedStateResult configResult = result();
+        final SharedStateResult identityResult = result();
+        mockSharedState(CONFIGURATION, configResult);
+        mockSharedState(IDENTITY, identityResult);
+
+        context.begin(event);
+
+        assertSame(configResult, context.get(CONFIGURATION, event));
+        assertSame(configResult, context.get(CONFIGURATION, event));
+        assertSame(identityResult, context.get(IDENTITY, event));
+        assertSame(identityResult, context.get(IDENTITY, event));
+        assertSame(configResult, context.get(CONFIGURATION, event));
+
+        verifySharedStateFetched(CONFIGURATION, 1);
+        verifySharedStateFetched(IDENTITY, 1);
+        assertEquals(3, context.getSavedLookupCount());
+    }
+
+    @Test
+    public void testGet_whenEventHasNoContext_alwaysFetchesSharedState() {
+        final Event event = event();
+        mockSharedState(CONFIGURATION, result());
+
+        context.begin(event());
+        context.get(CONFIGURATION, event);
+        context.get(CONFIGURATION, event);
+
+        verifySharedStateFetched(CONFIGURATION, 2);
+        assertEquals(0, context.getSavedLookupCount());
+    }
+
+    @Test
+    public void testBegin_discardsPreviousResults() {
+        final Event event = event();
+        mockSharedState(CONFIGURATION, result());
+
+        context.begin(event);
+        context.get(CONFIGURATION, event);
+        context.begin(event);
+        context.get(CONFIGURATION, event);
+
+        verifySharedStateFetched(CONFIGURATION, 2);
+        assertEquals(0, context.getSavedLookupCount());
+    }
+
+    @Test
+    public void testGet_whenSharedStateUnavailable_memoizesNull() {
+        final Event event = event();
+
+        context.begin(event);
+
+        assertNull(context.get(CONFIGURATION, event));
+        assertNull(context.get(CONFIGURATION, event));
+        verifySharedStateFetched(CONFIGURATION, 1);
+        assertEquals(1, context.getSavedLookupCount());
+    }
+
+    private void mockSharedState(final String extensionName, final SharedStateResult result) {
+        when(mockExtensionApi.getSharedState(
+                        eq(extensionName),
+                        any(Event.class),
+                        eq(false),
+                        eq(SharedStateResolution.LAST_SET)))
+                .thenReturn(result);
+    }
+
+    private void verifySharedStateFetched(final String extensionName, final int times) {
+        verify(mockExtensionApi, times(times))
+                .getSharedState(
+                        eq(extensionName),
+                        any(Event.class),
+                        eq(false),
+                        eq(SharedStateResolution.LAST_SET));
+    }
+
+    private static SharedStateResult result() {
+        return new SharedStateResult(SharedStateStatus.SET, new HashMap<>());
+    }
+
+    private static Event event() {
+        return new Event.Builder("test", "com.adobe.eventType.audienceManager", "requestContent")
+                .build();
+    }
+}
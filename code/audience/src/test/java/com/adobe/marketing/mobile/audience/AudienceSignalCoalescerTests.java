@@ -0,0 +1,188 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.adobe.marketing.mobile.Event;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class AudienceSignalCoalescerTests {
+
+    private static final long LONG_WINDOW_MILLIS = 60000;
+    private static final String PREFIX = "https://server/event?d_uuid=123&d_dst=1&d_rtbd=json";
+    private static final String OTHER_PREFIX =
+            "https://server/event?d_uuid=456&d_dst=1&d_rtbd=json";
+
+    private final List<AudienceSignalCoalescer.CoalescedSignal> readySignals = new ArrayList<>();
+    private final List<Long> closedWindows = new ArrayList<>();
+    private final AudienceSignalCoalescer coalescer =
+            new AudienceSignalCoalescer(readySignals::add, closedWindows::add);
+
+    @After
+    public void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    public void testAdd_whenWindowOpen_doesNotReleaseSignal() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+
+        assertTrue(readySignals.isEmpty());
+    }
+
+    @Test
+    public void testFlush_whenCompatibleSignals_mergesTraitsAndEvents() {
+        final Event firstEvent = event();
+        final Event secondEvent = event();
+        coalescer.add(PREFIX, 2, traits("a", "1"), firstEvent, LONG_WINDOW_MILLIS);
+        coalescer.add(PREFIX, 2, traits("b", "2"), secondEvent, LONG_WINDOW_MILLIS);
+
+        coalescer.flush();
+
+        assertEquals(1, readySignals.size());
+        final AudienceSignalCoalescer.CoalescedSignal signal = readySignals.get(0);
+        assertEquals(PREFIX, signal.getUrlPrefix());
+        assertEquals(2, signal.getTimeoutSec());
+        assertEquals(2, signal.getTraits().size());
+        assertEquals("1", signal.getTraits().get("a"));
+        assertEquals("2", signal.getTraits().get("b"));
+        assertEquals(Arrays.asList(firstEvent, secondEvent), signal.getEvents());
+    }
+
+    @Test
+    public void testFlush_whenSameTraitSameValue_mergesSignals() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(PREFIX, 2, null, event(), LONG_WINDOW_MILLIS);
+
+        coalescer.flush();
+
+        assertEquals(1, readySignals.size());
+        assertEquals(1, readySignals.get(0).getTraits().size());
+        assertEquals(3, readySignals.get(0).getEvents().size());
+    }
+
+    @Test
+    public void testAdd_whenConflictingTraits_releasesPendingSignal() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(PREFIX, 2, traits("a", "2"), event(), LONG_WINDOW_MILLIS);
+
+        assertEquals(1, readySignals.size());
+        assertEquals("1", readySignals.get(0).getTraits().get("a"));
+
+        coalescer.flush();
+
+        assertEquals(2, readySignals.size());
+        assertEquals("2", readySignals.get(1).getTraits().get("a"));
+    }
+
+    @Test
+    public void testAdd_whenDifferentIdentities_releasesPendingSignal() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(OTHER_PREFIX, 2, traits("b", "2"), event(), LONG_WINDOW_MILLIS);
+
+        assertEquals(1, readySignals.size());
+        assertEquals(PREFIX, readySignals.get(0).getUrlPrefix());
+    }
+
+    @Test
+    public void testAdd_whenDifferentPrefixOrTimeout_releasesPendingSignal() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(OTHER_PREFIX, 2, traits("b", "2"), event(), LONG_WINDOW_MILLIS);
+        coalescer.add(OTHER_PREFIX, 5, traits("c", "3"), event(), LONG_WINDOW_MILLIS);
+
+        assertEquals(2, readySignals.size());
+        assertEquals(PREFIX, readySignals.get(0).getUrlPrefix());
+        assertEquals(2, readySignals.get(1).getTimeoutSec());
+    }
+
+    @Test
+    public void testFlush_whenNoPendingSignal_doesNothing() {
+        coalescer.flush();
+
+        assertTrue(readySignals.isEmpty());
+    }
+
+    @Test
+    public void testAdd_whenWindowCloses_notifiesWindowCallbackWithoutReleasingSignal()
+            throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Long> windowIds = new ArrayList<>();
+        final AudienceSignalCoalescer timedCoalescer =
+                new AudienceSignalCoalescer(
+                        readySignals::add,
+                        windowId -> {
+                            windowIds.add(windowId);
+                            latch.countDown();
+                        });
+
+        timedCoalescer.add(PREFIX, 2, traits("a", "1"), event(), 50);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(readySignals.isEmpty());
+
+        timedCoalescer.flushWindow(windowIds.get(0));
+
+        assertEquals(1, readySignals.size());
+        timedCoalescer.shutdown();
+    }
+
+    @Test
+    public void testFlushWindow_whenWindowAlreadyFlushed_keepsNewerPendingSignal() {
+        coalescer.add(PREFIX, 2, traits("a", "1"), event(), LONG_WINDOW_MILLIS);
+        coalescer.flush();
+        coalescer.add(PREFIX, 2, traits("b", "2"), event(), LONG_WINDOW_MILLIS);
+
+        // the window of the first signal closing does not release the second one
+        coalescer.flushWindow(1);
+
+        assertEquals(1, readySignals.size());
+        coalescer.flushWindow(2);
+        assertEquals(2, readySignals.size());
+        assertEquals("2", readySignals.get(1).getTraits().get("b"));
+    }
+
+    @Test
+    public void testDiscard_returnsPendingEventsWithoutReleasingSignal() {
+        final Event firstEvent = event();
+        final Event secondEvent = event();
+        coalescer.add(PREFIX, 2, traits("a", "1"), firstEvent, LONG_WINDOW_MILLIS);
+        coalescer.add(PREFIX, 2, traits("b", "2"), secondEvent, LONG_WINDOW_MILLIS);
+
+        assertEquals(Arrays.asList(firstEvent, secondEvent), coalescer.discard());
+
+        coalescer.flush();
+        assertTrue(readySignals.isEmpty());
+        assertTrue(coalescer.discard().isEmpty());
+    }
+
+    private static Map<String, String> traits(final String key, final String value) {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put(key, value);
+        return traits;
+    }
+
+    private static Event event() {
+        return new Event.Builder("test", "com.adobe.eventType.audienceManager", "requestContent")
+                .build();
+    }
+}
@@ -13,13 +13,18 @@ package com.adobe.marketing.mobile.audience;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,9 +34,17 @@ import com.adobe.marketing.mobile.services.DataStoring;
 import com.adobe.marketing.mobile.services.NamedCollection;
 import com.adobe.marketing.mobile.services.ServiceProvider;
 import com.adobe.marketing.mobile.util.DataReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -69,6 +82,11 @@ public class AudienceStateTests {
         audienceState.setMobilePrivacyStatus(MobilePrivacyStatus.OPT_IN);
     }
 
+    @After
+    public void tearDown() {
+        audienceState.shutdown();
+    }
+
     @Test
     public void testConstructor_whenNullDataStoreService_doesNotCrash() {
         final MockedStatic<ServiceProvider> mockedStaticServiceProvider =
@@ -152,6 +170,31 @@ public class AudienceStateTests {
                         eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY), any());
     }
 
+    @Test
+    public void testGetUuid_whenNotPersisted_readsPersistenceOnce() {
+        assertNull(audienceState.getUuid());
+        assertNull(audienceState.getUuid());
+        assertNull(audienceState.getUuid());
+
+        verify(mockNamedCollection, times(1))
+                .getString(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY), any());
+        assertEquals(2, audienceState.getAvoidedPersistenceReadCount());
+    }
+
+    @Test
+    public void testGetUuid_whenSetAfterLoad_returnsNewValueWithoutReading() {
+        assertNull(audienceState.getUuid());
+        audienceState.setUuid(UUID);
+        assertEquals(UUID, audienceState.getUuid());
+        audienceState.setUuid(null);
+        assertNull(audienceState.getUuid());
+
+        verify(mockNamedCollection, times(1))
+                .getString(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY), any());
+    }
+
     @Test
     public void testGetSetUuid_whenNullNamedCollection_doNotCrash() {
         audienceState = new AudienceState(null);
@@ -188,6 +231,10 @@ public class AudienceStateTests {
 
         verify(mockNamedCollection)
                 .getMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
+        // the profile stays under the key read by previous versions
+        verify(mockNamedCollection, never()).setMap(anyString(), any());
+        verify(mockNamedCollection, never())
+                .remove(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
     }
 
     @Test
@@ -204,6 +251,18 @@ public class AudienceStateTests {
         assertNull(profile);
     }
 
+    @Test
+    public void testGetVisitorProfile_whenNotPersisted_readsPersistenceOnce() {
+        assertNull(audienceState.getVisitorProfile());
+        assertNull(audienceState.getVisitorProfile());
+
+        verify(mockNamedCollection, times(1))
+                .contains(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
+        verify(mockNamedCollection, never())
+                .getMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
+        assertEquals(1, audienceState.getAvoidedPersistenceReadCount());
+    }
+
     @Test
     public void testGetSetVisitorProfile_whenNullNamedCollection_doNotCrash() {
         audienceState = new AudienceState(null);
@@ -268,6 +327,7 @@ public class AudienceStateTests {
         audienceState.setVisitorProfile(VISITOR_PROFILE);
         Map<String, String> profile = audienceState.getVisitorProfile();
         assertEquals(VISITOR_PROFILE, profile);
+        audienceState.flushPersistence();
 
         ArgumentCaptor<Map<String, String>> profileCaptor = ArgumentCaptor.forClass(Map.class);
         verify(mockNamedCollection)
@@ -294,6 +354,7 @@ public class AudienceStateTests {
         audienceState.setVisitorProfile(VISITOR_PROFILE);
         Map<String, String> profile = audienceState.getVisitorProfile();
         assertEquals(VISITOR_PROFILE, profile);
+        audienceState.flushPersistence();
 
         ArgumentCaptor<Map<String, String>> profileCaptor = ArgumentCaptor.forClass(Map.class);
         verify(mockNamedCollection)
@@ -386,6 +447,78 @@ public class AudienceStateTests {
                 .remove(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
     }
 
+    @Test
+    public void testSetVisitorProfile_beforeWriteDelay_doesNotWritePersistence() {
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+
+        verify(mockNamedCollection, never())
+                .setMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY), any());
+    }
+
+    @Test
+    public void testSetVisitorProfile_whenUpdatedRepeatedly_writesLatestProfileOnce() {
+        final Map<String, String> latestProfile = new HashMap<>();
+        latestProfile.put("trait", "latest");
+
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+        audienceState.setVisitorProfile(latestProfile);
+        audienceState.flushPersistence();
+
+        ArgumentCaptor<Map<String, String>> profileCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(mockNamedCollection, times(1))
+                .setMap(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY),
+                        profileCaptor.capture());
+        assertEquals(latestProfile, profileCaptor.getValue());
+    }
+
+    @Test
+    public void testSetVisitorProfile_whenSameAsPersisted_skipsWrite() {
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+        audienceState.flushPersistence();
+        audienceState.setVisitorProfile(new HashMap<>(VISITOR_PROFILE));
+        audienceState.flushPersistence();
+
+        verify(mockNamedCollection, times(1))
+                .setMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY), any());
+    }
+
+    @Test
+    public void testSetVisitorProfile_whenWriteDelayElapsed_writesPersistence() {
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+
+        verify(mockNamedCollection, timeout(5000))
+                .setMap(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY),
+                        eq(VISITOR_PROFILE));
+    }
+
+    @Test
+    public void testClearIdentifiers_dropsPendingProfileWrite() {
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+        audienceState.clearIdentifiers();
+        audienceState.flushPersistence();
+
+        verify(mockNamedCollection)
+                .remove(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
+        verify(mockNamedCollection, never())
+                .setMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY), any());
+    }
+
+    @Test
+    public void testSetMobilePrivacyStatus_whenOptedOut_dropsPendingProfileWrite() {
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+        audienceState.setMobilePrivacyStatus(MobilePrivacyStatus.OPT_OUT);
+
+        // the profile is removed before the privacy change returns
+        verify(mockNamedCollection)
+                .remove(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY));
+
+        audienceState.flushPersistence();
+        verify(mockNamedCollection, never())
+                .setMap(eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY), any());
+    }
+
     // ============================================================
     // GetStateData()
     // ============================================================
@@ -415,6 +548,74 @@ public class AudienceStateTests {
         assertFalse(data.containsKey(EVENT_DATA_VISITOR_PROFILE));
     }
 
+    @Test
+    public void testGetStateData_whenStateUnchanged_returnsSameSnapshot() {
+        audienceState.setUuid(UUID);
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+
+        final Map<String, Object> data = audienceState.getStateData();
+        audienceState.setUuid(UUID);
+        audienceState.setVisitorProfile(new HashMap<>(VISITOR_PROFILE));
+        audienceState.setMobilePrivacyStatus(MobilePrivacyStatus.OPT_IN);
+
+        assertSame(data, audienceState.getStateData());
+    }
+
+    @Test
+    public void testGetStateData_whenNoUuid_readsPersistenceOnce() {
+        audienceState.getStateData();
+        audienceState.getStateData();
+
+        verify(mockNamedCollection, times(1))
+                .getString(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY), any());
+    }
+
+    @Test
+    public void testGetStateData_whenUuidChanged_rebuildsSnapshot() {
+        audienceState.setUuid(UUID);
+        final Map<String, Object> data = audienceState.getStateData();
+
+        audienceState.setUuid("newUuid");
+
+        final Map<String, Object> newData = audienceState.getStateData();
+        assertNotSame(data, newData);
+        assertEquals("newUuid", DataReader.optString(newData, EVENT_DATA_UUID, "default"));
+    }
+
+    @Test
+    public void testGetStateData_whenProfileInstanceModified_rebuildsSnapshot() {
+        final Map<String, String> visitorProfile = new HashMap<>(VISITOR_PROFILE);
+        audienceState.setVisitorProfile(visitorProfile);
+        audienceState.getStateData();
+
+        visitorProfile.put("newTrait", "newValue");
+        audienceState.setVisitorProfile(visitorProfile);
+
+        assertEquals(
+                visitorProfile,
+                DataReader.optStringMap(
+                        audienceState.getStateData(), EVENT_DATA_VISITOR_PROFILE, null));
+    }
+
+    @Test
+    public void testGetStateData_whenPrivacyOptedOut_rebuildsEmptySnapshot() {
+        audienceState.setUuid(UUID);
+        audienceState.setVisitorProfile(VISITOR_PROFILE);
+        audienceState.getStateData();
+
+        audienceState.setMobilePrivacyStatus(MobilePrivacyStatus.OPT_OUT);
+
+        assertTrue(audienceState.getStateData().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetStateData_returnsImmutableMap() {
+        audienceState.setUuid(UUID);
+
+        audienceState.getStateData().put(EVENT_DATA_UUID, "otherUuid");
+    }
+
     // ============================================================
     // Set / GetLastResetTimestamp()
     // ============================================================
@@ -437,4 +638,108 @@ public class AudienceStateTests {
     public void testGetLastResetTimestamp_whenBootedUp_returnZero() {
         assertEquals(0, audienceState.getLastResetTimestampMillis());
     }
+
+    // ============================================================
+    // Concurrency
+    // ============================================================
+    @Test
+    public void testConcurrentUpdates_stateDataMatchesFinalState() throws Exception {
+        runConcurrently(
+                8,
+                thread -> {
+                    for (int i = 0; i < 200; i++) {
+                        final Map<String, String> profile = new HashMap<>();
+                        profile.put("thread", String.valueOf(thread));
+                        profile.put("update", String.valueOf(i));
+                        audienceState.setUuid("uuid-" + thread + "-" + i);
+                        audienceState.setVisitorProfile(profile);
+                        audienceState.getStateData();
+                    }
+                });
+
+        final Map<String, Object> data = audienceState.getStateData();
+        assertEquals(audienceState.getUuid(), data.get(EVENT_DATA_UUID));
+        assertEquals(
+                audienceState.getVisitorProfile(),
+                DataReader.optStringMap(data, EVENT_DATA_VISITOR_PROFILE, null));
+    }
+
+    @Test
+    public void testConcurrentSetUuid_persistsInMemoryValue() throws Exception {
+        runConcurrently(
+                8,
+                thread -> {
+                    for (int i = 0; i < 200; i++) {
+                        audienceState.setUuid("uuid-" + thread + "-" + i);
+                    }
+                });
+
+        final ArgumentCaptor<String> uuidCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockNamedCollection, times(8 * 200))
+                .setString(
+                        eq(AudienceTestConstants.AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY),
+                        uuidCaptor.capture());
+        final List<String> persistedUuids = uuidCaptor.getAllValues();
+        assertEquals(audienceState.getUuid(), persistedUuids.get(persistedUuids.size() - 1));
+    }
+
+    @Test
+    public void testConcurrentReads_whenCallerModifiesProfile_seeConsistentProfiles()
+            throws Exception {
+        final Map<String, String> callerProfile = new HashMap<>();
+
+        runConcurrently(
+                4,
+                thread -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (thread == 0) {
+                            // the caller keeps modifying and setting the same map instance
+                            callerProfile.put("key" + (i % 50), String.valueOf(i));
+                            audienceState.setVisitorProfile(callerProfile);
+                        } else {
+                            final Map<String, String> profile =
+                                    audienceState.getVisitorProfile();
+                            if (profile != null) {
+                                new HashMap<>(profile);
+                            }
+                        }
+                    }
+                });
+
+        assertEquals(callerProfile, audienceState.getVisitorProfile());
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+
+    /**
+     * Runs the task on the given number of threads, all starting at the same time, and rethrows
+     * the first failure.
+     */
+    private static void runConcurrently(final int threadCount, final ThreadTask task)
+            throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threadCount; thread++) {
+            final int threadIndex = thread;
+            futures.add(
+                    executor.submit(
+                            () -> {
+                                start.await();
+                                task.run(threadIndex);
+                                return null;
+                            }));
+        }
+
+        start.countDown();
+        try {
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -39,7 +39,11 @@ class AudienceTestConstants {
     // persistent storage
     static final String AUDIENCE_MANAGER_SHARED_PREFS_DATA_STORE = "AAMDataStore";
     static final String AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_KEY = "AAMUserProfile";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_PROFILE_DELTA_KEY = "AAMUserProfileDelta";
     static final String AUDIENCE_MANAGER_SHARED_PREFS_USER_ID_KEY = "AAMUserId";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_DEST_CACHE_KEY = "AAMDestCache";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_HIT_RETRY_KEY = "AAMHitRetry";
+    static final String AUDIENCE_MANAGER_SHARED_PREFS_COMPLETED_HITS_KEY = "AAMCompletedHits";
 
     // json response keys
     static final String AUDIENCE_MANAGER_JSON_DESTS_KEY = "dests";
@@ -169,6 +173,10 @@ class AudienceTestConstants {
             static final String DPID = "dpid";
             static final String DPUUID = "dpuuid";
             static final String UUID = "uuid";
+            // profile change keys
+            static final String PROFILE_ADDED = "aamprofileadded";
+            static final String PROFILE_REMOVED = "aamprofileremoved";
+            static final String PROFILE_CHANGED = "aamprofilechanged";
             // opted out response key
             static final String OPTED_OUT_HIT_SENT = "optedouthitsent";
 
@@ -183,6 +191,9 @@ class AudienceTestConstants {
             static final String GLOBAL_CONFIG_PRIVACY = "global.privacy";
             static final String AAM_CONFIG_SERVER = "audience.server";
             static final String AAM_CONFIG_TIMEOUT = "audience.timeout";
+            static final String AAM_CONFIG_BATCH_LIMIT = "audience.batchLimit";
+            static final String AAM_CONFIG_COALESCING_WINDOW = "audience.coalescingWindow";
+            static final String AAM_CONFIG_DEDUPE_QUEUED_SIGNALS = "audience.dedupeQueuedSignals";
             static final String EXPERIENCE_CLOUD_ORGID = "experienceCloud.org";
             static final String ANALYTICS_CONFIG_AAMFORWARDING = "analytics.aamForwardingEnabled";
 
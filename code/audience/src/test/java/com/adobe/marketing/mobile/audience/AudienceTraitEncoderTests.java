@@ -0,0 +1,112 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+
+import com.adobe.marketing.mobile.util.UrlUtils;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class AudienceTraitEncoderTests {
+
+    @Test
+    public void testEncode_whenUnreservedCharacters_keepsCharacters() {
+        final Map<String, String> traits = new LinkedHashMap<>();
+        traits.put("key", "AZaz09-._~");
+        traits.put("other", "value");
+
+        assertEquals(
+                "c_key=AZaz09-._~&c_other=value", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_whenDotsInKey_replacesDotsWithUnderscores() {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put("a.AppID", "1.0");
+
+        assertEquals("c_a_AppID=1.0", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_whenReservedAndUnicodeCharacters_percentEncodesUtf8Bytes() {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put("k y", "a&b=c/\u00e9\u20ac\ud83d\ude00");
+
+        assertEquals(
+                "c_k%20y=a%26b%3Dc%2F%C3%A9%E2%82%AC%F0%9F%98%80",
+                AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_whenUnpairedSurrogate_encodesReplacementCharacter() {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put("key", "a\ud83db");
+
+        assertEquals("c_key=a%3Fb", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_skipsNullAndEmptyEntries() {
+        final Map<String, String> traits = new LinkedHashMap<>();
+        traits.put("nullValue", null);
+        traits.put("", "emptyKey");
+        traits.put("blank", " ");
+        traits.put("key", "value");
+
+        assertEquals("c_key=value", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_whenNoValidEntries_returnsEmptyString() {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put("key", "");
+
+        assertEquals("", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_whenCalledRepeatedly_doesNotKeepPreviousOutput() {
+        final Map<String, String> traits = new HashMap<>();
+        traits.put("first", "1");
+        AudienceTraitEncoder.get().encode(traits);
+
+        traits.clear();
+        traits.put("second", "2");
+
+        assertEquals("c_second=2", AudienceTraitEncoder.get().encode(traits));
+    }
+
+    @Test
+    public void testEncode_matchesUrlUtilsEncoding() {
+        final Map<String, String> traits = new LinkedHashMap<>();
+        final StringBuilder expected = new StringBuilder();
+        for (int c = 0; c < 0x3000; c += 7) {
+            final String key = "key." + c;
+            final String value = "v" + (char) c + "\u00df" + (char) (0x2fff - c);
+            traits.put(key, value);
+
+            if (expected.length() > 0) {
+                expected.append('&');
+            }
+
+            expected.append("c_")
+                    .append(UrlUtils.urlEncode(key.replace(".", "_")))
+                    .append('=')
+                    .append(UrlUtils.urlEncode(value));
+        }
+
+        assertEquals(expected.toString(), AudienceTraitEncoder.get().encode(traits));
+    }
+}
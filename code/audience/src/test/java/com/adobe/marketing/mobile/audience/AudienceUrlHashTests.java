@@ -0,0 +1,36 @@
+/*
+  Copyright 2024 Adobe. All rights reserved.
+  This file is licensed to you under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License. You may obtain a copy
+  of the License at http://www.apache.org/licenses/LICENSE-2.0
+  Unless required by applicable law or agreed to in writing, software distributed under
+  the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+  OF ANY KIND, either express or implied. See the License for the specific language
+  governing permissions and limitations under the License.
+*/
+
+package com.adobe.marketing.mobile.audience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class AudienceUrlHashTests {
+
+    @Test
+    public void testHash_matchesFnv1aReferenceValues() {
+        assertEquals(0xcbf29ce484222325L, AudienceUrlHash.hash(""));
+        assertEquals(0xaf63dc4c8601ec8cL, AudienceUrlHash.hash("a"));
+        assertEquals(0x85944171f73967e8L, AudienceUrlHash.hash("foobar"));
+    }
+
+    @Test
+    public void testHash_whenValueDiffers_returnsDifferentHash() {
+        final String url = "https://server/event?c_a=1";
+
+        assertEquals(AudienceUrlHash.hash(url, 3), AudienceUrlHash.hash(url, 3));
+        assertNotEquals(AudienceUrlHash.hash(url, 3), AudienceUrlHash.hash(url, 5));
+        assertNotEquals(AudienceUrlHash.hash(url), AudienceUrlHash.hash(url, 3));
+    }
+}
@@ -31,3 +31,8 @@ rootProject.name = "aepsdk-audience-android"
 include (":audience",
         ":app"
         )
+
+// the JMH benchmarks are only part of the build when requested, see the benchmark Makefile target
+if (providers.gradleProperty("benchmarks").isPresent) {
+    include(":audience-benchmarks")
+}